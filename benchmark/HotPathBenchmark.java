@@ -0,0 +1,481 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A HotPathBenchmark class to measure the hot paths of Power Paint against a baseline.
+ */
+
+package benchmark;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Shape;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import javax.swing.SwingUtilities;
+
+import controller.DrawPanel;
+import controller.PowerPaintMain;
+import controller.ShapeFile;
+import controller.ShapeStore;
+import tools.CircleTool;
+import tools.EllipseTool;
+import tools.LineTool;
+import tools.PaintTool;
+import tools.Polyline;
+import tools.RectangleTool;
+import tools.ShapeAttributeContainer;
+import tools.SquareTool;
+
+/**
+ * This program measures the hot paths of Power Paint on synthetic drawings: a full
+ * repaint of a DrawPanel holding 1,000 to 1,000,000 Shapes into a BufferedImage,
+ * the time and heap allocated per drag event by each shape tool's geometry and
+ * the heap allocated per drag event by a DrawPanel's mouse listener, saving
+ * and loading round trips in both .shp formats, and undoing and redoing a single
+ * large group on top of a long drawing.
+ *
+ * Each measurement is repeated for a warm-up period and then for a measured period,
+ * and the average per operation is reported, one result per line as a key, a value,
+ * and a unit. Given the path of a baseline file holding earlier results in the same
+ * form, such as the checked-in baseline.txt, each result is also reported as a ratio
+ * to its baseline, so that a change in performance shows as a ratio away from 1.
+ * Given a second path, the results are also written there as a new baseline.
+ *
+ * Usage: HotPathBenchmark [baseline [output]]
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class HotPathBenchmark {
+	
+	/** The width of the painted DrawPanel and of the drawings. */
+	private static final int WIDTH = 800;
+	
+	/** The height of the painted DrawPanel and of the drawings. */
+	private static final int HEIGHT = 600;
+	
+	/** The largest width or height of a generated Shape. */
+	private static final int MAX_SHAPE_SIZE = 40;
+	
+	/** The number of Points in a generated Polyline. */
+	private static final int POLYLINE_POINTS = 8;
+	
+	/** The largest stroke width of a generated Shape. */
+	private static final int MAX_STROKE = 10;
+	
+	/** The number of Shapes in each ID group of a generated drawing. */
+	private static final int GROUP_SIZE = 4;
+	
+	/** The numbers of Shapes in the painted drawings. */
+	private static final int[] PAINT_SIZES = {1_000, 10_000, 100_000, 1_000_000};
+	
+	/** The numbers of Shapes in the saved and loaded drawings. */
+	private static final int[] FILE_SIZES = {10_000, 100_000, 1_000_000};
+	
+	/** The largest drawing saved and loaded in the original serialized format. */
+	private static final int MAX_LEGACY_SIZE = 100_000;
+	
+	/** The numbers of Shapes in the undone and redone group. */
+	private static final int[] GROUP_SIZES = {1_000, 10_000, 100_000};
+	
+	/** The number of Shapes drawn beneath the undone and redone group. */
+	private static final int HISTORY_SIZE = 100_000;
+	
+	/** The number of drag events per timed batch of tool geometry. */
+	private static final int EVENTS = 100_000;
+	
+	/** The number of distinct drag Points cycled through by each tool. */
+	private static final int POINTS = 1024;
+	
+	/** The time each measurement is run for before it is measured, in nanoseconds. */
+	private static final long WARM_UP_NANOS = 500_000_000L;
+	
+	/** The time each measurement is run for while it is measured, in nanoseconds. */
+	private static final long MEASURE_NANOS = 1_000_000_000L;
+	
+	/** The number of nanoseconds in a millisecond. */
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+	
+	/** The baseline results, keyed by name. */
+	private final Map<String, Double> myBaseline;
+	
+	/** The lines of the baseline file written after measuring. */
+	private final List<String> myLines;
+	
+	/**
+	 * Constructs a new HotPathBenchmark comparing its results to a baseline.
+	 *
+	 * @param theBaseline is the baseline results, keyed by name.
+	 */
+	private HotPathBenchmark(final Map<String, Double> theBaseline) {
+		myBaseline = theBaseline;
+		myLines = new ArrayList<String>();
+	}
+	
+	/**
+	 * Runs every measurement and prints the results, compared to a baseline if one
+	 * is given.
+	 *
+	 * @param theArgs are the optional path of a baseline file to compare against
+	 * and the optional path a new baseline file is written to.
+	 * @throws IOException if a baseline or temporary file cannot be read or written.
+	 * @throws InterruptedException if interrupted while waiting for the event 
+	 * dispatch thread.
+	 * @throws InvocationTargetException if a measurement on the event dispatch 
+	 * thread throws an exception.
+	 */
+	public static void main(final String[] theArgs)
+			throws IOException, InterruptedException, InvocationTargetException {
+		PowerPaintMain.configureRenderer();
+		System.setProperty("java.awt.headless", "true");
+		final Map<String, Double> baseline = new HashMap<String, Double>();
+		if (theArgs.length > 0) {
+			for (final String line : Files.readAllLines(Paths.get(theArgs[0]))) {
+				final String[] fields = line.trim().split("\\s+");
+				if (fields.length == 3 && !line.startsWith("#")) {
+					baseline.put(fields[0], Double.parseDouble(fields[1]));
+				}
+			}
+		}
+		final HotPathBenchmark benchmark = new HotPathBenchmark(baseline);
+		System.out.printf("%-32s %14s %-10s %s%n", "measurement", "value", "unit",
+				          baseline.isEmpty() ? "" : "vs baseline");
+		benchmark.measurePaint();
+		benchmark.measureTools();
+		benchmark.measureDrags();
+		benchmark.measureFiles();
+		benchmark.measureUndo();
+		if (theArgs.length > 1) {
+			benchmark.myLines.add(0, String.format("# HotPathBenchmark results: "
+					+ "%d processors, Java %s", Runtime.getRuntime().availableProcessors(),
+					System.getProperty("java.version")));
+			Files.write(Paths.get(theArgs[1]), benchmark.myLines);
+		}
+	}
+	
+	/**
+	 * Measures a full repaint of a DrawPanel holding drawings of each size. The
+	 * DrawPanel's committed image is invalidated before each repaint, so each one
+	 * redraws every Shape as it does when the DrawPanel is first shown or resized.
+	 */
+	private void measurePaint() {
+		for (final int size : PAINT_SIZES) {
+			final DrawPanel panel = new DrawPanel(new LineTool());
+			panel.setSize(WIDTH, HEIGHT);
+			panel.addSavedShapes(createDrawing(size));
+			final BufferedImage screen = new BufferedImage(WIDTH, HEIGHT,
+					                                       BufferedImage.TYPE_INT_RGB);
+			final Graphics2D g2d = screen.createGraphics();
+			report("paint.full." + size, time(() -> {
+				panel.setBackground(Color.WHITE);
+				panel.paint(g2d);
+			}) / NANOS_PER_MILLI, "ms/op");
+			g2d.dispose();
+		}
+	}
+	
+	/**
+	 * Measures the time taken and the heap allocated by each shape tool to provide
+	 * its Shape for one drag event, as a DrawPanel asks for it to draw its preview.
+	 */
+	private void measureTools() {
+		final Point[] points = createPoints();
+		final PaintTool[] tools = {new LineTool(), new RectangleTool(), new SquareTool(),
+			                       new EllipseTool(), new CircleTool()};
+		for (final PaintTool tool : tools) {
+			tool.setStartPoint(WIDTH / 2, HEIGHT / 2);
+			final Shape[] sink = new Shape[1];
+			final Runnable drag = () -> {
+				for (int i = 0; i < EVENTS; i++) {
+					final Point point = points[i & (POINTS - 1)];
+					tool.setEndPoint(point.x, point.y);
+					sink[0] = tool.getShape();
+				}
+			};
+			final String name = "tool." + tool.getBasicName().toLowerCase();
+			report(name + ".time", time(drag) / EVENTS, "ns/event");
+			report(name + ".alloc", (double) allocated(drag) / EVENTS, "B/event");
+		}
+	}
+	
+	/**
+	 * Measures the heap allocated by a DrawPanel's mouse listener for each drag
+	 * event of a rectangle being drawn, between display frames. The drags run on the
+	 * event dispatch thread, so no frame is processed while they are measured.
+	 *
+	 * @throws InterruptedException if interrupted while waiting for the event 
+	 * dispatch thread.
+	 * @throws InvocationTargetException if the drags throw an exception.
+	 */
+	private void measureDrags() throws InterruptedException, InvocationTargetException {
+		final Point[] points = createPoints();
+		final DrawPanel panel = new DrawPanel(new RectangleTool());
+		panel.setSize(WIDTH, HEIGHT);
+		final MouseEvent[] drags = new MouseEvent[POINTS];
+		for (int i = 0; i < POINTS; i++) {
+			drags[i] = new MouseEvent(panel, MouseEvent.MOUSE_DRAGGED, 0, 0, points[i].x,
+					                  points[i].y, 0, false, MouseEvent.BUTTON1);
+		}
+		final MouseEvent press = new MouseEvent(panel, MouseEvent.MOUSE_PRESSED, 0, 0,
+				                                WIDTH / 2, HEIGHT / 2, 1, false,
+				                                MouseEvent.BUTTON1);
+		final MouseListener listener = panel.getMouseListeners()[0];
+		final MouseMotionListener motion = panel.getMouseMotionListeners()[0];
+		final com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final long[] bytes = new long[1];
+		SwingUtilities.invokeAndWait(() -> {
+			for (int run = 0; run < 2; run++) {
+				listener.mousePressed(press);
+				final long before = threads.getCurrentThreadAllocatedBytes();
+				for (int i = 0; i < EVENTS; i++) {
+					motion.mouseDragged(drags[i & (POINTS - 1)]);
+				}
+				bytes[0] = threads.getCurrentThreadAllocatedBytes() - before;
+			}
+			listener.mouseReleased(press);
+		});
+		report("drag.rectangle.alloc", (double) bytes[0] / EVENTS, "B/event");
+	}
+	
+	/**
+	 * Creates the drag Points cycled through by the tools.
+	 *
+	 * @return the Points.
+	 */
+	private static Point[] createPoints() {
+		final Point[] points = new Point[POINTS];
+		final Random random = new Random(POINTS);
+		for (int i = 0; i < POINTS; i++) {
+			points[i] = new Point(random.nextInt(WIDTH), random.nextInt(HEIGHT));
+		}
+		return points;
+	}
+	
+	/**
+	 * Measures saving and loading drawings of each size, in the current .shp format
+	 * and, for the smaller drawings, in the original serialized format.
+	 *
+	 * @throws IOException if a temporary file cannot be written or read.
+	 */
+	private void measureFiles() throws IOException {
+		final Path file = Files.createTempFile("benchmark", ".shp");
+		try {
+			for (final int size : FILE_SIZES) {
+				final List<ShapeAttributeContainer> shapes = createDrawing(size);
+				final ShapeStore store = new ShapeStore();
+				for (final ShapeAttributeContainer sac : shapes) {
+					store.add(sac);
+				}
+				report("file.shp.roundtrip." + size, time(() -> {
+					try {
+						ShapeFile.write(file, store);
+						check(ShapeFile.read(file).size(), size);
+					} catch (final IOException ex) {
+						throw new IllegalStateException(ex);
+					}
+				}) / NANOS_PER_MILLI, "ms/op");
+				report("file.shp.bytes." + size, (double) Files.size(file) / size,
+					   "B/shape");
+				if (size <= MAX_LEGACY_SIZE) {
+					report("file.serial.roundtrip." + size, time(() -> {
+						try {
+							writeLegacy(file, shapes);
+							check(ShapeFile.read(file).size(), size);
+						} catch (final IOException ex) {
+							throw new IllegalStateException(ex);
+						}
+					}) / NANOS_PER_MILLI, "ms/op");
+				}
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	/**
+	 * Measures undoing and then redoing a single group of each size drawn on top of
+	 * a long drawing, repainting the DrawPanel after each.
+	 */
+	private void measureUndo() {
+		for (final int size : GROUP_SIZES) {
+			final DrawPanel panel = new DrawPanel(new LineTool());
+			panel.setSize(WIDTH, HEIGHT);
+			panel.addSavedShapes(createDrawing(HISTORY_SIZE));
+			final List<ShapeAttributeContainer> group = createDrawing(size);
+			final List<ShapeAttributeContainer> single =
+					                            new ArrayList<ShapeAttributeContainer>();
+			for (final ShapeAttributeContainer sac : group) {
+				single.add(new ShapeAttributeContainer(sac.getShape(), sac.isFilled(),
+						                               sac.isEraserActivated(),
+						                               sac.getColor(), sac.getFillColor(),
+						                               sac.getStrokeWidth(), -1));
+			}
+			panel.addSavedShapes(single);
+			final BufferedImage screen = new BufferedImage(WIDTH, HEIGHT,
+					                                       BufferedImage.TYPE_INT_RGB);
+			final Graphics2D g2d = screen.createGraphics();
+			panel.paint(g2d);
+			report("undo.redo.group." + size, time(() -> {
+				panel.undo();
+				panel.paint(g2d);
+				panel.redo();
+				panel.paint(g2d);
+			}) / NANOS_PER_MILLI, "ms/op");
+			g2d.dispose();
+		}
+	}
+	
+	/**
+	 * Runs a task repeatedly for the warm-up period and then for the measured period.
+	 *
+	 * @param theTask is the task.
+	 * @return the average time per run of theTask while measured, in nanoseconds.
+	 */
+	private static double time(final Runnable theTask) {
+		final long warmUp = System.nanoTime() + WARM_UP_NANOS;
+		do {
+			theTask.run();
+		} while (System.nanoTime() < warmUp);
+		final long start = System.nanoTime();
+		long elapsed;
+		int runs = 0;
+		do {
+			theTask.run();
+			runs++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < MEASURE_NANOS);
+		return (double) elapsed / runs;
+	}
+	
+	/**
+	 * Runs a task once, after it has been warmed up, and measures the heap allocated
+	 * by the current thread while it runs.
+	 *
+	 * @param theTask is the task.
+	 * @return the number of bytes allocated by one run of theTask.
+	 */
+	private static long allocated(final Runnable theTask) {
+		final com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		theTask.run();
+		final long before = threads.getCurrentThreadAllocatedBytes();
+		theTask.run();
+		return threads.getCurrentThreadAllocatedBytes() - before;
+	}
+	
+	/**
+	 * Records and prints a result, with its ratio to the baseline if there is one.
+	 *
+	 * @param theName is the name of the result.
+	 * @param theValue is the value of the result.
+	 * @param theUnit is the unit of the result.
+	 */
+	private void report(final String theName, final double theValue,
+			            final String theUnit) {
+		myLines.add(String.format("%s %.3f %s", theName, theValue, theUnit));
+		final Double baseline = myBaseline.get(theName);
+		String ratio = "";
+		if (baseline != null && baseline > 0) {
+			ratio = String.format("%.2fx", theValue / baseline);
+		} else if (baseline != null) {
+			ratio = String.format("was %.3f", baseline);
+		}
+		System.out.printf("%-32s %14.3f %-10s %s%n", theName, theValue, theUnit, ratio);
+	}
+	
+	/**
+	 * Creates a drawing of lines, rectangles, ellipses, and Polylines of random
+	 * sizes, Colors, and stroke widths, spread over the DrawPanel, in groups of
+	 * consecutive Shapes sharing an ID number.
+	 *
+	 * @param theSize is the number of Shapes.
+	 * @return the Shapes, in drawing order.
+	 */
+	private static List<ShapeAttributeContainer> createDrawing(final int theSize) {
+		final Random random = new Random(theSize);
+		final List<ShapeAttributeContainer> shapes =
+				                            new ArrayList<ShapeAttributeContainer>(theSize);
+		for (int i = 0; i < theSize; i++) {
+			final int x = random.nextInt(WIDTH - MAX_SHAPE_SIZE);
+			final int y = random.nextInt(HEIGHT - MAX_SHAPE_SIZE);
+			final int width = 1 + random.nextInt(MAX_SHAPE_SIZE);
+			final int height = 1 + random.nextInt(MAX_SHAPE_SIZE);
+			final Shape shape;
+			switch (i % 4) {
+				case 0:
+					shape = new Line2D.Double(x, y, x + width, y + height);
+					break;
+				case 1:
+					shape = new Rectangle2D.Double(x, y, width, height);
+					break;
+				case 2:
+					shape = new Ellipse2D.Double(x, y, width, height);
+					break;
+				default:
+					final Polyline line = new Polyline(x, y);
+					for (int p = 1; p < POLYLINE_POINTS; p++) {
+						line.lineTo(x + random.nextInt(width), y + random.nextInt(height));
+					}
+					shape = line;
+					break;
+			}
+			final boolean filled = i % 4 != 0 && random.nextInt(4) == 0;
+			shapes.add(new ShapeAttributeContainer(shape, filled, false,
+					                              new Color(random.nextInt()),
+					                              new Color(random.nextInt()),
+					                              1 + random.nextInt(MAX_STROKE),
+					                              i / GROUP_SIZE));
+		}
+		return shapes;
+	}
+	
+	/**
+	 * Writes a drawing in the original serialized format.
+	 *
+	 * @param thePath is the path of the file.
+	 * @param theShapes are the Shapes to be written.
+	 * @throws IOException if the file cannot be written.
+	 */
+	private static void writeLegacy(final Path thePath,
+			                        final List<ShapeAttributeContainer> theShapes)
+			throws IOException {
+		try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(
+				                                      Files.newOutputStream(thePath)))) {
+			out.writeObject(theShapes);
+		}
+	}
+	
+	/**
+	 * Checks that a drawing read back holds every Shape.
+	 *
+	 * @param theSize is the number of Shapes read.
+	 * @param theExpected is the number of Shapes written.
+	 * @throws IllegalStateException if theSize is wrong.
+	 */
+	private static void check(final int theSize, final int theExpected) {
+		if (theSize != theExpected) {
+			throw new IllegalStateException("Read " + theSize + " Shapes");
+		}
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A ShapeFileBenchmark class to measure the size and speed of saved .shp files.
+ */
+
+package benchmark;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.geom.Line2D;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import controller.ShapeFile;
+import controller.ShapeStore;
+import tools.ShapeAttributeContainer;
+
+/**
+ * This program measures the size of a .shp file holding a long freehand drawing,
+ * and the time taken to save and load it, in the original format written by Java
+ * object serialization and in the format written by ShapeFile. It also measures
+ * the time taken to load only the Shapes within a DrawPanel-sized view of the
+ * drawing. The drawing is made of short pencil segments in a few Colors, each
+ * starting where the one before it ended.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class ShapeFileBenchmark {
+	
+	/** The number of pencil segments in the measured drawing. */
+	private static final int SEGMENTS = 1_000_000;
+	
+	/** The width and height of the area the drawing is made in. */
+	private static final int WORLD_SIZE = 4000;
+	
+	/** The largest distance moved along each axis by a pencil segment. */
+	private static final int STEP = 8;
+	
+	/** The area of the drawing loaded when measuring a view of it. */
+	private static final Rectangle VIEW = new Rectangle(0, 0, 800, 600);
+	
+	/** The number of Colors the drawing is made in. */
+	private static final int PALETTE_SIZE = 8;
+	
+	/** The number of segments drawn in one Color before switching. */
+	private static final int STROKE_LENGTH = 500;
+	
+	/** The number of times each measurement is repeated, keeping the fastest. */
+	private static final int RUNS = 5;
+	
+	/** The number of bytes in a mebibyte. */
+	private static final double MEBIBYTE = 1024.0 * 1024.0;
+	
+	/** The number of nanoseconds in a millisecond. */
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+	
+	/**
+	 * Runs the measurements and prints their results.
+	 *
+	 * @param theArgs are command line arguments - unused.
+	 * @throws IOException if a temporary file cannot be written or read.
+	 */
+	public static void main(final String[] theArgs) throws IOException {
+		final List<ShapeAttributeContainer> shapes = createShapes();
+		final ShapeStore store = new ShapeStore();
+		for (final ShapeAttributeContainer sac : shapes) {
+			store.add(sac);
+		}
+		final Path legacy = Files.createTempFile("legacy", ".shp");
+		final Path compact = Files.createTempFile("compact", ".shp");
+		try {
+			long legacySave = Long.MAX_VALUE;
+			long legacyLoad = Long.MAX_VALUE;
+			long compactSave = Long.MAX_VALUE;
+			long compactLoad = Long.MAX_VALUE;
+			long viewLoad = Long.MAX_VALUE;
+			int viewShapes = 0;
+			for (int i = 0; i < RUNS; i++) {
+				long start = System.nanoTime();
+				writeLegacy(legacy, shapes);
+				legacySave = Math.min(legacySave, System.nanoTime() - start);
+				start = System.nanoTime();
+				check(readLegacy(legacy).size());
+				legacyLoad = Math.min(legacyLoad, System.nanoTime() - start);
+				start = System.nanoTime();
+				ShapeFile.write(compact, store);
+				compactSave = Math.min(compactSave, System.nanoTime() - start);
+				start = System.nanoTime();
+				check(ShapeFile.read(compact).size());
+				compactLoad = Math.min(compactLoad, System.nanoTime() - start);
+				start = System.nanoTime();
+				viewShapes = ShapeFile.read(compact, VIEW).size();
+				viewLoad = Math.min(viewLoad, System.nanoTime() - start);
+			}
+			System.out.println("format          segments      MiB   save ms   load ms");
+			report("serialization", Files.size(legacy), legacySave, legacyLoad);
+			report("version " + ShapeFile.VERSION, Files.size(compact), compactSave,
+				   compactLoad);
+			System.out.printf("size reduction: %.1fx%n",
+					          (double) Files.size(legacy) / Files.size(compact));
+			System.out.printf("loading a %dx%d view: %d segments in %.1f ms%n",
+					          VIEW.width, VIEW.height, viewShapes,
+					          viewLoad / NANOS_PER_MILLI);
+		} finally {
+			Files.delete(legacy);
+			Files.delete(compact);
+		}
+	}
+	
+	/**
+	 * Creates a drawing of connected pencil segments.
+	 *
+	 * @return the segments, in drawing order.
+	 */
+	private static List<ShapeAttributeContainer> createShapes() {
+		final Random random = new Random(SEGMENTS);
+		final Color[] palette = new Color[PALETTE_SIZE];
+		for (int i = 0; i < palette.length; i++) {
+			palette[i] = new Color(random.nextInt());
+		}
+		final List<ShapeAttributeContainer> shapes =
+				                            new ArrayList<ShapeAttributeContainer>(SEGMENTS);
+		int x = WORLD_SIZE / 2;
+		int y = WORLD_SIZE / 2;
+		Color color = palette[0];
+		for (int i = 0; i < SEGMENTS; i++) {
+			if (i % STROKE_LENGTH == 0) {
+				color = palette[random.nextInt(PALETTE_SIZE)];
+			}
+			final int nextX = Math.floorMod(x + random.nextInt(2 * STEP + 1) - STEP,
+					                        WORLD_SIZE);
+			final int nextY = Math.floorMod(y + random.nextInt(2 * STEP + 1) - STEP,
+					                        WORLD_SIZE);
+			shapes.add(new ShapeAttributeContainer(new Line2D.Double(x, y, nextX, nextY),
+					                              false, false, color, Color.WHITE, 2,
+					                              i / STROKE_LENGTH));
+			x = nextX;
+			y = nextY;
+		}
+		return shapes;
+	}
+	
+	/**
+	 * Writes a drawing in the original format.
+	 *
+	 * @param thePath is the path of the file.
+	 * @param theShapes are the Shapes to be written.
+	 * @throws IOException if the file cannot be written.
+	 */
+	private static void writeLegacy(final Path thePath,
+			                        final List<ShapeAttributeContainer> theShapes)
+			throws IOException {
+		try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(
+				                                      Files.newOutputStream(thePath)))) {
+			out.writeObject(theShapes);
+		}
+	}
+	
+	/**
+	 * Reads a drawing in the original format.
+	 *
+	 * @param thePath is the path of the file.
+	 * @return the Shapes read.
+	 * @throws IOException if the file cannot be read.
+	 */
+	private static List<?> readLegacy(final Path thePath) throws IOException {
+		try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(
+				                                    Files.newInputStream(thePath)))) {
+			return (List<?>) in.readObject();
+		} catch (final ClassNotFoundException ex) {
+			throw new IOException(ex);
+		}
+	}
+	
+	/**
+	 * Checks that a drawing read back holds every segment.
+	 *
+	 * @param theSize is the number of Shapes read.
+	 * @throws IllegalStateException if theSize is wrong.
+	 */
+	private static void check(final int theSize) {
+		if (theSize != SEGMENTS) {
+			throw new IllegalStateException("Read " + theSize + " Shapes");
+		}
+	}
+	
+	/**
+	 * Prints the results measured for a format.
+	 *
+	 * @param theName is the name of the format.
+	 * @param theBytes is the size of the file.
+	 * @param theSave is the time taken to save the file, in nanoseconds.
+	 * @param theLoad is the time taken to load the file, in nanoseconds.
+	 */
+	private static void report(final String theName, final long theBytes,
+			                   final long theSave, final long theLoad) {
+		System.out.printf("%-14s %9d %8.1f %9.1f %9.1f%n", theName, SEGMENTS,
+				          theBytes / MEBIBYTE, theSave / NANOS_PER_MILLI,
+				          theLoad / NANOS_PER_MILLI);
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A ShapeIndexBenchmark class to measure ShapeIndex query costs.
+ */
+
+package benchmark;
+
+import java.awt.Rectangle;
+import java.util.Random;
+
+import controller.ShapeIndex;
+
+/**
+ * This program measures the cost of ShapeIndex queries. The first table keeps the
+ * number of Shapes inside the queried region fixed while the total number of indexed
+ * Shapes grows; the second keeps the total fixed while the number of visible Shapes
+ * grows. Query cost should track the visible count, not the total.
+ *
+ * @author Parker Rosengreen
+ * @version 16 December 2020
+ */
+public final class ShapeIndexBenchmark {
+	
+	/** The region queried by every measurement. */
+	private static final Rectangle VIEW = new Rectangle(0, 0, 256, 256);
+	
+	/** The width and height of the area Shapes outside the view are placed in. */
+	private static final int WORLD_SIZE = 16384;
+	
+	/** The largest width or height of a generated Shape's bounds. */
+	private static final int MAX_SHAPE_SIZE = 40;
+	
+	/** The number of queries timed per measurement. */
+	private static final int QUERIES = 2000;
+	
+	/** The number of untimed warm-up rounds per measurement. */
+	private static final int WARM_UP = 3;
+	
+	/** The number of nanoseconds in a microsecond. */
+	private static final double NANOS_PER_MICRO = 1000.0;
+	
+	/**
+	 * Runs both ShapeIndex query measurements and prints their results.
+	 *
+	 * @param theArgs are command line arguments - unused.
+	 */
+	public static void main(final String[] theArgs) {
+		System.out.println("visible    total   found   us/query");
+		for (final int total : new int[] {10_000, 100_000, 1_000_000}) {
+			report(1_000, total);
+		}
+		System.out.println();
+		for (final int visible : new int[] {100, 1_000, 10_000}) {
+			report(visible, 1_000_000);
+		}
+	}
+	
+	/**
+	 * Builds a ShapeIndex holding the provided number of Shapes, of which the
+	 * provided number lie in the queried view, and prints its average query time.
+	 *
+	 * @param theVisible is the number of Shapes inside the queried view.
+	 * @param theTotal is the total number of indexed Shapes.
+	 */
+	private static void report(final int theVisible, final int theTotal) {
+		final Random random = new Random(theTotal ^ theVisible);
+		final ShapeIndex index = new ShapeIndex();
+		final int stride = theTotal / theVisible;
+		for (int i = 0; i < theTotal; i++) {
+			final Rectangle bounds;
+			if (i % stride == 0) {
+				bounds = new Rectangle(random.nextInt(VIEW.width - MAX_SHAPE_SIZE),
+						               random.nextInt(VIEW.height - MAX_SHAPE_SIZE),
+						               1 + random.nextInt(MAX_SHAPE_SIZE),
+						               1 + random.nextInt(MAX_SHAPE_SIZE));
+			} else {
+				bounds = new Rectangle(VIEW.width + MAX_SHAPE_SIZE
+						               + random.nextInt(WORLD_SIZE),
+						               VIEW.height + MAX_SHAPE_SIZE
+						               + random.nextInt(WORLD_SIZE),
+						               1 + random.nextInt(MAX_SHAPE_SIZE),
+						               1 + random.nextInt(MAX_SHAPE_SIZE));
+			}
+			index.add(bounds);
+		}
+		int found = 0;
+		long elapsed = 0;
+		for (int round = 0; round <= WARM_UP; round++) {
+			final long start = System.nanoTime();
+			for (int q = 0; q < QUERIES; q++) {
+				found = index.query(VIEW).length;
+			}
+			elapsed = System.nanoTime() - start;
+		}
+		System.out.printf("%7d %8d %7d %10.2f%n", theVisible, theTotal, found,
+				          elapsed / NANOS_PER_MICRO / QUERIES);
+	}
+}
@@ -0,0 +1,184 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A ShapeStoreFootprintBenchmark class to measure the heap used by stored Shapes.
+ */
+
+package benchmark;
+
+import java.awt.Color;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import controller.ShapeStore;
+import tools.Polyline;
+import tools.ShapeAttributeContainer;
+
+/**
+ * This program measures the heap retained by a document of drawn Shapes when it is
+ * held as a List of ShapeAttributeContainers and when it is held in a ShapeStore.
+ * Each document mixes lines, rectangles, ellipses, and short freehand Polylines in
+ * a few Colors, as drawn with the PowerPaint GUI.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class ShapeStoreFootprintBenchmark {
+	
+	/** The number of Shapes in each measured document. */
+	private static final int SHAPES = 200_000;
+	
+	/** The width and height of the area Shapes are placed in. */
+	private static final int WORLD_SIZE = 4000;
+	
+	/** The largest number of Points in a generated Polyline. */
+	private static final int MAX_POINTS = 24;
+	
+	/** The number of Colors Shapes are drawn in. */
+	private static final int PALETTE_SIZE = 8;
+	
+	/** The number of garbage collections requested before measuring the heap. */
+	private static final int COLLECTIONS = 5;
+	
+	/** The number of distinct kinds of generated Shapes. */
+	private static final int KINDS = 4;
+	
+	/** The number of bytes in a mebibyte. */
+	private static final double MEBIBYTE = 1024.0 * 1024.0;
+	
+	/**
+	 * Measures the heap retained by both document representations and prints the
+	 * results.
+	 *
+	 * @param theArgs are command line arguments - unused.
+	 */
+	public static void main(final String[] theArgs) {
+		final long listBytes = measureList();
+		final long storeBytes = measureStore();
+		System.out.println("representation     shapes      MiB   bytes/shape");
+		report("List<container>", listBytes);
+		report("ShapeStore", storeBytes);
+		System.out.printf("reduction: %.1fx%n", (double) listBytes / storeBytes);
+	}
+	
+	/**
+	 * Measures the heap retained by a document held as a List of
+	 * ShapeAttributeContainers.
+	 *
+	 * @return the number of bytes retained.
+	 */
+	private static long measureList() {
+		final long empty = usedMemory();
+		final List<ShapeAttributeContainer> shapes = createShapes();
+		final long bytes = usedMemory() - empty;
+		if (shapes.size() != SHAPES) {
+			throw new IllegalStateException();
+		}
+		return bytes;
+	}
+	
+	/**
+	 * Measures the heap retained by a document held in a ShapeStore.
+	 *
+	 * @return the number of bytes retained.
+	 */
+	private static long measureStore() {
+		final long empty = usedMemory();
+		final ShapeStore store = toStore(createShapes());
+		final long bytes = usedMemory() - empty;
+		if (store.size() != SHAPES) {
+			throw new IllegalStateException();
+		}
+		return bytes;
+	}
+	
+	/**
+	 * Copies a document of Shapes into a new ShapeStore.
+	 *
+	 * @param theShapes are the Shapes, in drawing order.
+	 * @return the ShapeStore.
+	 */
+	private static ShapeStore toStore(final List<ShapeAttributeContainer> theShapes) {
+		final ShapeStore store = new ShapeStore();
+		for (final ShapeAttributeContainer sac : theShapes) {
+			store.add(sac);
+		}
+		return store;
+	}
+	
+	/**
+	 * Creates a document of randomly generated Shapes.
+	 *
+	 * @return the Shapes, in drawing order.
+	 */
+	private static List<ShapeAttributeContainer> createShapes() {
+		final Random random = new Random(SHAPES);
+		final Color[] palette = new Color[PALETTE_SIZE];
+		for (int i = 0; i < palette.length; i++) {
+			palette[i] = new Color(random.nextInt());
+		}
+		final List<ShapeAttributeContainer> shapes =
+				                            new ArrayList<ShapeAttributeContainer>(SHAPES);
+		for (int i = 0; i < SHAPES; i++) {
+			final int x = random.nextInt(WORLD_SIZE);
+			final int y = random.nextInt(WORLD_SIZE);
+			final int width = random.nextInt(WORLD_SIZE / 10);
+			final int height = random.nextInt(WORLD_SIZE / 10);
+			final Shape shape;
+			switch (i % KINDS) {
+				case 0:
+					shape = new Line2D.Double(x, y, x + width, y + height);
+					break;
+				case 1:
+					shape = new Rectangle2D.Double(x, y, width, height);
+					break;
+				case 2:
+					shape = new Ellipse2D.Double(x, y, width, height);
+					break;
+				default:
+					final Polyline line = new Polyline(x, y);
+					for (int p = random.nextInt(MAX_POINTS); p > 0; p--) {
+						line.lineTo(x + random.nextInt(width + 1),
+								    y + random.nextInt(height + 1));
+					}
+					shape = line;
+					break;
+			}
+			shapes.add(new ShapeAttributeContainer(shape, random.nextBoolean(), false,
+					                          palette[random.nextInt(PALETTE_SIZE)],
+					                          palette[random.nextInt(PALETTE_SIZE)],
+					                          1 + random.nextInt(20), i));
+		}
+		return shapes;
+	}
+	
+	/**
+	 * Prints the heap retained by a document representation.
+	 *
+	 * @param theName is the name of the representation.
+	 * @param theBytes is the number of bytes retained.
+	 */
+	private static void report(final String theName, final long theBytes) {
+		System.out.printf("%-16s %8d %8.1f %13.1f%n", theName, SHAPES,
+				          theBytes / MEBIBYTE, (double) theBytes / SHAPES);
+	}
+	
+	/**
+	 * Provides the number of bytes in use on the heap after requesting garbage
+	 * collection.
+	 *
+	 * @return the number of bytes in use.
+	 */
+	private static long usedMemory() {
+		final Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < COLLECTIONS; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A StrokeOutlineBenchmark class to measure the cost of stroking stored Shapes.
+ */
+
+package benchmark;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import controller.PowerPaintMain;
+import controller.ShapeRenderer;
+import tools.Polyline;
+
+/**
+ * This program measures whether DrawPanels would gain from caching the stroked
+ * outline of each stored Shape and filling it, instead of drawing the Shape and
+ * having Java2D stroke it on every paint. For lines, ellipses, and Polylines of
+ * stroke widths 1 to 20 it reports the time taken to compute an outline with
+ * BasicStroke.createStrokedShape, to draw the Shapes, and to fill their precomputed
+ * outlines, along with the number of pixels that differ between the two drawings.
+ * Each is measured with the default stroke control DrawPanels paint with and with
+ * pure stroking, which does not normalize coordinates.
+ *
+ * A cache pays only if filling an outline is both faster than drawing its Shape and
+ * produces the same pixels, so that a drawing does not change as outlines are
+ * evicted and recomputed.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class StrokeOutlineBenchmark {
+	
+	/** The width of the image drawn onto. */
+	private static final int WIDTH = 800;
+	
+	/** The height of the image drawn onto. */
+	private static final int HEIGHT = 600;
+	
+	/** The largest width or height of a generated Shape. */
+	private static final int MAX_SHAPE_SIZE = 40;
+	
+	/** The number of Points in a generated Polyline. */
+	private static final int POLYLINE_POINTS = 8;
+	
+	/** The largest stroke width of a generated Shape. */
+	private static final int MAX_STROKE = 20;
+	
+	/** The number of Shapes drawn per measurement. */
+	private static final int SHAPES = 20_000;
+	
+	/** The number of untimed warm-up rounds per measurement. */
+	private static final int WARM_UP = 3;
+	
+	/** The number of nanoseconds in a microsecond. */
+	private static final double NANOS_PER_MICRO = 1000.0;
+	
+	/** The kinds of Shapes measured. */
+	private static final String[] KINDS = {"line", "ellipse", "polyline"};
+	
+	/** Prevents instantiation of this utility class. */
+	private StrokeOutlineBenchmark() {
+		throw new IllegalStateException();
+	}
+	
+	/**
+	 * Runs every measurement and prints the results.
+	 *
+	 * @param theArgs are command line arguments - unused.
+	 */
+	public static void main(final String[] theArgs) {
+		PowerPaintMain.configureRenderer();
+		System.setProperty("java.awt.headless", "true");
+		System.out.println("kind      control    us/stroke  us/draw  us/fill  pixels");
+		for (final String kind : KINDS) {
+			report(kind, RenderingHints.VALUE_STROKE_DEFAULT);
+			report(kind, RenderingHints.VALUE_STROKE_PURE);
+		}
+	}
+	
+	/**
+	 * Generates Shapes of the provided kind and prints the costs of stroking,
+	 * drawing, and filling them with the provided stroke control.
+	 *
+	 * @param theKind is the kind of Shapes.
+	 * @param theControl is the stroke control hint.
+	 */
+	private static void report(final String theKind, final Object theControl) {
+		final Random random = new Random(theKind.hashCode());
+		final Shape[] shapes = new Shape[SHAPES];
+		final BasicStroke[] strokes = new BasicStroke[SHAPES];
+		final Color[] colors = new Color[SHAPES];
+		for (int i = 0; i < SHAPES; i++) {
+			shapes[i] = createShape(theKind, random);
+			strokes[i] = createStroke(theKind, 1 + random.nextInt(MAX_STROKE));
+			colors[i] = new Color(random.nextInt());
+		}
+		final Shape[] outlines = new Shape[SHAPES];
+		final BufferedImage drawn = new BufferedImage(WIDTH, HEIGHT,
+				                                      BufferedImage.TYPE_INT_RGB);
+		final BufferedImage filled = new BufferedImage(WIDTH, HEIGHT,
+				                                       BufferedImage.TYPE_INT_RGB);
+		long stroke = 0;
+		long draw = 0;
+		long fill = 0;
+		for (int round = 0; round <= WARM_UP; round++) {
+			final long start = System.nanoTime();
+			for (int i = 0; i < SHAPES; i++) {
+				outlines[i] = strokes[i].createStrokedShape(shapes[i]);
+			}
+			stroke = System.nanoTime() - start;
+			final Graphics2D drawGraphics = createGraphics(drawn, theControl);
+			final long drawStart = System.nanoTime();
+			for (int i = 0; i < SHAPES; i++) {
+				drawGraphics.setPaint(colors[i]);
+				drawGraphics.setStroke(strokes[i]);
+				drawGraphics.draw(shapes[i]);
+			}
+			draw = System.nanoTime() - drawStart;
+			drawGraphics.dispose();
+			final Graphics2D fillGraphics = createGraphics(filled, theControl);
+			final long fillStart = System.nanoTime();
+			for (int i = 0; i < SHAPES; i++) {
+				fillGraphics.setPaint(colors[i]);
+				fillGraphics.fill(outlines[i]);
+			}
+			fill = System.nanoTime() - fillStart;
+			fillGraphics.dispose();
+		}
+		System.out.printf("%-9s %-9s %10.2f %8.2f %8.2f %7d%n", theKind,
+				          theControl == RenderingHints.VALUE_STROKE_PURE ? "pure"
+						                                                  : "default",
+				          stroke / NANOS_PER_MICRO / SHAPES,
+				          draw / NANOS_PER_MICRO / SHAPES,
+				          fill / NANOS_PER_MICRO / SHAPES, countDifferences(drawn, filled));
+	}
+	
+	/**
+	 * Creates a Shape of the provided kind at a random position.
+	 *
+	 * @param theKind is the kind of Shape.
+	 * @param theRandom is the source of random positions and sizes.
+	 * @return the Shape.
+	 */
+	private static Shape createShape(final String theKind, final Random theRandom) {
+		final int x = theRandom.nextInt(WIDTH - MAX_SHAPE_SIZE);
+		final int y = theRandom.nextInt(HEIGHT - MAX_SHAPE_SIZE);
+		final int width = 1 + theRandom.nextInt(MAX_SHAPE_SIZE);
+		final int height = 1 + theRandom.nextInt(MAX_SHAPE_SIZE);
+		final Shape shape;
+		if ("line".equals(theKind)) {
+			shape = new Line2D.Float(x, y, x + width, y + height);
+		} else if ("ellipse".equals(theKind)) {
+			shape = new Ellipse2D.Float(x, y, width, height);
+		} else {
+			final Polyline line = new Polyline(x, y);
+			for (int p = 1; p < POLYLINE_POINTS; p++) {
+				line.lineTo(x + theRandom.nextInt(width), y + theRandom.nextInt(height));
+			}
+			shape = line;
+		}
+		return shape;
+	}
+	
+	/**
+	 * Creates the stroke a stored Shape of the provided kind is drawn with.
+	 *
+	 * @param theKind is the kind of Shape.
+	 * @param theWidth is the stroke width.
+	 * @return the stroke.
+	 */
+	private static BasicStroke createStroke(final String theKind, final int theWidth) {
+		final BasicStroke stroke;
+		if ("polyline".equals(theKind)) {
+			stroke = new BasicStroke(theWidth, BasicStroke.CAP_ROUND,
+					                 BasicStroke.JOIN_ROUND);
+		} else {
+			stroke = new BasicStroke(theWidth);
+		}
+		return stroke;
+	}
+	
+	/**
+	 * Creates a Graphics context for the provided image, cleared to white and
+	 * configured as a DrawPanel's is, with the provided stroke control.
+	 *
+	 * @param theImage is the image.
+	 * @param theControl is the stroke control hint.
+	 * @return the Graphics context.
+	 */
+	private static Graphics2D createGraphics(final BufferedImage theImage,
+			                                 final Object theControl) {
+		final Graphics2D g2d = theImage.createGraphics();
+		g2d.setPaint(Color.WHITE);
+		g2d.fillRect(0, 0, WIDTH, HEIGHT);
+		ShapeRenderer.prepare(g2d);
+		g2d.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, theControl);
+		return g2d;
+	}
+	
+	/**
+	 * Counts the pixels that differ between two images of the same size.
+	 *
+	 * @param theFirst is the first image.
+	 * @param theSecond is the second image.
+	 * @return the number of differing pixels.
+	 */
+	private static int countDifferences(final BufferedImage theFirst,
+			                            final BufferedImage theSecond) {
+		int count = 0;
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				if (theFirst.getRGB(x, y) != theSecond.getRGB(x, y)) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+}
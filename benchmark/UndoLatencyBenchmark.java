@@ -0,0 +1,102 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * An UndoLatencyBenchmark class to measure the cost of undoing on long histories.
+ */
+
+package benchmark;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import controller.DrawPanel;
+import controller.PowerPaintMain;
+import tools.LineTool;
+import tools.ShapeAttributeContainer;
+
+/**
+ * This program measures the time taken to undo a Shape and repaint a DrawPanel as
+ * its drawing history grows, with keyframes enabled and with a keyframe budget of
+ * zero. Every Shape crosses the middle of the DrawPanel, so each undo must redraw
+ * a region covered by the whole history. With keyframes the cost should track the
+ * keyframe interval, not the history length.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class UndoLatencyBenchmark {
+	
+	/** The width of the measured DrawPanel. */
+	private static final int WIDTH = 800;
+	
+	/** The height of the measured DrawPanel. */
+	private static final int HEIGHT = 600;
+	
+	/** The number of undos timed per measurement. */
+	private static final int UNDOS = 50;
+	
+	/** The keyframe budget used when keyframes are enabled. */
+	private static final long BUDGET = 64L * 1024 * 1024;
+	
+	/** The number of nanoseconds in a millisecond. */
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+	
+	/**
+	 * Runs the undo measurements and prints their results.
+	 *
+	 * @param theArgs are command line arguments - unused.
+	 */
+	public static void main(final String[] theArgs) {
+		PowerPaintMain.configureRenderer();
+		System.setProperty("java.awt.headless", "true");
+		System.out.println("  shapes   keyframes ms/undo   no keyframes ms/undo");
+		for (final int shapes : new int[] {1_000, 10_000, 100_000}) {
+			System.out.printf("%8d %19.2f %22.2f%n", shapes, measure(shapes, BUDGET),
+					          measure(shapes, 0));
+		}
+	}
+	
+	/**
+	 * Builds a DrawPanel holding the provided number of Shapes and measures the
+	 * average time taken to undo a Shape and repaint the DrawPanel.
+	 *
+	 * @param theShapes is the number of Shapes drawn.
+	 * @param theBudget is the keyframe budget, in bytes.
+	 * @return the average time per undo, in milliseconds.
+	 */
+	private static double measure(final int theShapes, final long theBudget) {
+		final Random random = new Random(theShapes);
+		final DrawPanel panel = new DrawPanel(new LineTool());
+		panel.setSize(WIDTH, HEIGHT);
+		panel.setKeyframeBudget(theBudget);
+		final BufferedImage screen = new BufferedImage(WIDTH, HEIGHT,
+				                                       BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g2d = screen.createGraphics();
+		panel.paint(g2d);
+		final List<ShapeAttributeContainer> shapes =
+				                            new ArrayList<ShapeAttributeContainer>();
+		for (int i = 0; i < theShapes; i++) {
+			shapes.add(new ShapeAttributeContainer(
+					new Line2D.Double(random.nextInt(WIDTH / 2), random.nextInt(HEIGHT),
+							          WIDTH / 2 + random.nextInt(WIDTH / 2),
+							          random.nextInt(HEIGHT)),
+					false, false, new Color(random.nextInt()), Color.BLACK,
+					1 + random.nextInt(10), i));
+		}
+		panel.addSavedShapes(shapes);
+		panel.paint(g2d);
+		final long start = System.nanoTime();
+		for (int i = 0; i < UNDOS; i++) {
+			panel.undo();
+			panel.paint(g2d);
+		}
+		final long elapsed = System.nanoTime() - start;
+		g2d.dispose();
+		return elapsed / NANOS_PER_MILLI / UNDOS;
+	}
+}
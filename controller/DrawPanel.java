@@ -10,22 +10,34 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Cursor;
 import java.awt.Dimension;
+import java.awt.DisplayMode;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.Shape;
 import java.awt.event.MouseEvent;
+import java.awt.geom.PathIterator;
 import java.awt.geom.RectangularShape;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Objects;
-import java.util.Random;
-import java.util.Stack;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
+import javax.swing.JComponent;
 import javax.swing.JPanel;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.event.MouseInputAdapter;
 
 import tools.PaintTool;
+import tools.Polyline;
 import tools.ShapeAttributeContainer;
+import tools.StrokeSimplifier;
 
 /**
  * This program implements the functions and attributes necessary for
@@ -51,6 +63,36 @@ public final class DrawPanel extends JPanel {
 	/** A DrawPanel's initial stroke-width. */
 	private static final int START_STROKE = 10;
 	
+	/** The initial tolerance, in pixels, used to simplify freehand strokes. */
+	private static final double START_TOLERANCE = 0.5;
+	
+	/** The initial number of Shape groups drawn between keyframes. */
+	private static final int KEYFRAME_INTERVAL = 64;
+	
+	/** The initial number of bytes of memory keyframes may use. */
+	private static final long KEYFRAME_BUDGET = 64L * 1024 * 1024;
+	
+	/** Extra pixels added around a Shape's stroked bounds to cover antialiasing. */
+	private static final int ANTIALIAS_MARGIN = 2;
+	
+	/** The display refresh rate assumed when the actual rate is unknown. */
+	private static final int DEFAULT_REFRESH_RATE = 60;
+	
+	/** The number of milliseconds in a second. */
+	private static final int MILLIS_PER_SECOND = 1000;
+	
+	/** The initial number of coordinates of drag Points that may be queued. */
+	private static final int PENDING_CAPACITY = 64;
+	
+	/** Indicates that no mouse input is waiting to be painted. */
+	private static final long NO_INPUT = Long.MIN_VALUE;
+	
+	/** The milliseconds drawing must be idle before hidden Shapes are pruned. */
+	private static final int PRUNE_DELAY = 1000;
+	
+	/** The alpha value of an opaque Color. */
+	private static final int OPAQUE = 255;
+	
 	/** A generated serial version ID. */
 	private static final long serialVersionUID = 302736941060693880L;
 	
@@ -60,17 +102,35 @@ public final class DrawPanel extends JPanel {
 	/** The UW gold Color. */
 	private static final Color UW_GOLD = new Color(232, 211, 162);
 	
-	/** A Random Object used in Shape ID generation. */
-	private static final Random RANDOM = new Random();
-	
 	/** A collection of Shapes drawn on this DrawPanel. */
-	private final List<ShapeAttributeContainer> myPreviousShapes;
+	private final ShapeStore myPreviousShapes;
+	
+	/** A spatial index over the Shapes drawn on this DrawPanel. */
+	private final ShapeIndex myShapeIndex;
+	
+	/** The renderer used to redraw this DrawPanel's committed image in full. */
+	private final TileRenderer myTileRenderer;
 	
-	/** A collection of undone Shapes drawn on this DrawPanel. */
-	private final Stack<ShapeAttributeContainer> myRedoShapes;
+	/** Raster checkpoints of this DrawPanel's committed image, used to undo quickly. */
+	private final KeyframeCache myKeyframes;
+	
+	/** The number of Shape groups drawn between keyframes. */
+	private int myKeyframeInterval;
+	
+	/** A collection of undone Shapes drawn on this DrawPanel, the most recent last. */
+	private final ShapeStore myRedoShapes;
+	
+	/** The reusable geometry used to draw stored Shapes on the event thread. */
+	private final ShapeStore.Geometry myGeometry;
 	
 	/** A collection of the unique ID numbers of Shapes drawn on this DrawPanel. */
-	private final List<Integer> myUsedIDs;
+	private final IDSet myUsedIDs;
+	
+	/** The journal recording changes to this DrawPanel's Shapes, if any. */
+	private StrokeJournal myJournal;
+
+	/** The latest read-only snapshot of the Shapes drawn on this DrawPanel. */
+	private volatile ShapeStore myPublishedShapes;
 	
 	/** This DrawPanel's primary Color. */
 	private Color myPrimaryColor;
@@ -87,17 +147,86 @@ public final class DrawPanel extends JPanel {
 	/** This DrawPanel's current PaintTool. */
 	private PaintTool myCurrentTool;
 	
+	/** The freehand stroke currently being drawn on this DrawPanel, if any. */
+	private ShapeAttributeContainer myActiveStroke;
+	
+	/** Drops redundant points from freehand strokes as they are drawn. */
+	private StrokeSimplifier myStrokeSimplifier;
+	
+	/** The number of points dropped from the most recently finished freehand stroke. */
+	private int myLastDroppedPoints;
+	
+	/** The number of points provided for the most recently finished freehand stroke. */
+	private int myLastStrokePoints;
+	
+	/** The number of points dropped from all freehand strokes drawn on this DrawPanel. */
+	private long myTotalDroppedPoints;
+	
 	/** This DrawPanel's stroke width. */
 	private int myStrokeWidth;
 	
+	/** The stroke the Shape in progress is drawn with, of this DrawPanel's width. */
+	private BasicStroke myToolStroke;
+	
 	/** The next unique Shape ID number to be assigned by this DrawPanel. */
 	private int myShapeID;
 	
+	/** The next ID number to be tried by this DrawPanel's Shape ID sequence. */
+	private int myNextID;
+	
 	/** Indicates if a non-erasable tool is activated on this DrawPanel. */
 	private boolean myEraserActivated;
 	
 	/** Indicates if Shapes drawn on this DrawPanel are to be filled. */
 	private boolean myFillEnabled;
+	
+	/** A raster image holding every committed Shape drawn on this DrawPanel. */
+	private BufferedImage myCommittedImage;
+	
+	/** Indicates if this DrawPanel's committed image reflects its drawn Shapes. */
+	private boolean myCommittedImageValid;
+	
+	/** The region of this DrawPanel's committed image that must be redrawn, if any. */
+	private Rectangle myCommittedImageDirty;
+	
+	/** The time taken to paint each frame of this DrawPanel. */
+	private final LatencyHistogram myFrameTimes;
+	
+	/** The time from each mouse event to the end of the frame painting its effect. */
+	private final LatencyHistogram myInputLatencies;
+	
+	/** The number of committed Shapes drawn while painting the last frame. */
+	private int myShapesDrawn;
+	
+	/** The number of committed Shapes skipped while painting the last frame. */
+	private int myShapesCulled;
+	
+	/** The time of the oldest mouse event not yet painted, in nanoseconds. */
+	private long myInputNanos;
+	
+	/** The PerformanceOverlay drawn over this DrawPanel, or null if it is hidden. */
+	private PerformanceOverlay myOverlay;
+	
+	/** The transparent layer above the committed image drawing the Shape in progress. */
+	private final ToolLayer myToolLayer;
+	
+	/** The Timer starting a search for hidden Shapes once the drawn Shapes are idle. */
+	private final Timer myPruneTimer;
+	
+	/** The PruneWorker searching for hidden Shapes, or null if none is searching. */
+	private PruneWorker myPruneWorker;
+	
+	/** The OcclusionPruner keeping the search for hidden Shapes between searches. */
+	private OcclusionPruner myPruner;
+	
+	/** The fewest Shapes drawn since the last search for hidden Shapes started. */
+	private int myPruneLimit;
+	
+	/** The region covered by the preview of a file being loaded, or null if none. */
+	private Rectangle myLoadPreviewRegion;
+	
+	/** The preview of a file being loaded, or null until it is ready. */
+	private BufferedImage myLoadPreview;
 
 	/**
 	 * Constructs a new DrawPanel supporting stroke widths in the
@@ -120,13 +249,30 @@ public final class DrawPanel extends JPanel {
 		mySecondaryColor = UW_GOLD;
 		myFillColor = Color.BLACK;
 		myStrokeWidth = START_STROKE;
-		myPreviousShapes = new ArrayList<ShapeAttributeContainer>();
-		myRedoShapes = new Stack<ShapeAttributeContainer>();
-		myUsedIDs = new ArrayList<Integer>();
+		myToolStroke = new BasicStroke(myStrokeWidth);
+		myStrokeSimplifier = new StrokeSimplifier(START_TOLERANCE);
+		myPreviousShapes = new ShapeStore();
+		myShapeIndex = new ShapeIndex();
+		myTileRenderer = new TileRenderer();
+		myKeyframes = new KeyframeCache(KEYFRAME_BUDGET);
+		myKeyframeInterval = KEYFRAME_INTERVAL;
+		myRedoShapes = new ShapeStore();
+		myGeometry = new ShapeStore.Geometry();
+		myUsedIDs = new IDSet();
 		myShapeID = createUniqueID();
+		myPublishedShapes = myPreviousShapes.snapshot();
+		myFrameTimes = new LatencyHistogram();
+		myInputLatencies = new LatencyHistogram();
+		myInputNanos = NO_INPUT;
 		mySelectedColor = myPrimaryColor;
+		myToolLayer = new ToolLayer();
+		myPruneTimer = new Timer(PRUNE_DELAY, (theEvent) -> pruneHiddenShapes());
+		myPruneTimer.setRepeats(false);
+		myPruner = new OcclusionPruner();
 		setPreferredSize(new Dimension(WIDTH, HEIGHT));
 		setBackground(Color.WHITE);
+		setLayout(null);
+		add(myToolLayer);
 		addListeners();
 	}
 	
@@ -135,8 +281,9 @@ public final class DrawPanel extends JPanel {
 	 * to interactions between the user and this DrawPanel on the PowerPaint GUI.
 	 */
 	private void addListeners() {
-		addMouseListener(new MyMouseInputAdapter());
-		addMouseMotionListener(new MyMouseInputAdapter());
+		final MyMouseInputAdapter adapter = new MyMouseInputAdapter();
+		addMouseListener(adapter);
+		addMouseMotionListener(adapter);
 	}
 	
 	/**
@@ -171,6 +318,166 @@ public final class DrawPanel extends JPanel {
 					                 "Stroke widths must be non-negative and <= 20!");
 		}
 		myStrokeWidth = theWidth;
+		myToolStroke = new BasicStroke(myStrokeWidth);
+	}
+	
+	/**
+	 * Sets the tolerance used to simplify freehand strokes drawn on this DrawPanel.
+	 * Points are dropped from a stroke only while every dropped point lies within 
+	 * the tolerance of the simplified stroke. A tolerance of 0 drops only exactly
+	 * collinear points.
+	 * 
+	 * @param theTolerance is the tolerance, in pixels.
+	 * @throws IllegalArgumentException if theTolerance is negative.
+	 */
+	public final void setSimplifyTolerance(final double theTolerance) {
+		myStrokeSimplifier = new StrokeSimplifier(theTolerance);
+	}
+	
+	/**
+	 * Sets the number of Shape groups drawn on this DrawPanel between keyframes.
+	 * Undoing or redoing a group redraws at most this many groups of Shapes on top
+	 * of the nearest keyframe, while keyframes fit within the keyframe budget.
+	 * 
+	 * @param theInterval is the number of Shape groups between keyframes.
+	 * @throws IllegalArgumentException if theInterval is not positive.
+	 */
+	public final void setKeyframeInterval(final int theInterval) {
+		if (theInterval <= 0) {
+			throw new IllegalArgumentException("Keyframe intervals must be positive!");
+		}
+		myKeyframeInterval = theInterval;
+		myKeyframes.clear();
+	}
+	
+	/**
+	 * Sets the number of bytes of memory the keyframes of this DrawPanel may use.
+	 * The least recently used keyframes are discarded to stay within the budget.
+	 * 
+	 * @param theBudget is the keyframe budget, in bytes.
+	 * @throws IllegalArgumentException if theBudget is negative.
+	 */
+	public final void setKeyframeBudget(final long theBudget) {
+		myKeyframes.setBudget(theBudget);
+	}
+	
+	/**
+	 * Provides the number of points dropped from the most recently finished 
+	 * freehand stroke.
+	 * 
+	 * @return the number of points dropped from the last freehand stroke.
+	 */
+	public final int getLastDroppedPoints() {
+		return myLastDroppedPoints;
+	}
+	
+	/**
+	 * Provides the number of points provided by the mouse for the most recently 
+	 * finished freehand stroke, before simplification.
+	 * 
+	 * @return the number of points provided for the last freehand stroke.
+	 */
+	public final int getLastStrokePoints() {
+		return myLastStrokePoints;
+	}
+	
+	/**
+	 * Provides the number of points dropped from all freehand strokes drawn on
+	 * this DrawPanel.
+	 * 
+	 * @return the total number of points dropped.
+	 */
+	public final long getTotalDroppedPoints() {
+		return myTotalDroppedPoints;
+	}
+	
+	/**
+	 * Shows or hides a PerformanceOverlay over this DrawPanel's drawing. Frame
+	 * times and input latencies are recorded whether or not it is shown.
+	 * 
+	 * @param theVisible indicates if the PerformanceOverlay is to be shown.
+	 */
+	public final void setOverlayVisible(final boolean theVisible) {
+		if (theVisible && myOverlay == null) {
+			myOverlay = new PerformanceOverlay(this);
+			myOverlay.start();
+		} else if (!theVisible && myOverlay != null) {
+			myOverlay.stop();
+			repaint(myOverlay.getBounds());
+			myOverlay = null;
+		}
+	}
+	
+	/**
+	 * Indicates if a PerformanceOverlay is shown over this DrawPanel's drawing.
+	 * 
+	 * @return true if the PerformanceOverlay is shown, false otherwise.
+	 */
+	public final boolean isOverlayVisible() {
+		return myOverlay != null;
+	}
+	
+	/**
+	 * Provides the histogram of the time taken to paint each frame of this 
+	 * DrawPanel.
+	 * 
+	 * @return the frame time histogram.
+	 */
+	public final LatencyHistogram getFrameTimes() {
+		return myFrameTimes;
+	}
+	
+	/**
+	 * Provides the histogram of the time from each mouse event over this DrawPanel
+	 * to the end of the frame painting its effect. Events arriving before an
+	 * earlier event has been painted are measured together with it.
+	 * 
+	 * @return the input latency histogram.
+	 */
+	public final LatencyHistogram getInputLatencies() {
+		return myInputLatencies;
+	}
+	
+	/**
+	 * Provides the number of committed Shapes drawn while painting the last frame.
+	 * 
+	 * @return the number of Shapes drawn.
+	 */
+	public final int getShapesDrawn() {
+		return myShapesDrawn;
+	}
+	
+	/**
+	 * Provides the number of committed Shapes skipped by the spatial index while
+	 * painting the last frame.
+	 * 
+	 * @return the number of Shapes culled.
+	 */
+	public final int getShapesCulled() {
+		return myShapesCulled;
+	}
+	
+	/**
+	 * Provides the number of drawn Shapes hidden by later Shapes and pruned from 
+	 * this DrawPanel's spatial index. Hidden Shapes are no longer drawn, but are
+	 * kept among the drawn Shapes so that undoing the Shapes hiding them shows
+	 * them again.
+	 * 
+	 * @return the number of hidden Shapes.
+	 */
+	public final int getHiddenShapeCount() {
+		return myShapeIndex.getPrunedCount();
+	}
+	
+	/**
+	 * Provides the indices of the drawn Shapes hidden by later Shapes, in the 
+	 * snapshot currently provided by getDrawnShapeStore(). Leaving them out of a
+	 * saved drawing does not change how it looks.
+	 * 
+	 * @return a new BitSet holding the indices of the hidden Shapes.
+	 */
+	public final BitSet getHiddenShapes() {
+		return myShapeIndex.getPruned();
 	}
 	
 	/**
@@ -178,10 +485,55 @@ public final class DrawPanel extends JPanel {
 	 * deletes all progress and cannot be undone! 
 	 */
 	public final void clearShapes() {
+		endLoadPreview();
+		if (myJournal != null) {
+			myJournal.clear();
+		}
+		myPreviousShapes.clear();
+		myShapeIndex.clear();
+		myPruneLimit = 0;
+		myRedoShapes.clear();
+		myUsedIDs.clear();
+		myUsedIDs.add(myShapeID);
+		myCurrentTool.setToInitialPoints();
+		publishShapes();
+		invalidateCommittedImage();
+		repaint();
+	}
+	
+	/**
+	 * Replaces the Shapes drawn on this DrawPanel with those recovered by the provided
+	 * StrokeJournal, including those undone and not yet redrawn, and records every
+	 * later change to this DrawPanel's Shapes in the StrokeJournal.
+	 * 
+	 * @param theJournal is the StrokeJournal.
+	 * @throws NullPointerException if theJournal is null.
+	 */
+	public final void setJournal(final StrokeJournal theJournal) {
+		Objects.requireNonNull(theJournal, "StrokeJournals must be non-null!");
+		endLoadPreview();
+		final ShapeStore shapes = theJournal.takeRecoveredShapes();
+		final ShapeStore undone = theJournal.takeRecoveredUndoneShapes();
 		myPreviousShapes.clear();
+		myShapeIndex.clear();
+		myPruneLimit = 0;
 		myRedoShapes.clear();
 		myUsedIDs.clear();
+		for (int i = 0; i < shapes.size(); i++) {
+			myUsedIDs.add(shapes.getID(i));
+			addShape(shapes, i, shapes.getID(i));
+		}
+		for (int i = 0; i < undone.size(); i++) {
+			myUsedIDs.add(undone.getID(i));
+			undone.copyTo(i, myRedoShapes, undone.getID(i));
+		}
+		if (!myUsedIDs.add(myShapeID)) {
+			myShapeID = createUniqueID();
+		}
 		myCurrentTool.setToInitialPoints();
+		myJournal = theJournal;
+		publishShapes();
+		invalidateCommittedImage();
 		repaint();
 	}
 	
@@ -219,7 +571,8 @@ public final class DrawPanel extends JPanel {
 	}
 	
 	/**
-	 * Sets this DrawPanel's background Color.
+	 * Sets this DrawPanel's background Color. Shapes hidden only by erased Shapes
+	 * are drawn again if the background Color is not opaque.
 	 * 
 	 * @param theColor is the background Color to be assigned.
 	 * @throws NullPointerException if theColor is null.
@@ -228,6 +581,13 @@ public final class DrawPanel extends JPanel {
 	public final void setBackground(final Color theColor) {
 		Objects.requireNonNull(theColor, "Background Colors must be non-null!");
 		super.setBackground(theColor);
+		endLoadPreview();
+		// The JPanel constructor sets the background before the index exists.
+		if (theColor.getAlpha() != OPAQUE && myShapeIndex != null) {
+			myShapeIndex.restorePruned();
+			myPruneLimit = 0;
+		}
+		invalidateCommittedImage();
 	}
 	
 	/**
@@ -265,12 +625,24 @@ public final class DrawPanel extends JPanel {
 	public final List<ShapeAttributeContainer> getDrawnShapes() {
 		final List<ShapeAttributeContainer> copy = 
 				                            new ArrayList<ShapeAttributeContainer>();
-		for (final ShapeAttributeContainer sac : myPreviousShapes) {
-			copy.add(sac.copyWithGivenID(sac.getID()));
+		for (int i = 0; i < myPreviousShapes.size(); i++) {
+			copy.add(myPreviousShapes.get(i));
 		}
 		return copy;
 	}
 	
+	/**
+	 * Provides a read-only snapshot of this DrawPanel's currently drawn Shapes,
+	 * held in a ShapeStore. A new snapshot is published in constant time after every
+	 * change to the drawn Shapes, so this method may be called on any thread and the
+	 * snapshot read there while Shapes continue to be drawn on this DrawPanel.
+	 * 
+	 * @return the snapshot of this DrawPanel's drawn Shapes.
+	 */
+	public final ShapeStore getDrawnShapeStore() {
+		return myPublishedShapes;
+	}
+	
 	/**
 	 * Enables/disables the filling of Shapes drawn on this DrawPanel according
 	 * to the corresponding truth value of the boolean parameter theEnabled.
@@ -292,16 +664,16 @@ public final class DrawPanel extends JPanel {
 	}
 	
 	/**
-	 * Create a random, unique integer ID for a Shape to be drawn on this DrawPanel.
+	 * Create a unique integer ID for a Shape to be drawn on this DrawPanel. ID 
+	 * numbers are taken in sequence, skipping any already used by loaded Shapes.
 	 * 
 	 * @return the Shape's unique integer ID.
 	 */
 	private int createUniqueID() {
-		int id = RANDOM.nextInt();
-		while (myUsedIDs.contains(id)) {
-			id = RANDOM.nextInt();
+		int id = myNextID++;
+		while (!myUsedIDs.add(id)) {
+			id = myNextID++;
 		}
-		myUsedIDs.add(id);
 		return id;
 	}
 	
@@ -310,13 +682,28 @@ public final class DrawPanel extends JPanel {
 	 */
 	public final void undo() {
 		if (areShapesDrawn()) {
+			endLoadPreview();
+			final PowerPaintEvents.UndoEvent event = new PowerPaintEvents.UndoEvent();
+			event.begin();
+			final Rectangle dirty = getToolBounds();
 			myCurrentTool.setToInitialPoints();
-			final int id = myPreviousShapes.get(myPreviousShapes.size() - 1).getID();
-			do {
-				myRedoShapes.push(myPreviousShapes.remove(myPreviousShapes.size() - 1));
-			} while (areShapesDrawn() && 
-					 myPreviousShapes.get(myPreviousShapes.size() - 1).getID() == id);
-			repaint();
+			final int start = myPreviousShapes.getLastGroupStart();
+			final int size = myPreviousShapes.size() - start;
+			while (myPreviousShapes.size() > start) {
+				dirty.add(getStrokeBounds(myPreviousShapes.size() - 1));
+				undoLastShape();
+			}
+			if (myJournal != null) {
+				myJournal.undo();
+			}
+			publishShapes();
+			invalidateCommittedImage(dirty);
+			repaint(dirty);
+			event.end();
+			if (event.shouldCommit()) {
+				event.set(size);
+				event.commit();
+			}
 		}
 	}
 	
@@ -326,11 +713,24 @@ public final class DrawPanel extends JPanel {
 	 */
 	public final void redo() {
 		if (isRedoAvailable()) {
-			final int id = myRedoShapes.peek().getID();
-			do {
-				myPreviousShapes.add(myRedoShapes.pop());
-			} while (isRedoAvailable() && myRedoShapes.peek().getID() == id);
-			repaint();
+			endLoadPreview();
+			final PowerPaintEvents.RedoEvent event = new PowerPaintEvents.RedoEvent();
+			event.begin();
+			final int start = myPreviousShapes.size();
+			final int end = myRedoShapes.getLastGroupStart();
+			while (myRedoShapes.size() > end) {
+				redoLastShape();
+			}
+			if (myJournal != null) {
+				myJournal.redo();
+			}
+			publishShapes();
+			repaint(rasterizeShapes(start));
+			event.end();
+			if (event.shouldCommit()) {
+				event.set(myPreviousShapes.size() - start);
+				event.commit();
+			}
 		}
 	}
 	
@@ -343,8 +743,85 @@ public final class DrawPanel extends JPanel {
 	 */
 	public final void addSavedShapes(final List<ShapeAttributeContainer> theShapes) {
 		Objects.requireNonNull(theShapes, "Shape Lists must be non-null!");
+		final ShapeStore shapes = new ShapeStore();
+		for (final ShapeAttributeContainer sac : theShapes) {
+			shapes.add(sac);
+		}
+		theShapes.clear();
+		addSavedShapes(shapes);
+	}
+	
+	/**
+	 * Adds all Shapes held in a ShapeStore loaded from a saved file to the
+	 * collection of Shapes to be drawn on this DrawPanel.
+	 * 
+	 * @param theShapes are the saved Shapes.
+	 * @throws NullPointerException if theShapes is null.
+	 */
+	public final void addSavedShapes(final ShapeStore theShapes) {
+		Objects.requireNonNull(theShapes, "ShapeStores must be non-null!");
+		final int start = myPreviousShapes.size();
 		processShapes(theShapes);
-		repaint();
+		journalShapes(start);
+		publishShapes();
+		repaint(rasterizeShapes(start));
+	}
+	
+	/**
+	 * Begins a preview of a file about to be loaded, to be shown over a region of
+	 * this DrawPanel until the file's Shapes have all been added. The preview starts
+	 * as a copy of the region as currently drawn; once the loaded Shapes meeting the
+	 * region are drawn onto it in order, it shows the region exactly as it will be
+	 * drawn when the load ends. Any change made to this DrawPanel other than adding
+	 * saved Shapes ends the preview.
+	 * 
+	 * @param theRegion is the region to preview, usually the visible region.
+	 * @return a copy of the region as currently drawn, to draw the preview onto.
+	 * @throws NullPointerException if theRegion is null.
+	 */
+	public final BufferedImage beginLoadPreview(final Rectangle theRegion) {
+		Objects.requireNonNull(theRegion, "Rectangles must be non-null!");
+		endLoadPreview();
+		validateCommittedImage();
+		final Rectangle region = 
+				theRegion.intersection(new Rectangle(0, 0, myCommittedImage.getWidth(),
+						                             myCommittedImage.getHeight()));
+		final BufferedImage preview = 
+				new BufferedImage(Math.max(1, region.width), Math.max(1, region.height),
+						          BufferedImage.TYPE_INT_RGB);
+		final Graphics2D g2d = preview.createGraphics();
+		g2d.drawImage(myCommittedImage, -region.x, -region.y, null);
+		g2d.dispose();
+		myLoadPreviewRegion = region;
+		return preview;
+	}
+	
+	/**
+	 * Shows the preview begun by the last call to beginLoadPreview, unless it has
+	 * since ended.
+	 * 
+	 * @param thePreview is the preview, with the loaded Shapes meeting its region
+	 * drawn onto it.
+	 * @throws NullPointerException if thePreview is null.
+	 */
+	public final void showLoadPreview(final BufferedImage thePreview) {
+		Objects.requireNonNull(thePreview, "Previews must be non-null!");
+		if (myLoadPreviewRegion != null) {
+			myLoadPreview = thePreview;
+			repaint(myLoadPreviewRegion);
+		}
+	}
+	
+	/**
+	 * Ends the preview of a file being loaded, if any, so that this DrawPanel shows
+	 * only the Shapes added to it.
+	 */
+	public final void endLoadPreview() {
+		if (myLoadPreviewRegion != null) {
+			repaint(myLoadPreviewRegion);
+			myLoadPreviewRegion = null;
+			myLoadPreview = null;
+		}
 	}
 	
 	/**
@@ -354,23 +831,18 @@ public final class DrawPanel extends JPanel {
 	 * 
 	 * @param thePanel is the previously saved DrawPanel.
 	 */
-	private void processShapes(final List<ShapeAttributeContainer> theShapes) {
-		while (!theShapes.isEmpty()) {
-			final int temp = theShapes.get(0).getID();
-			final boolean containsID = myUsedIDs.contains(temp);
-			int newID = 0;
-			if (containsID) {
+	private void processShapes(final ShapeStore theShapes) {
+		int next = 0;
+		while (next < theShapes.size()) {
+			final int temp = theShapes.getID(next);
+			int newID = temp;
+			if (!myUsedIDs.add(temp)) {
 				newID = createUniqueID();
-			} else {
-				myUsedIDs.add(temp);
 			}
 			do {
-				if (containsID) {
-					myPreviousShapes.add(theShapes.remove(0).copyWithGivenID(newID));
-				} else {
-					myPreviousShapes.add(theShapes.remove(0));
-				}	
-			} while (!theShapes.isEmpty() && theShapes.get(0).getID() == temp);
+				addShape(theShapes, next, newID);
+				next++;
+			} while (next < theShapes.size() && theShapes.getID(next) == temp);
 		}
 	}
 
@@ -394,43 +866,461 @@ public final class DrawPanel extends JPanel {
 	}
 	
 	/**
-	 * Draws all Shapes on this DrawPanel. NOTE: Shapes drawn with a thickness
-	 * of 0 will produce no output! However, rectangular Shapes may still be
-	 * filled if Shape filling is enabled on the GUI.
+	 * Adds a newly drawn Shape to the collection of Shapes drawn on this DrawPanel
+	 * and rasterizes it onto this DrawPanel's committed image.
+	 * 
+	 * @param theShape is the newly drawn Shape.
+	 */
+	private void commitShape(final ShapeAttributeContainer theShape) {
+		final PowerPaintEvents.CommitEvent event = new PowerPaintEvents.CommitEvent();
+		event.begin();
+		endLoadPreview();
+		addShape(theShape);
+		journalShapes(myPreviousShapes.size() - 1);
+		publishShapes();
+		rasterizeShapes(myPreviousShapes.size() - 1);
+		event.end();
+		if (event.shouldCommit()) {
+			event.set(getCurrentToolName(), getSegmentCount(theShape.getShape()));
+			event.commit();
+		}
+	}
+	
+	/**
+	 * Provides the number of segments in the outline of a Shape, not counting the
+	 * moves between its subpaths.
+	 * 
+	 * @param theShape is the Shape.
+	 * @return the number of segments.
+	 */
+	private static int getSegmentCount(final Shape theShape) {
+		final PathIterator path = theShape.getPathIterator(null);
+		final double[] coords = new double[6];
+		int segments = 0;
+		while (!path.isDone()) {
+			if (path.currentSegment(coords) != PathIterator.SEG_MOVETO) {
+				segments++;
+			}
+			path.next();
+		}
+		return segments;
+	}
+	
+	/**
+	 * Records the most recently drawn Shapes, starting at the provided index, in this
+	 * DrawPanel's journal, if it has one.
+	 * 
+	 * @param theStart is the index of the first Shape to be recorded.
+	 */
+	private void journalShapes(final int theStart) {
+		if (myJournal != null && theStart < myPreviousShapes.size()) {
+			myJournal.commit(myPreviousShapes, theStart, myPreviousShapes.size());
+		}
+	}
+
+	/**
+	 * Publishes a new read-only snapshot of the Shapes drawn on this DrawPanel for
+	 * other threads, with a single volatile write.
+	 */
+	private void publishShapes() {
+		myPublishedShapes = myPreviousShapes.snapshot();
+		myPruneTimer.restart();
+	}
+	
+	/**
+	 * Starts a PruneWorker searching the latest snapshot of the drawn Shapes for
+	 * Shapes hidden by later Shapes, unless one is already searching. The search
+	 * only visits the Shapes drawn since the last one, and starts over if any
+	 * Shape searched has since been undone.
+	 */
+	private void pruneHiddenShapes() {
+		if (myPruneWorker == null) {
+			if (myPruneLimit < myPruner.size()) {
+				myPruner = new OcclusionPruner();
+			}
+			myPruneLimit = myPublishedShapes.size();
+			myPruneWorker = new PruneWorker(myPruner, myPublishedShapes, getBackground());
+			myPruneWorker.execute();
+		}
+	}
+	
+	/**
+	 * Adds a Shape to the end of the collection of Shapes drawn on this DrawPanel
+	 * and to this DrawPanel's spatial index.
+	 * 
+	 * @param theShape is the Shape to be added.
+	 */
+	private void addShape(final ShapeAttributeContainer theShape) {
+		myKeyframes.discardAbove(myPreviousShapes.size());
+		myPreviousShapes.add(theShape);
+		myShapeIndex.add(getStrokeBounds(myPreviousShapes.size() - 1));
+	}
+	
+	/**
+	 * Adds a saved Shape to the end of the collection of Shapes drawn on this
+	 * DrawPanel under the provided ID number and to this DrawPanel's spatial index.
+	 * 
+	 * @param theShapes are the saved Shapes.
+	 * @param theIndex is the index of the saved Shape to be added.
+	 * @param theID is the ID number the Shape is added under.
+	 */
+	private void addShape(final ShapeStore theShapes, final int theIndex,
+			              final int theID) {
+		myKeyframes.discardAbove(myPreviousShapes.size());
+		theShapes.copyTo(theIndex, myPreviousShapes, theID);
+		myShapeIndex.add(getStrokeBounds(myPreviousShapes.size() - 1));
+	}
+	
+	/**
+	 * Moves the most recently drawn Shape from the collection of Shapes drawn
+	 * on this DrawPanel, and from this DrawPanel's spatial index, to the 
+	 * collection of undone Shapes.
+	 */
+	private void undoLastShape() {
+		myShapeIndex.removeLast();
+		myPreviousShapes.moveLastTo(myRedoShapes);
+		myPruneLimit = Math.min(myPruneLimit, myPreviousShapes.size());
+	}
+	
+	/**
+	 * Moves the most recently undone Shape back to the collection of Shapes drawn
+	 * on this DrawPanel and to this DrawPanel's spatial index.
+	 */
+	private void redoLastShape() {
+		myRedoShapes.moveLastTo(myPreviousShapes);
+		myShapeIndex.add(getStrokeBounds(myPreviousShapes.size() - 1));
+	}
+	
+	/**
+	 * Rasterizes the most recently drawn Shapes, starting at the provided index,
+	 * onto this DrawPanel's committed image. 
+	 * 
+	 * @param theStart is the index of the first Shape to be rasterized.
+	 * @return the region of this DrawPanel covered by the rasterized Shapes.
+	 */
+	private Rectangle rasterizeShapes(final int theStart) {
+		final Rectangle dirty = new Rectangle(0, 0, -1, -1);
+		Graphics2D g2d = null;
+		if (myCommittedImageValid) {
+			g2d = myCommittedImage.createGraphics();
+			ShapeRenderer.prepare(g2d);
+		}
+		int[] stages = new int[0];
+		if (g2d != null && myCommittedImageDirty == null) {
+			stages = getKeyframeStages();
+		}
+		int stage = 0;
+		for (int i = theStart; i < myPreviousShapes.size(); i++) {
+			dirty.add(getStrokeBounds(i));
+			if (g2d != null) {
+				for (; stage < stages.length && stages[stage] <= i; stage++) {
+					if (stages[stage] == i) {
+						myKeyframes.put(i, myCommittedImage);
+					}
+				}
+				drawShape(g2d, i);
+			}
+		}
+		if (g2d != null) {
+			g2d.dispose();
+			if (stage < stages.length) {
+				myKeyframes.put(stages[stage], myCommittedImage);
+			}
+		}
+		return dirty;
+	}
+	
+	/**
+	 * Marks this DrawPanel's committed image as out of date so that it is
+	 * rebuilt from the collection of drawn Shapes on the next paint.
+	 */
+	private void invalidateCommittedImage() {
+		myCommittedImageValid = false;
+		myCommittedImageDirty = null;
+	}
+	
+	/**
+	 * Marks a region of this DrawPanel's committed image as out of date so that 
+	 * it is redrawn from the collection of drawn Shapes on the next paint.
+	 * 
+	 * @param theRegion is the out of date region.
+	 */
+	private void invalidateCommittedImage(final Rectangle theRegion) {
+		if (myCommittedImageDirty == null) {
+			myCommittedImageDirty = new Rectangle(theRegion);
+		} else {
+			myCommittedImageDirty.add(theRegion);
+		}
+	}
+	
+	/**
+	 * Rebuilds this DrawPanel's committed image if it is out of date or no longer
+	 * matches the size of this DrawPanel. Only the out of date region is redrawn
+	 * when the rest of the committed image is still valid.
+	 */
+	private void validateCommittedImage() {
+		final int width = Math.max(1, getWidth());
+		final int height = Math.max(1, getHeight());
+		if (myCommittedImage == null || myCommittedImage.getWidth() != width ||
+			myCommittedImage.getHeight() != height) {
+			myCommittedImage = new BufferedImage(width, height, 
+					                             BufferedImage.TYPE_INT_RGB);
+			invalidateCommittedImage();
+		}
+		if (!myCommittedImageValid) {
+			myKeyframes.clear();
+			int start = 0;
+			for (final int stage : getKeyframeStages()) {
+				myTileRenderer.render(myCommittedImage, getBackground(), myPreviousShapes, 
+						              myShapeIndex, start, stage);
+				myKeyframes.put(stage, myCommittedImage);
+				start = stage;
+			}
+			if (start == 0 || start < myPreviousShapes.size()) {
+				myTileRenderer.render(myCommittedImage, getBackground(), myPreviousShapes, 
+						              myShapeIndex, start, myPreviousShapes.size());
+			}
+			myShapesDrawn = myPreviousShapes.size();
+		} else if (myCommittedImageDirty != null) {
+			final Rectangle region = 
+					myCommittedImageDirty.intersection(new Rectangle(0, 0, width, height));
+			if (!region.isEmpty()) {
+				final KeyframeCache.Keyframe keyframe = 
+						                    myKeyframes.floor(myPreviousShapes.size());
+				int start = 0;
+				final Graphics2D g2d = myCommittedImage.createGraphics();
+				g2d.clip(region);
+				if (keyframe == null) {
+					g2d.setPaint(getBackground());
+					g2d.fill(region);
+				} else {
+					g2d.drawImage(keyframe.getImage(), 0, 0, null);
+					start = keyframe.getShapeCount();
+				}
+				ShapeRenderer.prepare(g2d);
+				final int[] positions = myShapeIndex.query(region, start);
+				for (final int position : positions) {
+					drawShape(g2d, position);
+				}
+				g2d.dispose();
+				myShapesDrawn = positions.length;
+				myShapesCulled = myPreviousShapes.size() - start - positions.length;
+			}
+		}
+		myCommittedImageValid = true;
+		myCommittedImageDirty = null;
+	}
+	
+	/**
+	 * Provides the Shape counts at which keyframes are taken while Shapes are drawn
+	 * onto this DrawPanel's committed image: the ends of the most recent keyframe
+	 * intervals whose keyframes fit within the keyframe budget, in drawing order.
+	 * 
+	 * @return the Shape counts of the keyframes to be taken.
+	 */
+	private int[] getKeyframeStages() {
+		final long bytes = KeyframeCache.getBytes(myCommittedImage);
+		final int last = myPreviousShapes.getGroupCount() / myKeyframeInterval;
+		final int first = (int) Math.max(1, last - myKeyframes.getBudget() / bytes + 1);
+		final int[] stages = new int[Math.max(0, last - first + 1)];
+		for (int i = 0; i < stages.length; i++) {
+			final int group = (first + i) * myKeyframeInterval;
+			if (group < myPreviousShapes.getGroupCount()) {
+				stages[i] = myPreviousShapes.getGroupStart(group);
+			} else {
+				stages[i] = myPreviousShapes.size();
+			}
+		}
+		return stages;
+	}
+	
+	/**
+	 * Provides the region of this DrawPanel covered by a Shape drawn with the
+	 * provided stroke width, including the pixels touched by antialiasing.
+	 * 
+	 * @param theShape is the Shape.
+	 * @param theStrokeWidth is the stroke width theShape is drawn with.
+	 * @return the region covered by theShape.
+	 */
+	private static Rectangle getStrokeBounds(final Shape theShape, 
+			                                 final int theStrokeWidth) {
+		final Rectangle bounds = theShape.getBounds();
+		final int margin = theStrokeWidth + ANTIALIAS_MARGIN;
+		bounds.grow(margin, margin);
+		return bounds;
+	}
+	
+	/**
+	 * Provides the region of this DrawPanel covered by a drawn Shape, including
+	 * the pixels touched by antialiasing.
+	 * 
+	 * @param theIndex is the index of the drawn Shape.
+	 * @return the region covered by the drawn Shape.
+	 */
+	private Rectangle getStrokeBounds(final int theIndex) {
+		return myPreviousShapes.getStrokeBounds(theIndex);
+	}
+	
+	/**
+	 * Provides the region of this DrawPanel covered by the Shape of this 
+	 * DrawPanel's current PaintTool.
+	 * 
+	 * @return the region covered by the current PaintTool's Shape.
+	 */
+	private Rectangle getToolBounds() {
+		return getStrokeBounds(myCurrentTool.getShape(), myStrokeWidth);
+	}
+	
+	/**
+	 * Draws a single committed Shape onto the provided Graphics context.
+	 * 
+	 * @param theGraphics is the Graphics context.
+	 * @param theIndex is the index of the committed Shape to be drawn.
+	 */
+	private void drawShape(final Graphics2D theGraphics, final int theIndex) {
+		ShapeRenderer.draw(theGraphics, myPreviousShapes, theIndex, getBackground(),
+				           myGeometry);
+	}
+	
+	/**
+	 * Moves and resizes this DrawPanel, resizing its tool layer to cover it.
+	 * 
+	 * @param theX is the new x coordinate of this DrawPanel.
+	 * @param theY is the new y coordinate of this DrawPanel.
+	 * @param theWidth is the new width of this DrawPanel.
+	 * @param theHeight is the new height of this DrawPanel.
+	 */
+	@Override
+	public final void setBounds(final int theX, final int theY, final int theWidth,
+			                    final int theHeight) {
+		super.setBounds(theX, theY, theWidth, theHeight);
+		myToolLayer.setBounds(0, 0, theWidth, theHeight);
+	}
+	
+	/**
+	 * Paints a frame of this DrawPanel: its committed image, and then its tool
+	 * layer. The time taken is recorded.
+	 *
+	 * @param theGraphics is the Graphics context.
+	 */
+	@Override
+	public final void paint(final Graphics theGraphics) {
+		final PowerPaintEvents.PaintEvent event = new PowerPaintEvents.PaintEvent();
+		event.begin();
+		final long start = System.nanoTime();
+		myShapesDrawn = 0;
+		myShapesCulled = 0;
+		super.paint(theGraphics);
+		final Rectangle clip = getClip(theGraphics);
+		recordFrame(start, clip);
+		event.end();
+		if (event.shouldCommit()) {
+			event.set(myShapesDrawn, myShapesCulled, (long) clip.width * clip.height);
+			event.commit();
+		}
+	}
+	
+	/**
+	 * Draws the committed Shapes on this DrawPanel by copying them from this
+	 * DrawPanel's committed image, which is only redrawn where it is out of date,
+	 * and then the preview of a file being loaded, if any. The Shape currently
+	 * being drawn is drawn above them by this DrawPanel's tool layer.
 	 *
 	 * @param theGraphics is the Graphics context.
 	 */
 	@Override
 	public final void paintComponent(final Graphics theGraphics) {
 		super.paintComponent(theGraphics);
-		final Graphics2D g2d = (Graphics2D) theGraphics;
-		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, 
-							 RenderingHints.VALUE_ANTIALIAS_ON);
-		for (final ShapeAttributeContainer sac : myPreviousShapes) {
-			if (sac.isEraserActivated()) {
-				g2d.setPaint(getBackground());
-			} else {
-				g2d.setPaint(sac.getColor());
-			}
-			g2d.setStroke(new BasicStroke(sac.getStrokeWidth()));
-			g2d.draw(sac.getShape());
-			if (sac.isFilled()) {
-				g2d.setPaint(sac.getFillColor());
-				g2d.fill(sac.getShape());
+		validateCommittedImage();
+		final Rectangle clip = getClip(theGraphics);
+		theGraphics.drawImage(myCommittedImage, clip.x, clip.y, clip.x + clip.width, 
+				              clip.y + clip.height, clip.x, clip.y, clip.x + clip.width, 
+				              clip.y + clip.height, null);
+		if (myLoadPreview != null) {
+			theGraphics.drawImage(myLoadPreview, myLoadPreviewRegion.x,
+					              myLoadPreviewRegion.y, null);
+		}
+	}
+	
+	/**
+	 * Provides the region of this DrawPanel being painted by a Graphics context.
+	 * 
+	 * @param theGraphics is the Graphics context.
+	 * @return the region being painted.
+	 */
+	private Rectangle getClip(final Graphics theGraphics) {
+		Rectangle clip = theGraphics.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+		return clip;
+	}
+	
+	/**
+	 * Draws the Shape currently being drawn, if any, onto the provided Graphics
+	 * context.
+	 * 
+	 * @param theGraphics is the Graphics context.
+	 * @param theClip is the region of this DrawPanel being painted.
+	 */
+	private void paintTool(final Graphics2D theGraphics, final Rectangle theClip) {
+		if (myCurrentTool.isPathFollower()) {
+			if (myActiveStroke != null && theClip.intersects(getStrokeBounds(
+					myActiveStroke.getShape(), myActiveStroke.getStrokeWidth()))) {
+				ShapeRenderer.prepare(theGraphics);
+				ShapeRenderer.draw(theGraphics, myActiveStroke, getBackground());
 			}
+			return;
+		}
+		if (!theClip.intersects(getToolBounds())) {
+			return;
 		}
+		ShapeRenderer.prepare(theGraphics);
 		if (myEraserActivated) {
-			g2d.setPaint(getBackground());
+			theGraphics.setPaint(getBackground());
 		} else {
-			g2d.setPaint(mySelectedColor);
+			theGraphics.setPaint(mySelectedColor);
 		}
-		g2d.setStroke(new BasicStroke(myStrokeWidth));
+		theGraphics.setStroke(myToolStroke);
 		if (myStrokeWidth > MIN_STROKE) {
-			g2d.draw(myCurrentTool.getShape());
+			theGraphics.draw(myCurrentTool.getShape());
 		}
 		if (myFillEnabled) {
-			g2d.setPaint(myFillColor);
-			g2d.fill(myCurrentTool.getShape());
+			theGraphics.setPaint(myFillColor);
+			theGraphics.fill(myCurrentTool.getShape());
+		}
+	}
+	
+	/**
+	 * Records the time taken to paint a frame, and the latency of the oldest mouse
+	 * event it paints, if any. Frames repainting only the PerformanceOverlay are
+	 * not recorded, so that refreshing its statistics does not change them.
+	 * 
+	 * @param theStart is the time the frame began, in nanoseconds.
+	 * @param theClip is the region of this DrawPanel painted.
+	 */
+	private void recordFrame(final long theStart, final Rectangle theClip) {
+		if (myOverlay == null || !myOverlay.getBounds().contains(theClip)) {
+			final long end = System.nanoTime();
+			myFrameTimes.record(end - theStart);
+			if (myInputNanos != NO_INPUT) {
+				myInputLatencies.record(end - myInputNanos);
+				myInputNanos = NO_INPUT;
+			}
+		}
+	}
+	
+	/**
+	 * Notes the time of a mouse event, unless an earlier event is still waiting to
+	 * be painted. The time the event was queued is estimated from its timestamp.
+	 * 
+	 * @param theEvent is the MouseEvent.
+	 */
+	private void noteInput(final MouseEvent theEvent) {
+		if (myInputNanos == NO_INPUT) {
+			final long queued = Math.max(0, System.currentTimeMillis() 
+					                        - theEvent.getWhen());
+			myInputNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(queued);
 		}
 	}
 
@@ -438,10 +1328,36 @@ public final class DrawPanel extends JPanel {
  * A combined MouseListener and MouseMotionListener class to handle all
  * interactions between the mouse and this DrawPanel.
  * 
+ * Drag events are not handled as they arrive. Their Points are queued, and the
+ * queue is processed at most once per display frame by a Timer ticking at the
+ * display's refresh rate, so that a mouse reporting far more often than the
+ * display refreshes costs one tool update and one repaint per frame. Every queued
+ * Point is still added to a freehand stroke, in order. A drag arriving while the
+ * Timer is stopped is processed at once, so the first movement is not delayed,
+ * and the Timer stops at the first frame with no drags. Pressing or releasing the
+ * mouse processes the queue first.
+ * 
  * @author Parker Rosengreen
- * @version 10 December 2020
+ * @version 17 December 2020
  */
 private class MyMouseInputAdapter extends MouseInputAdapter {
+	
+	/** The Timer processing queued drag Points once per display frame. */
+	private final Timer myFrameTimer;
+	
+	/** The coordinates of the queued drag Points, as x and y pairs. */
+	private int[] myPendingPoints;
+	
+	/** The number of coordinates queued. */
+	private int myPendingCount;
+	
+	/** Constructs a new MyMouseInputAdapter with no queued drag Points. */
+	private MyMouseInputAdapter() {
+		super();
+		myFrameTimer = new Timer(MILLIS_PER_SECOND / DEFAULT_REFRESH_RATE, 
+				                 (theEvent) -> processFrame());
+		myPendingPoints = new int[PENDING_CAPACITY];
+	}
 
 	/**
 	 * Method called in response to a singular mouse click - unused
@@ -456,19 +1372,32 @@ private class MyMouseInputAdapter extends MouseInputAdapter {
 	 * Method called in response to the mouse being pressed. Shape
 	 * drawing begins at the Point provided by theEvent. A left click
 	 * selects this DrawPanel's primary Color, and a right click
-	 * selects this DrawPanel's secondary Color.
+	 * selects this DrawPanel's secondary Color. A freehand stroke is begun
+	 * if the currently selected PaintTool draws with the mouse's drag path.
 	 * 
 	 * @param theEvent is the MouseEvent.
 	 */
 	@Override
 	public final void mousePressed(final MouseEvent theEvent) {
-		myCurrentTool.setStartPoint(theEvent.getPoint());
+		noteInput(theEvent);
+		processPendingPoints();
+		setFrameRate();
+		final Rectangle dirty = getToolBounds();
+		myCurrentTool.setStartPoint(theEvent.getX(), theEvent.getY());
 		if (theEvent.getButton() == MouseEvent.BUTTON1) {
 			mySelectedColor = myPrimaryColor;
 		} else {
 			mySelectedColor = mySecondaryColor;
 		}
-		repaint();
+		if (myCurrentTool.isPathFollower() && myStrokeWidth > MIN_STROKE) {
+			myActiveStroke = new ShapeAttributeContainer(
+					new Polyline(theEvent.getX(), theEvent.getY()), myFillEnabled, 
+					myEraserActivated, mySelectedColor, myFillColor, myStrokeWidth, 
+					                                                       myShapeID);
+			myStrokeSimplifier.begin((Polyline) myActiveStroke.getShape());
+		}
+		dirty.add(getToolBounds());
+		myToolLayer.repaint(dirty);
 	}
 
 	/**
@@ -476,15 +1405,31 @@ private class MyMouseInputAdapter extends MouseInputAdapter {
 	 * Shape to the collection of Shapes to be drawn on this DrawPanel under
 	 * the condition that the current thickness is greater than 0 or Shape
 	 * filling is enabled on this DrawPanel and a rectangular Shape is selected.
+	 * A freehand stroke is added as a single Shape once it is finished.
 	 * 
 	 * @param theEvent is the MouseEvent.
 	 */
 	@Override
 	public final void mouseReleased(final MouseEvent theEvent) {
-		if (myStrokeWidth > MIN_STROKE ||
+		noteInput(theEvent);
+		processPendingPoints();
+		myFrameTimer.stop();
+		if (myCurrentTool.isPathFollower()) {
+			if (myActiveStroke != null) {
+				myCurrentTool.setEndPoint(theEvent.getX(), theEvent.getY());
+				final Rectangle dirty = extendActiveStroke(theEvent.getX(), 
+						                                   theEvent.getY());
+				commitShape(myActiveStroke);
+				myActiveStroke = null;
+				myLastStrokePoints = myStrokeSimplifier.getPointCount();
+				myLastDroppedPoints = myStrokeSimplifier.getDroppedCount();
+				myTotalDroppedPoints += myLastDroppedPoints;
+				repaint(dirty);
+			}
+		} else if (myStrokeWidth > MIN_STROKE ||
 			(myCurrentTool.getShape() instanceof RectangularShape && myFillEnabled)) {
-			myPreviousShapes.add( 
-			      new ShapeAttributeContainer(myCurrentTool.getShape(), 
+			commitShape( 
+			      new ShapeAttributeContainer(myCurrentTool.createShape(), 
 			        		  myFillEnabled, myEraserActivated, mySelectedColor, 
 			        		                 myFillColor, myStrokeWidth, myShapeID));
 		}
@@ -515,24 +1460,115 @@ private class MyMouseInputAdapter extends MouseInputAdapter {
 	
 	/**
 	 * Method called in response to the mouse being pressed and dragged on
-	 * this DrawPanel. Shape drawing ends at the Point provided by theEvent.
-	 * Adds a new Shape to the collection of Shapes to be drawn on this DrawPanel 
-	 * under the condition that the current thickness is greater than 0 and the 
-	 * currently selected PaintTool draws with the mouse's drag path.
+	 * this DrawPanel. Queues the Point provided by theEvent, processing it at once
+	 * if no display frame is being waited for.
 	 */
 	@Override
 	public final void mouseDragged(final MouseEvent theEvent) {
-		myCurrentTool.setEndPoint(theEvent.getPoint());
-		if (myCurrentTool.isPathFollower() && myStrokeWidth > MIN_STROKE) {
-			myPreviousShapes.add( 
-					new ShapeAttributeContainer(myCurrentTool.getShape(), 
-	        		               myFillEnabled, myEraserActivated, mySelectedColor, 
-	        		               myFillColor, myStrokeWidth, myShapeID));
-			myCurrentTool.setStartPoint(theEvent.getPoint());
+		noteInput(theEvent);
+		if (myPendingCount == myPendingPoints.length) {
+			myPendingPoints = Arrays.copyOf(myPendingPoints, myPendingCount * 2);
+		}
+		myPendingPoints[myPendingCount++] = theEvent.getX();
+		myPendingPoints[myPendingCount++] = theEvent.getY();
+		if (!myFrameTimer.isRunning()) {
+			processPendingPoints();
+			myFrameTimer.start();
 		}
-		repaint();	
+	}
+	
+	/**
+	 * Processes the drag Points queued during the last display frame, stopping
+	 * the frame Timer if there are none.
+	 */
+	private void processFrame() {
+		if (myPendingCount == 0) {
+			myFrameTimer.stop();
+		} else {
+			processPendingPoints();
+		}
+	}
+	
+	/**
+	 * Processes every queued drag Point with a single repaint. Shape drawing ends
+	 * at the last Point, and the freehand stroke being drawn, if any, is extended
+	 * through each Point in turn.
+	 */
+	private void processPendingPoints() {
+		if (myPendingCount > 0) {
+			final int lastX = myPendingPoints[myPendingCount - 2];
+			final int lastY = myPendingPoints[myPendingCount - 1];
+			final Rectangle dirty = getToolBounds();
+			myCurrentTool.setEndPoint(lastX, lastY);
+			dirty.add(getToolBounds());
+			if (myActiveStroke != null) {
+				for (int i = 0; i < myPendingCount; i += 2) {
+					dirty.add(extendActiveStroke(myPendingPoints[i], 
+							                     myPendingPoints[i + 1]));
+				}
+				myCurrentTool.setStartPoint(lastX, lastY);
+			}
+			myPendingCount = 0;
+			myToolLayer.repaint(dirty);
+		}
+	}
+	
+	/**
+	 * Sets the frame Timer to tick at the refresh rate of the display showing this
+	 * DrawPanel, or at a default rate if it is unknown.
+	 */
+	private void setFrameRate() {
+		int rate = DisplayMode.REFRESH_RATE_UNKNOWN;
+		final GraphicsConfiguration config = getGraphicsConfiguration();
+		if (config != null) {
+			rate = config.getDevice().getDisplayMode().getRefreshRate();
+		}
+		if (rate == DisplayMode.REFRESH_RATE_UNKNOWN) {
+			rate = DEFAULT_REFRESH_RATE;
+		}
+		myFrameTimer.setDelay(Math.max(1, MILLIS_PER_SECOND / rate));
+		myFrameTimer.setInitialDelay(myFrameTimer.getDelay());
 	}
 
+	/**
+	 * Extends the freehand stroke being drawn to the provided Point, unless
+	 * the stroke already ends there. The Point passes through this DrawPanel's
+	 * StrokeSimplifier, which may move the stroke's last Point instead of adding 
+	 * a new one.
+	 * 
+	 * @param theX is the x coordinate of the Point.
+	 * @param theY is the y coordinate of the Point.
+	 * @return the region of this DrawPanel changed by extending the stroke.
+	 */
+	private Rectangle extendActiveStroke(final int theX, final int theY) {
+		final Polyline line = (Polyline) myActiveStroke.getShape();
+		final Rectangle dirty = getActiveStrokeEndBounds();
+		final int last = line.getPointCount() - 1;
+		if (line.getX(last) != theX || line.getY(last) != theY) {
+			myStrokeSimplifier.add(theX, theY);
+			dirty.add(getActiveStrokeEndBounds());
+		}
+		return dirty;
+	}
+	
+	/**
+	 * Provides the region covered by the final segment of the freehand stroke
+	 * being drawn.
+	 * 
+	 * @return the region covered by the stroke's final segment.
+	 */
+	private Rectangle getActiveStrokeEndBounds() {
+		final Polyline line = (Polyline) myActiveStroke.getShape();
+		final int last = line.getPointCount() - 1;
+		final int first = Math.max(0, last - 1);
+		final Rectangle bounds = new Rectangle((int) Math.floor(line.getX(last)), 
+				                               (int) Math.floor(line.getY(last)), 0, 0);
+		bounds.add(line.getX(first), line.getY(first));
+		final int margin = myActiveStroke.getStrokeWidth() + ANTIALIAS_MARGIN + 1;
+		bounds.grow(margin, margin);
+		return bounds;
+	}
+	
 	/**
 	 * Method called in response to mouse movement - unused
 	 * by this program.
@@ -542,4 +1578,109 @@ private class MyMouseInputAdapter extends MouseInputAdapter {
 	@Override
 	public final void mouseMoved(final MouseEvent theEvent) {}	
 }
+
+/**
+ * A transparent layer covering a DrawPanel that draws the Shape currently being
+ * drawn, and the DrawPanel's PerformanceOverlay if it is shown, above the
+ * DrawPanel's committed image. Moving the Shape in progress repaints only the
+ * region it covered and now covers; the committed image is only copied there,
+ * and is only drawn onto once the Shape is committed.
+ * 
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+private final class ToolLayer extends JComponent {
+	
+	/** A generated serial version ID. */
+	private static final long serialVersionUID = -4153304585209870712L;
+	
+	/** Constructs a new, transparent ToolLayer. */
+	private ToolLayer() {
+		super();
+		setOpaque(false);
+	}
+	
+	/**
+	 * Draws the Shape currently being drawn, and the PerformanceOverlay if it is
+	 * shown.
+	 * 
+	 * @param theGraphics is the Graphics context.
+	 */
+	@Override
+	protected void paintComponent(final Graphics theGraphics) {
+		final Graphics2D g2d = (Graphics2D) theGraphics;
+		paintTool(g2d, getClip(g2d));
+		if (myOverlay != null) {
+			myOverlay.paint(g2d);
+		}
+	}
+}
+
+/**
+ * A PruneWorker class to search a snapshot of a DrawPanel's drawn Shapes for Shapes
+ * hidden by later Shapes off the event dispatch thread, and to prune them from the
+ * DrawPanel's spatial index once it is done. Only Shapes hidden by Shapes that have
+ * stayed drawn since the snapshot was taken are pruned, as the DrawPanel's first
+ * Shapes then still match the snapshot's. If Shapes have been drawn or undone in 
+ * the meantime, another search is started once they are idle.
+ * 
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+private final class PruneWorker extends SwingWorker<int[], Void> {
+	
+	/** The OcclusionPruner searching the snapshot. */
+	private final OcclusionPruner myWorkerPruner;
+	
+	/** The snapshot of the drawn Shapes being searched. */
+	private final ShapeStore myShapes;
+	
+	/** The background Color erased Shapes are drawn in. */
+	private final Color myBackground;
+	
+	/**
+	 * Constructs a new PruneWorker searching the provided snapshot.
+	 * 
+	 * @param thePruner is the OcclusionPruner searching the snapshot.
+	 * @param theShapes is the snapshot of the drawn Shapes.
+	 * @param theBackground is the background Color erased Shapes are drawn in.
+	 */
+	private PruneWorker(final OcclusionPruner thePruner, final ShapeStore theShapes,
+			            final Color theBackground) {
+		super();
+		myWorkerPruner = thePruner;
+		myShapes = theShapes;
+		myBackground = theBackground;
+	}
+	
+	/**
+	 * Searches the snapshot for hidden Shapes.
+	 * 
+	 * @return the index of the earliest Shape hiding each Shape of the snapshot.
+	 */
+	@Override
+	protected int[] doInBackground() {
+		myWorkerPruner.search(myShapes, myBackground);
+		return myWorkerPruner.getOccluders();
+	}
+	
+	/**
+	 * Prunes the hidden Shapes found, and starts another search if the drawn Shapes
+	 * have changed since the snapshot was taken.
+	 */
+	@Override
+	protected void done() {
+		myPruneWorker = null;
+		try {
+			myShapeIndex.prune(get(), myPruneLimit);
+		} catch (final ExecutionException ex) {
+			throw new IllegalStateException(ex.getCause());
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		if (myShapes != myPublishedShapes) {
+			myPruneTimer.restart();
+		}
+	}
+}
 }
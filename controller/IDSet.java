@@ -0,0 +1,129 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * An IDSet class to record the Shape ID numbers used on a DrawPanel.
+ */
+
+package controller;
+
+import java.util.Arrays;
+
+/**
+ * This program holds a set of int ID numbers in an open-addressing hash table of
+ * primitive ints, so that adding an ID number and testing for one take constant
+ * expected time without boxing, however many ID numbers are held.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class IDSet {
+	
+	/** The initial number of slots in the hash table, a power of two. */
+	private static final int INITIAL_CAPACITY = 64;
+	
+	/** The value marking an empty slot. The ID number 0 is tracked separately. */
+	private static final int EMPTY = 0;
+	
+	/** The multiplier used to spread ID numbers across the hash table. */
+	private static final int MIX = 0x9E3779B9;
+	
+	/** The hash table of ID numbers. */
+	private int[] mySlots;
+	
+	/** Indicates if the ID number 0 is held. */
+	private boolean myHasZero;
+	
+	/** The number of ID numbers held, not counting 0. */
+	private int mySize;
+	
+	/** Constructs a new, empty IDSet. */
+	public IDSet() {
+		mySlots = new int[INITIAL_CAPACITY];
+	}
+	
+	/**
+	 * Adds an ID number to this IDSet.
+	 *
+	 * @param theID is the ID number.
+	 * @return true if theID was added, false if it was already held.
+	 */
+	public boolean add(final int theID) {
+		final boolean added;
+		if (theID == EMPTY) {
+			added = !myHasZero;
+			myHasZero = true;
+		} else {
+			final int slot = find(mySlots, theID);
+			added = mySlots[slot] == EMPTY;
+			if (added) {
+				mySlots[slot] = theID;
+				mySize++;
+				if (mySize * 2 > mySlots.length) {
+					grow();
+				}
+			}
+		}
+		return added;
+	}
+	
+	/**
+	 * Indicates whether an ID number is held by this IDSet.
+	 *
+	 * @param theID is the ID number.
+	 * @return true if theID is held, false otherwise.
+	 */
+	public boolean contains(final int theID) {
+		final boolean contains;
+		if (theID == EMPTY) {
+			contains = myHasZero;
+		} else {
+			contains = mySlots[find(mySlots, theID)] == theID;
+		}
+		return contains;
+	}
+	
+	/**
+	 * Provides the number of ID numbers held by this IDSet.
+	 *
+	 * @return the number of ID numbers held.
+	 */
+	public int size() {
+		return myHasZero ? mySize + 1 : mySize;
+	}
+	
+	/** Removes every ID number from this IDSet. */
+	public void clear() {
+		Arrays.fill(mySlots, EMPTY);
+		myHasZero = false;
+		mySize = 0;
+	}
+	
+	/** Doubles the number of slots in the hash table, re-inserting every ID number. */
+	private void grow() {
+		final int[] slots = new int[mySlots.length * 2];
+		for (final int id : mySlots) {
+			if (id != EMPTY) {
+				slots[find(slots, id)] = id;
+			}
+		}
+		mySlots = slots;
+	}
+	
+	/**
+	 * Provides the slot of a hash table holding an ID number, or the empty slot
+	 * where it would be inserted.
+	 *
+	 * @param theSlots is the hash table, whose length is a power of two.
+	 * @param theID is the non-zero ID number.
+	 * @return the index of the slot.
+	 */
+	private static int find(final int[] theSlots, final int theID) {
+		final int mask = theSlots.length - 1;
+		final int hash = theID * MIX;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		while (theSlots[slot] != EMPTY && theSlots[slot] != theID) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+}
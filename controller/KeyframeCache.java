@@ -0,0 +1,258 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A KeyframeCache class to hold raster checkpoints of a DrawPanel's drawing history.
+ */
+
+package controller;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This program holds keyframes: copies of a DrawPanel's committed image taken when
+ * a known number of Shapes had been drawn. A region of the committed image can be
+ * rebuilt by copying it from the nearest earlier keyframe and drawing only the
+ * Shapes after it, instead of every Shape since the start of the drawing history.
+ *
+ * The memory used by keyframes is bounded by a budget. When adding a keyframe
+ * would exceed the budget, the least recently used keyframes are discarded first.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class KeyframeCache {
+	
+	/** The number of bits in a byte. */
+	private static final int BITS_PER_BYTE = 8;
+	
+	/** The keyframes held by this KeyframeCache, keyed by their Shape count. */
+	private final TreeMap<Integer, Keyframe> myKeyframes;
+	
+	/** The largest number of bytes the keyframes may use. */
+	private long myBudget;
+	
+	/** The number of bytes used by the keyframes. */
+	private long myBytes;
+	
+	/** A counter recording the order in which keyframes are used. */
+	private long myClock;
+	
+	/**
+	 * Constructs a new, empty KeyframeCache with the provided memory budget.
+	 *
+	 * @param theBudget is the largest number of bytes the keyframes may use.
+	 * @throws IllegalArgumentException if theBudget is negative.
+	 */
+	public KeyframeCache(final long theBudget) {
+		myKeyframes = new TreeMap<Integer, Keyframe>();
+		setBudget(theBudget);
+	}
+	
+	/**
+	 * Sets the memory budget of this KeyframeCache, discarding the least recently
+	 * used keyframes until the remaining ones fit.
+	 *
+	 * @param theBudget is the largest number of bytes the keyframes may use.
+	 * @throws IllegalArgumentException if theBudget is negative.
+	 */
+	public void setBudget(final long theBudget) {
+		if (theBudget < 0) {
+			throw new IllegalArgumentException("Keyframe budgets must be non-negative!");
+		}
+		myBudget = theBudget;
+		evict(0);
+	}
+	
+	/**
+	 * Provides the memory budget of this KeyframeCache.
+	 *
+	 * @return the largest number of bytes the keyframes may use.
+	 */
+	public long getBudget() {
+		return myBudget;
+	}
+	
+	/**
+	 * Provides the number of bytes used by the keyframes of this KeyframeCache.
+	 *
+	 * @return the number of bytes used.
+	 */
+	public long getBytes() {
+		return myBytes;
+	}
+	
+	/**
+	 * Provides the number of keyframes held by this KeyframeCache.
+	 *
+	 * @return the number of keyframes.
+	 */
+	public int size() {
+		return myKeyframes.size();
+	}
+	
+	/**
+	 * Indicates whether a keyframe is held for the provided Shape count.
+	 *
+	 * @param theShapeCount is the Shape count.
+	 * @return true if a keyframe is held, false otherwise.
+	 */
+	public boolean contains(final int theShapeCount) {
+		return myKeyframes.containsKey(theShapeCount);
+	}
+	
+	/**
+	 * Adds a copy of the provided image as the keyframe for the provided Shape count,
+	 * unless one is already held. Nothing is added if the copy alone would exceed
+	 * the budget.
+	 *
+	 * @param theShapeCount is the number of Shapes drawn onto theImage.
+	 * @param theImage is the image.
+	 */
+	public void put(final int theShapeCount, final BufferedImage theImage) {
+		final long bytes = getBytes(theImage);
+		if (!contains(theShapeCount) && bytes <= myBudget) {
+			evict(bytes);
+			final ColorModel model = theImage.getColorModel();
+			final BufferedImage copy = new BufferedImage(model,
+					   theImage.getRaster().createCompatibleWritableRaster(),
+					   model.isAlphaPremultiplied(), null);
+			final Graphics2D g2d = copy.createGraphics();
+			g2d.setComposite(AlphaComposite.Src);
+			g2d.drawImage(theImage, 0, 0, null);
+			g2d.dispose();
+			myKeyframes.put(theShapeCount, new Keyframe(theShapeCount, copy, bytes,
+					                                   ++myClock));
+			myBytes += bytes;
+		}
+	}
+	
+	/**
+	 * Provides the keyframe with the largest Shape count not above the provided
+	 * Shape count, marking it as recently used.
+	 *
+	 * @param theShapeCount is the Shape count.
+	 * @return the keyframe, or null if there is none.
+	 */
+	public Keyframe floor(final int theShapeCount) {
+		final Map.Entry<Integer, Keyframe> entry = myKeyframes.floorEntry(theShapeCount);
+		Keyframe keyframe = null;
+		if (entry != null) {
+			keyframe = entry.getValue();
+			keyframe.myLastUse = ++myClock;
+		}
+		return keyframe;
+	}
+	
+	/**
+	 * Discards every keyframe with a Shape count above the provided Shape count.
+	 *
+	 * @param theShapeCount is the Shape count.
+	 */
+	public void discardAbove(final int theShapeCount) {
+		final Iterator<Keyframe> iterator =
+				myKeyframes.tailMap(theShapeCount, false).values().iterator();
+		while (iterator.hasNext()) {
+			myBytes -= iterator.next().myBytes;
+			iterator.remove();
+		}
+	}
+	
+	/** Discards every keyframe. */
+	public void clear() {
+		myKeyframes.clear();
+		myBytes = 0;
+	}
+	
+	/**
+	 * Discards the least recently used keyframes until the provided number of
+	 * additional bytes fits within the budget.
+	 *
+	 * @param theBytes is the number of additional bytes.
+	 */
+	private void evict(final long theBytes) {
+		while (!myKeyframes.isEmpty() && myBytes + theBytes > myBudget) {
+			Keyframe oldest = null;
+			for (final Keyframe keyframe : myKeyframes.values()) {
+				if (oldest == null || keyframe.myLastUse < oldest.myLastUse) {
+					oldest = keyframe;
+				}
+			}
+			myKeyframes.remove(oldest.myShapeCount);
+			myBytes -= oldest.myBytes;
+		}
+	}
+	
+	/**
+	 * Provides the number of bytes used by the pixels of an image.
+	 *
+	 * @param theImage is the image.
+	 * @return the number of bytes used.
+	 */
+	public static long getBytes(final BufferedImage theImage) {
+		final DataBuffer buffer = theImage.getRaster().getDataBuffer();
+		return (long) buffer.getSize() * buffer.getNumBanks()
+			   * DataBuffer.getDataTypeSize(buffer.getDataType()) / BITS_PER_BYTE;
+	}
+
+/**
+ * A copy of a committed image taken when a known number of Shapes had been drawn.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public static final class Keyframe {
+	
+	/** The number of Shapes drawn onto this Keyframe's image. */
+	private final int myShapeCount;
+	
+	/** This Keyframe's image. */
+	private final BufferedImage myImage;
+	
+	/** The number of bytes used by this Keyframe's image. */
+	private final long myBytes;
+	
+	/** The clock value of this Keyframe's most recent use. */
+	private long myLastUse;
+	
+	/**
+	 * Constructs a new Keyframe.
+	 *
+	 * @param theShapeCount is the number of Shapes drawn onto theImage.
+	 * @param theImage is the image.
+	 * @param theBytes is the number of bytes used by theImage.
+	 * @param theLastUse is the clock value of the Keyframe's most recent use.
+	 */
+	private Keyframe(final int theShapeCount, final BufferedImage theImage,
+			         final long theBytes, final long theLastUse) {
+		myShapeCount = theShapeCount;
+		myImage = theImage;
+		myBytes = theBytes;
+		myLastUse = theLastUse;
+	}
+	
+	/**
+	 * Provides the number of Shapes drawn onto this Keyframe's image.
+	 *
+	 * @return the number of Shapes.
+	 */
+	public int getShapeCount() {
+		return myShapeCount;
+	}
+	
+	/**
+	 * Provides this Keyframe's image, which must not be modified.
+	 *
+	 * @return the image.
+	 */
+	public BufferedImage getImage() {
+		return myImage;
+	}
+}
+}
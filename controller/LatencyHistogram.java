@@ -0,0 +1,170 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A LatencyHistogram class to record the distribution of measured durations.
+ */
+
+package controller;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This program records durations, in nanoseconds, into a histogram of buckets whose
+ * widths grow with their values: every power of two is split into eight buckets, so
+ * any percentile is reported to within an eighth of its value. Recording a duration
+ * is a single atomic increment, and the histogram never takes a lock, so durations
+ * may be recorded on one thread while the histogram is read on another.
+ *
+ * The counts of a LatencyHistogram only grow. A reader wanting the distribution of
+ * a recent period takes a copy of the counts at its start and subtracts it from a
+ * copy taken at its end.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class LatencyHistogram {
+	
+	/** The base 2 logarithm of the number of buckets each power of two is split into. */
+	private static final int SUB_BUCKET_BITS = 3;
+	
+	/** The number of buckets each power of two is split into. */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	
+	/** The number of buckets, enough for any positive long duration. */
+	private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	
+	/** The largest percentile. */
+	private static final double MAX_PERCENTILE = 100.0;
+	
+	/** The number of durations recorded in each bucket. */
+	private final AtomicLongArray myCounts;
+	
+	/** Constructs a new, empty LatencyHistogram. */
+	public LatencyHistogram() {
+		myCounts = new AtomicLongArray(BUCKETS);
+	}
+	
+	/**
+	 * Records a duration. Negative durations are recorded as zero.
+	 *
+	 * @param theNanos is the duration, in nanoseconds.
+	 */
+	public void record(final long theNanos) {
+		myCounts.incrementAndGet(getBucket(Math.max(0, theNanos)));
+	}
+	
+	/**
+	 * Provides a copy of the number of durations recorded in each bucket.
+	 *
+	 * @return the counts.
+	 */
+	public long[] getCounts() {
+		final long[] counts = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] = myCounts.get(i);
+		}
+		return counts;
+	}
+	
+	/**
+	 * Provides the number of durations recorded.
+	 *
+	 * @return the number of durations.
+	 */
+	public long getCount() {
+		return getCount(getCounts());
+	}
+	
+	/**
+	 * Provides a percentile of the durations recorded.
+	 *
+	 * @param thePercentile is the percentile, in [0, 100].
+	 * @return the largest duration in the bucket holding the percentile, in
+	 * nanoseconds, or 0 if no durations have been recorded.
+	 * @throws IllegalArgumentException if thePercentile is not in [0, 100].
+	 */
+	public long getPercentile(final double thePercentile) {
+		return getPercentile(getCounts(), thePercentile);
+	}
+	
+	/**
+	 * Provides the number of durations in a copy of the counts of a LatencyHistogram.
+	 *
+	 * @param theCounts are the counts.
+	 * @return the number of durations.
+	 */
+	public static long getCount(final long[] theCounts) {
+		long count = 0;
+		for (final long bucket : theCounts) {
+			count += bucket;
+		}
+		return count;
+	}
+	
+	/**
+	 * Provides a percentile of the durations in a copy of the counts of a
+	 * LatencyHistogram, or in the difference between two copies.
+	 *
+	 * @param theCounts are the counts.
+	 * @param thePercentile is the percentile, in [0, 100].
+	 * @return the largest duration in the bucket holding the percentile, in
+	 * nanoseconds, or 0 if theCounts hold no durations.
+	 * @throws IllegalArgumentException if thePercentile is not in [0, 100].
+	 */
+	public static long getPercentile(final long[] theCounts, final double thePercentile) {
+		if (thePercentile < 0 || thePercentile > MAX_PERCENTILE) {
+			throw new IllegalArgumentException("Percentiles must be in [0, 100]!");
+		}
+		final long count = getCount(theCounts);
+		long value = 0;
+		if (count > 0) {
+			final long rank = Math.max(1, (long) Math.ceil(count * thePercentile
+					                                        / MAX_PERCENTILE));
+			long seen = 0;
+			int bucket = 0;
+			while (seen + theCounts[bucket] < rank) {
+				seen += theCounts[bucket];
+				bucket++;
+			}
+			value = getUpperBound(bucket);
+		}
+		return value;
+	}
+	
+	/**
+	 * Provides the bucket a duration is recorded in.
+	 *
+	 * @param theNanos is the non-negative duration.
+	 * @return the index of the bucket.
+	 */
+	private static int getBucket(final long theNanos) {
+		final int bucket;
+		if (theNanos < SUB_BUCKETS) {
+			bucket = (int) theNanos;
+		} else {
+			final int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(theNanos)
+					          - SUB_BUCKET_BITS;
+			bucket = (shift + 1) * SUB_BUCKETS
+					 + (int) ((theNanos >>> shift) & (SUB_BUCKETS - 1));
+		}
+		return bucket;
+	}
+	
+	/**
+	 * Provides the largest duration recorded in a bucket.
+	 *
+	 * @param theBucket is the index of the bucket.
+	 * @return the largest duration, in nanoseconds.
+	 */
+	private static long getUpperBound(final int theBucket) {
+		final long bound;
+		if (theBucket < SUB_BUCKETS) {
+			bound = theBucket;
+		} else {
+			final int shift = theBucket / SUB_BUCKETS - 1;
+			final long lower = (long) (SUB_BUCKETS + theBucket % SUB_BUCKETS) << shift;
+			bound = lower + (1L << shift) - 1;
+		}
+		return bound;
+	}
+}
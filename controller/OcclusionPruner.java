@@ -0,0 +1,302 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * An OcclusionPruner class to find the stored Shapes hidden by later Shapes.
+ */
+
+package controller;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * This program finds the Shapes of a ShapeStore that are hidden: Shapes every pixel
+ * of which is later painted over by a single Shape in an opaque Color, either by its
+ * fill or by its outline, including an outline drawn in an opaque background Color
+ * in 'erase' mode. Whatever a hidden Shape leaves in a pixel is replaced by the
+ * Shape hiding it, so any drawing holding both is unchanged by skipping the hidden
+ * Shape, and a DrawPanel may prune it from its ShapeIndex while keeping it in its
+ * history for undo.
+ *
+ * A Shape is only taken to be hidden if the region it covers, grown by a pixel to
+ * allow for Java2D's normalization of coordinates, lies inside the fill or stroked
+ * outline of the later Shape. The search is conservative: it may miss a hidden
+ * Shape, but never reports one that shows. Each Shape is matched with the earliest
+ * Shape hiding it, and candidates are found through a grid of the corners of the
+ * regions of the Shapes not yet known to be hidden, so that a hidden Shape is never
+ * visited again.
+ *
+ * An OcclusionPruner keeps its grid between searches, so each search only visits
+ * the Shapes drawn since the last one. It must be searched by one thread at a time,
+ * and replaced by a new OcclusionPruner once any Shape it has searched is undone.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class OcclusionPruner {
+	
+	/** The occluder reported for a Shape that is not hidden. */
+	public static final int NOT_OCCLUDED = -1;
+	
+	/** The alpha value of an opaque Color. */
+	private static final int OPAQUE = 255;
+	
+	/** The pixels added around a Shape's region to allow for normalization. */
+	private static final int NORMALIZATION_MARGIN = 1;
+	
+	/** The width and height of a grid cell, in pixels. */
+	private static final int CELL_SIZE = 32;
+	
+	/** The initial capacity of a grid cell. */
+	private static final int INITIAL_CELL_CAPACITY = 4;
+	
+	/** The number of values recorded for the region of each Shape. */
+	private static final int REGION_SIZE = 4;
+	
+	/** The grid of the Shapes searched and not yet known to be hidden. */
+	private final Map<Long, Cell> myGrid;
+	
+	/** The left, top, width, and height of the region of each Shape searched. */
+	private int[] myRegions;
+	
+	/** The index of the Shape hiding each Shape searched, or NOT_OCCLUDED. */
+	private int[] myOccluders;
+	
+	/** The reusable geometry Shapes are read into. */
+	private final ShapeStore.Geometry myGeometry;
+	
+	/** The number of Shapes searched. */
+	private int mySize;
+	
+	/** Constructs a new OcclusionPruner that has searched no Shapes. */
+	public OcclusionPruner() {
+		myGrid = new HashMap<Long, Cell>();
+		myRegions = new int[0];
+		myOccluders = new int[0];
+		myGeometry = new ShapeStore.Geometry();
+	}
+	
+	/**
+	 * Provides the number of Shapes this OcclusionPruner has searched.
+	 *
+	 * @return the number of Shapes searched.
+	 */
+	public int size() {
+		return mySize;
+	}
+	
+	/**
+	 * Provides the Shapes hiding each Shape searched.
+	 *
+	 * @return the index of the earliest Shape hiding each Shape, or NOT_OCCLUDED
+	 * for a Shape that is not hidden.
+	 */
+	public int[] getOccluders() {
+		return Arrays.copyOf(myOccluders, mySize);
+	}
+	
+	/**
+	 * Searches the Shapes of the provided ShapeStore not yet searched, finding the
+	 * earlier Shapes each one hides. The ShapeStore may be a snapshot being read on
+	 * another thread, and must begin with the Shapes already searched.
+	 *
+	 * @param theShapes are the Shapes, in drawing order.
+	 * @param theBackground is the background Color erased Shapes are drawn in.
+	 * @throws IllegalArgumentException if theShapes holds fewer Shapes than have
+	 * been searched.
+	 * @throws NullPointerException if theShapes or theBackground is null.
+	 */
+	public void search(final ShapeStore theShapes, final Color theBackground) {
+		Objects.requireNonNull(theBackground, "Background Colors must be non-null!");
+		final int size = theShapes.size();
+		if (size < mySize) {
+			throw new IllegalArgumentException("Searched Shapes must not be removed!");
+		}
+		myRegions = Arrays.copyOf(myRegions, size * REGION_SIZE);
+		myOccluders = Arrays.copyOf(myOccluders, size);
+		Arrays.fill(myOccluders, mySize, size, NOT_OCCLUDED);
+		for (int occluder = mySize; occluder < size; occluder++) {
+			final Rectangle bounds = theShapes.getStrokeBounds(occluder);
+			final boolean fillOpaque = theShapes.isFilled(occluder)
+					                   && theShapes.getFillColor(occluder).getAlpha()
+					                      == OPAQUE;
+			final Color outline;
+			if (theShapes.isEraserActivated(occluder)) {
+				outline = theBackground;
+			} else {
+				outline = theShapes.getColor(occluder);
+			}
+			final boolean outlineOpaque = outline.getAlpha() == OPAQUE
+					                      && theShapes.getStrokeWidth(occluder) > 0;
+			if (fillOpaque || outlineOpaque) {
+				hide(theShapes, occluder, bounds, fillOpaque, outlineOpaque);
+			}
+			final int offset = occluder * REGION_SIZE;
+			myRegions[offset] = bounds.x - NORMALIZATION_MARGIN;
+			myRegions[offset + 1] = bounds.y - NORMALIZATION_MARGIN;
+			myRegions[offset + 2] = bounds.width + 2 * NORMALIZATION_MARGIN;
+			myRegions[offset + 3] = bounds.height + 2 * NORMALIZATION_MARGIN;
+			final Long key = getKey(Math.floorDiv(myRegions[offset], CELL_SIZE),
+					                Math.floorDiv(myRegions[offset + 1], CELL_SIZE));
+			myGrid.computeIfAbsent(key, (theKey) -> new Cell()).add(occluder);
+		}
+		mySize = size;
+	}
+	
+	/**
+	 * Marks every earlier Shape not yet known to be hidden whose region lies inside
+	 * the opaque fill or stroked outline of a Shape as hidden by that Shape, and
+	 * removes it from the grid. The fill and outline are only built once an earlier
+	 * Shape is found inside the bounds of the Shape.
+	 *
+	 * @param theShapes are the Shapes, in drawing order.
+	 * @param theOccluder is the index of the Shape.
+	 * @param theBounds is the region covered by the Shape.
+	 * @param theFillOpaque indicates if the Shape has an opaque fill.
+	 * @param theOutlineOpaque indicates if the Shape has an opaque outline.
+	 */
+	private void hide(final ShapeStore theShapes, final int theOccluder,
+			          final Rectangle theBounds, final boolean theFillOpaque,
+			          final boolean theOutlineOpaque) {
+		final int col0 = Math.floorDiv(theBounds.x, CELL_SIZE);
+		final int row0 = Math.floorDiv(theBounds.y, CELL_SIZE);
+		final int col1 = Math.floorDiv(theBounds.x + theBounds.width - 1, CELL_SIZE);
+		final int row1 = Math.floorDiv(theBounds.y + theBounds.height - 1, CELL_SIZE);
+		Shape fill = null;
+		Shape stroked = null;
+		for (int row = row0; row <= row1; row++) {
+			for (int col = col0; col <= col1; col++) {
+				final Cell cell = myGrid.get(getKey(col, row));
+				int i = 0;
+				while (cell != null && i < cell.mySize) {
+					final int offset = cell.myShapes[i] * REGION_SIZE;
+					final int x = myRegions[offset];
+					final int y = myRegions[offset + 1];
+					final int width = myRegions[offset + 2];
+					final int height = myRegions[offset + 3];
+					boolean hidden = false;
+					if (theBounds.contains(x, y, width, height)) {
+						if (fill == null) {
+							fill = createFill(theShapes, theOccluder, theFillOpaque);
+							stroked = createStroked(theShapes, theOccluder,
+									                theOutlineOpaque);
+						}
+						hidden = fill.contains(x, y, width, height)
+								 || stroked.contains(x, y, width, height);
+					}
+					if (hidden) {
+						myOccluders[cell.myShapes[i]] = theOccluder;
+						cell.remove(i);
+					} else {
+						i++;
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Provides the region covered by a stored Shape's fill, or an empty region if its
+	 * fill is not opaque.
+	 *
+	 * @param theShapes are the Shapes.
+	 * @param theIndex is the index of the Shape.
+	 * @param theOpaque indicates if the Shape has an opaque fill.
+	 * @return the region covered by the fill.
+	 */
+	private Shape createFill(final ShapeStore theShapes, final int theIndex,
+			                 final boolean theOpaque) {
+		final Shape fill;
+		if (theOpaque) {
+			fill = new Path2D.Double(theShapes.getShape(theIndex, myGeometry));
+		} else {
+			fill = new Path2D.Double();
+		}
+		return fill;
+	}
+	
+	/**
+	 * Provides the region covered by a stored Shape's outline, or an empty region if
+	 * its outline is not opaque.
+	 *
+	 * @param theShapes are the Shapes.
+	 * @param theIndex is the index of the Shape.
+	 * @param theOpaque indicates if the Shape has an opaque outline.
+	 * @return the region covered by the outline.
+	 */
+	private Shape createStroked(final ShapeStore theShapes, final int theIndex,
+			                    final boolean theOpaque) {
+		final Shape stroked;
+		if (theOpaque) {
+			final boolean round = theShapes.getKind(theIndex) == ShapeStore.POLYLINE;
+			final int width = theShapes.getStrokeWidth(theIndex);
+			final Stroke stroke = ShapeRenderer.getStroke(width, round);
+			stroked = stroke.createStrokedShape(theShapes.getShape(theIndex, myGeometry));
+		} else {
+			stroked = new Path2D.Double();
+		}
+		return stroked;
+	}
+	
+	/**
+	 * Provides the key of a grid cell.
+	 *
+	 * @param theCol is the cell column.
+	 * @param theRow is the cell row.
+	 * @return the combined cell column and row.
+	 */
+	private static Long getKey(final int theCol, final int theRow) {
+		return ((long) theCol << Integer.SIZE) | (theRow & 0xFFFFFFFFL);
+	}
+
+/**
+ * A growable, unordered list of the Shapes whose regions have their top left corner
+ * in a single grid cell.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+private static final class Cell {
+	
+	/** The indices of the Shapes in this Cell. */
+	private int[] myShapes;
+	
+	/** The number of Shapes in this Cell. */
+	private int mySize;
+	
+	/** Constructs a new, empty Cell. */
+	private Cell() {
+		myShapes = new int[INITIAL_CELL_CAPACITY];
+	}
+	
+	/**
+	 * Adds a Shape to this Cell.
+	 *
+	 * @param theShape is the index of the Shape.
+	 */
+	private void add(final int theShape) {
+		if (mySize == myShapes.length) {
+			myShapes = Arrays.copyOf(myShapes, mySize * 2);
+		}
+		myShapes[mySize++] = theShape;
+	}
+	
+	/**
+	 * Removes a Shape from this Cell, moving the last Shape into its place.
+	 *
+	 * @param theIndex is the index of the Shape within this Cell.
+	 */
+	private void remove(final int theIndex) {
+		mySize--;
+		myShapes[theIndex] = myShapes[mySize];
+	}
+}
+}
@@ -0,0 +1,218 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A PerformanceOverlay class to show a DrawPanel's frame statistics over its drawing.
+ */
+
+package controller;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+
+import javax.swing.Timer;
+
+/**
+ * This program draws a small panel of performance statistics in the corner of a
+ * DrawPanel: the median and 99th percentile frame times and the frame rate, the
+ * median and 99th percentile input latencies, the number of Shapes drawn and the
+ * number drawn and culled in the last frame, and the heap in use. The statistics
+ * are recomputed twice a second from the frames recorded since the last update,
+ * and only the PerformanceOverlay's own region is then repainted.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class PerformanceOverlay {
+	
+	/** The number of milliseconds between updates of the statistics. */
+	private static final int REFRESH_MILLIS = 500;
+	
+	/** The number of characters in the longest line of statistics. */
+	private static final int COLUMNS = 44;
+	
+	/** The number of lines of statistics. */
+	private static final int LINES = 4;
+	
+	/** The distance of the PerformanceOverlay from the corner of its DrawPanel. */
+	private static final int MARGIN = 8;
+	
+	/** The space between the PerformanceOverlay's edge and its text. */
+	private static final int PADDING = 6;
+	
+	/** The size of the PerformanceOverlay's font. */
+	private static final int FONT_SIZE = 12;
+	
+	/** The Color behind the PerformanceOverlay's text. */
+	private static final Color BACKGROUND = new Color(0, 0, 0, 176);
+	
+	/** The median percentile. */
+	private static final double MEDIAN = 50.0;
+	
+	/** The tail percentile. */
+	private static final double TAIL = 99.0;
+	
+	/** The number of nanoseconds in a millisecond. */
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+	
+	/** The number of nanoseconds in a second. */
+	private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+	
+	/** The number of bytes in a mebibyte. */
+	private static final double MEBIBYTE = 1024.0 * 1024.0;
+	
+	/** The DrawPanel whose statistics are shown. */
+	private final DrawPanel myPanel;
+	
+	/** The Timer updating the statistics. */
+	private final Timer myTimer;
+	
+	/** The font the statistics are drawn in. */
+	private final Font myFont;
+	
+	/** The region of the DrawPanel covered by this PerformanceOverlay. */
+	private final Rectangle myBounds;
+	
+	/** The height of a line of statistics. */
+	private final int myLineHeight;
+	
+	/** The distance from the top of a line of statistics to its baseline. */
+	private final int myAscent;
+	
+	/** The frame time counts at the last update. */
+	private long[] myFrameCounts;
+	
+	/** The input latency counts at the last update. */
+	private long[] myInputCounts;
+	
+	/** The time of the last update, in nanoseconds. */
+	private long myUpdateNanos;
+	
+	/** The lines of statistics drawn. */
+	private String[] myLines;
+	
+	/**
+	 * Constructs a new PerformanceOverlay for the provided DrawPanel. It is not
+	 * updated until it is started.
+	 *
+	 * @param thePanel is the DrawPanel.
+	 */
+	public PerformanceOverlay(final DrawPanel thePanel) {
+		myPanel = thePanel;
+		myFont = new Font(Font.MONOSPACED, Font.PLAIN, FONT_SIZE);
+		final FontMetrics metrics = thePanel.getFontMetrics(myFont);
+		myLineHeight = metrics.getHeight();
+		myAscent = metrics.getAscent();
+		myBounds = new Rectangle(MARGIN, MARGIN,
+				                 metrics.charWidth('0') * COLUMNS + 2 * PADDING,
+				                 myLineHeight * LINES + 2 * PADDING);
+		myTimer = new Timer(REFRESH_MILLIS, (theEvent) -> update());
+		myLines = new String[0];
+	}
+	
+	/** Starts updating this PerformanceOverlay's statistics. */
+	public void start() {
+		myFrameCounts = myPanel.getFrameTimes().getCounts();
+		myInputCounts = myPanel.getInputLatencies().getCounts();
+		myUpdateNanos = System.nanoTime();
+		update();
+		myTimer.start();
+	}
+	
+	/** Stops updating this PerformanceOverlay's statistics. */
+	public void stop() {
+		myTimer.stop();
+	}
+	
+	/**
+	 * Provides the region of the DrawPanel covered by this PerformanceOverlay.
+	 *
+	 * @return the region.
+	 */
+	public Rectangle getBounds() {
+		return new Rectangle(myBounds);
+	}
+	
+	/**
+	 * Draws this PerformanceOverlay onto the provided Graphics context.
+	 *
+	 * @param theGraphics is the DrawPanel's Graphics context.
+	 */
+	public void paint(final Graphics2D theGraphics) {
+		theGraphics.setPaint(BACKGROUND);
+		theGraphics.fill(myBounds);
+		theGraphics.setPaint(Color.WHITE);
+		theGraphics.setFont(myFont);
+		for (int i = 0; i < myLines.length; i++) {
+			theGraphics.drawString(myLines[i], myBounds.x + PADDING,
+					               myBounds.y + PADDING + myAscent + i * myLineHeight);
+		}
+	}
+	
+	/**
+	 * Recomputes the statistics from the frames recorded since the last update and
+	 * repaints this PerformanceOverlay's region of the DrawPanel.
+	 */
+	private void update() {
+		final long now = System.nanoTime();
+		final long[] frames = myPanel.getFrameTimes().getCounts();
+		final long[] inputs = myPanel.getInputLatencies().getCounts();
+		final long[] recentFrames = subtract(frames, myFrameCounts);
+		final long[] recentInputs = subtract(inputs, myInputCounts);
+		final double seconds = Math.max(1, now - myUpdateNanos) / NANOS_PER_SECOND;
+		final Runtime runtime = Runtime.getRuntime();
+		final long heap = runtime.totalMemory() - runtime.freeMemory();
+		myLines = new String[] {
+			String.format("frame p50 %s  p99 %s  %4.0f fps",
+					      format(recentFrames, MEDIAN), format(recentFrames, TAIL),
+					      LatencyHistogram.getCount(recentFrames) / seconds),
+			String.format("input p50 %s  p99 %s",
+					      format(recentInputs, MEDIAN), format(recentInputs, TAIL)),
+			String.format("shapes %d  drawn %d  culled %d",
+					      myPanel.getDrawnShapeStore().size(), myPanel.getShapesDrawn(),
+					      myPanel.getShapesCulled()),
+			String.format("heap %.0f / %.0f MiB", heap / MEBIBYTE,
+					      runtime.maxMemory() / MEBIBYTE)
+		};
+		myFrameCounts = frames;
+		myInputCounts = inputs;
+		myUpdateNanos = now;
+		myPanel.repaint(myBounds);
+	}
+	
+	/**
+	 * Provides a percentile of recorded durations in milliseconds, or a dash if
+	 * none were recorded.
+	 *
+	 * @param theCounts are the histogram counts of the durations.
+	 * @param thePercentile is the percentile.
+	 * @return the formatted percentile.
+	 */
+	private static String format(final long[] theCounts, final double thePercentile) {
+		final String text;
+		if (LatencyHistogram.getCount(theCounts) == 0) {
+			text = String.format("%9s", "-");
+		} else {
+			text = String.format("%6.1f ms", LatencyHistogram.getPercentile(theCounts,
+					                              thePercentile) / NANOS_PER_MILLI);
+		}
+		return text;
+	}
+	
+	/**
+	 * Provides the difference between two copies of a histogram's counts.
+	 *
+	 * @param theCounts are the later counts.
+	 * @param theEarlier are the earlier counts.
+	 * @return the counts recorded between the two copies.
+	 */
+	private static long[] subtract(final long[] theCounts, final long[] theEarlier) {
+		final long[] difference = new long[theCounts.length];
+		for (int i = 0; i < theCounts.length; i++) {
+			difference[i] = theCounts[i] - theEarlier[i];
+		}
+		return difference;
+	}
+}
@@ -0,0 +1,365 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A PowerPaintBatch class to render saved drawings to PNG images without a display.
+ */
+
+package controller;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import javax.imageio.ImageIO;
+
+/**
+ * This program renders saved .shp files to PNG images without opening a
+ * PowerPaintFrame, so that it may run with java.awt.headless=true. Each drawing is
+ * rendered by a TileRenderer over a white background, exactly as a DrawPanel draws
+ * its committed image, onto an image the size of a DrawPanel grown to cover every
+ * Shape up to a largest size, or of a fixed size if one is given.
+ *
+ * Files are rendered in parallel by a fixed number of worker threads, each reading
+ * a file, rendering it, and writing its image in turn, so that at most that many
+ * drawings are held in memory at once. The images together may take at most half
+ * of the heap: a worker waits for its image's pixels to fit within that budget
+ * before allocating it, and an image larger than the whole budget is rendered
+ * alone. Their tiles are all drawn on one shared ForkJoinPool with a thread per
+ * processor, so that workers waiting on I/O leave the processors to the others. A
+ * line is printed as each file completes, followed by the total throughput.
+ *
+ * Usage: PowerPaintBatch [-o directory] [-j workers] [-s WIDTHxHEIGHT]
+ *                        [-m WIDTHxHEIGHT] file|directory...
+ *
+ * Every .shp file in a directory argument is rendered. Images are written beside
+ * their .shp files, or into the directory given by -o; files that would be written
+ * to the same image are rejected before any is rendered. Images grow to at most
+ * 4096 by 4096 pixels, or to the size given by -m.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class PowerPaintBatch {
+	
+	/** The usage message printed when the arguments are invalid. */
+	private static final String USAGE = "Usage: PowerPaintBatch [-o directory] "
+			                            + "[-j workers] [-s WIDTHxHEIGHT] "
+			                            + "[-m WIDTHxHEIGHT] file|directory...";
+	
+	/** The extension of saved drawings. */
+	private static final String SHP_EXTENSION = ".shp";
+	
+	/** The format images are written in. */
+	private static final String IMAGE_FORMAT = "png";
+	
+	/** The background Color of a DrawPanel. */
+	private static final Color BACKGROUND = Color.WHITE;
+	
+	/** The default width of a rendered image, that of a DrawPanel. */
+	private static final int DEFAULT_WIDTH = 500;
+	
+	/** The default height of a rendered image, that of a DrawPanel. */
+	private static final int DEFAULT_HEIGHT = 300;
+	
+	/** The default largest width or height an image grows to to cover its Shapes. */
+	private static final int MAX_SIZE = 1 << 12;
+	
+	/** The number of pixels each permit of the image memory budget stands for. */
+	private static final int PIXELS_PER_PERMIT = 1 << 10;
+	
+	/** The fraction of the heap, as a divisor, the images may take together. */
+	private static final int IMAGE_HEAP_DIVISOR = 2;
+	
+	/** The exit status reported when any file could not be rendered. */
+	private static final int FAILURE_STATUS = 1;
+	
+	/** The exit status reported when the arguments are invalid. */
+	private static final int USAGE_STATUS = 2;
+	
+	/** The number of bytes in a mebibyte. */
+	private static final double MEBIBYTE = 1024.0 * 1024.0;
+	
+	/** The number of nanoseconds in a second. */
+	private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+	
+	/** The number of nanoseconds in a millisecond. */
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+	
+	/** The renderer drawing every image's tiles. */
+	private final TileRenderer myRenderer;
+	
+	/** The directory images are written into, or null to write them beside the files. */
+	private final Path myOutput;
+	
+	/** The fixed size of every image, or null to cover each drawing's Shapes. */
+	private final Rectangle mySize;
+	
+	/** The largest size an image grows to to cover its drawing's Shapes. */
+	private final Rectangle myMaxSize;
+	
+	/** The budget of image memory, in permits of PIXELS_PER_PERMIT pixels. */
+	private final Semaphore myPixels;
+	
+	/** The number of permits in the budget of image memory. */
+	private final int myPixelPermits;
+	
+	/**
+	 * Constructs a new PowerPaintBatch.
+	 *
+	 * @param theRenderer is the renderer drawing every image's tiles.
+	 * @param theOutput is the directory images are written into, or null.
+	 * @param theSize is the fixed size of every image, or null.
+	 * @param theMaxSize is the largest size an image grows to.
+	 */
+	private PowerPaintBatch(final TileRenderer theRenderer, final Path theOutput,
+			                final Rectangle theSize, final Rectangle theMaxSize) {
+		myRenderer = theRenderer;
+		myOutput = theOutput;
+		mySize = theSize;
+		myMaxSize = theMaxSize;
+		final long pixels = Runtime.getRuntime().maxMemory() / IMAGE_HEAP_DIVISOR
+				            / Integer.BYTES;
+		myPixelPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE,
+				                                    pixels / PIXELS_PER_PERMIT));
+		myPixels = new Semaphore(myPixelPermits, true);
+	}
+	
+	/**
+	 * The starting point of the batch renderer. Renders every .shp file named by the
+	 * arguments and exits with a non-zero status if any could not be rendered.
+	 *
+	 * @param theArgs are the options and the files and directories to render.
+	 * @throws InterruptedException if interrupted while waiting for the workers.
+	 */
+	public static void main(final String[] theArgs) throws InterruptedException {
+		System.setProperty("java.awt.headless", Boolean.TRUE.toString());
+		PowerPaintMain.configureRenderer();
+		Path output = null;
+		Rectangle size = null;
+		Rectangle maxSize = new Rectangle(MAX_SIZE, MAX_SIZE);
+		int workers = Runtime.getRuntime().availableProcessors();
+		final List<Path> files = new ArrayList<Path>();
+		try {
+			for (int i = 0; i < theArgs.length; i++) {
+				if ("-o".equals(theArgs[i]) && i + 1 < theArgs.length) {
+					output = Files.createDirectories(Paths.get(theArgs[++i]));
+				} else if ("-j".equals(theArgs[i]) && i + 1 < theArgs.length) {
+					workers = Integer.parseInt(theArgs[++i]);
+				} else if ("-s".equals(theArgs[i]) && i + 1 < theArgs.length) {
+					size = parseSize(theArgs[++i]);
+				} else if ("-m".equals(theArgs[i]) && i + 1 < theArgs.length) {
+					maxSize = parseSize(theArgs[++i]);
+				} else {
+					addFiles(Paths.get(theArgs[i]), files);
+				}
+			}
+			if (files.isEmpty() || workers < 1) {
+				throw new IllegalArgumentException("No files to render!");
+			}
+			checkTargets(files, output);
+		} catch (final IOException | IllegalArgumentException ex) {
+			System.err.println(ex.getMessage());
+			System.err.println(USAGE);
+			System.exit(USAGE_STATUS);
+		}
+		final ForkJoinPool pool = 
+				new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		final boolean rendered = new PowerPaintBatch(new TileRenderer(pool), output, size,
+				                                     maxSize).renderAll(files, workers);
+		pool.shutdown();
+		if (!rendered) {
+			System.exit(FAILURE_STATUS);
+		}
+	}
+	
+	/**
+	 * Parses an image size of the form WIDTHxHEIGHT.
+	 *
+	 * @param theSize is the size.
+	 * @return a Rectangle at the origin of that size.
+	 * @throws IllegalArgumentException if theSize is not a valid image size.
+	 */
+	private static Rectangle parseSize(final String theSize) {
+		final String[] parts = theSize.split("x");
+		if (parts.length != 2) {
+			throw new IllegalArgumentException("Invalid size: " + theSize);
+		}
+		final Rectangle size = new Rectangle(Integer.parseInt(parts[0]),
+				                             Integer.parseInt(parts[1]));
+		if (size.isEmpty()) {
+			throw new IllegalArgumentException("Invalid size: " + theSize);
+		}
+		return size;
+	}
+	
+	/**
+	 * Adds a file to the files to render, or every .shp file within a directory.
+	 *
+	 * @param thePath is the file or directory.
+	 * @param theFiles are the files to render.
+	 * @throws IOException if a directory cannot be listed.
+	 */
+	private static void addFiles(final Path thePath, final List<Path> theFiles)
+			throws IOException {
+		if (Files.isDirectory(thePath)) {
+			final List<Path> found = new ArrayList<Path>();
+			try (DirectoryStream<Path> directory =
+					Files.newDirectoryStream(thePath, "*" + SHP_EXTENSION)) {
+				for (final Path file : directory) {
+					found.add(file);
+				}
+			}
+			found.sort(null);
+			theFiles.addAll(found);
+		} else {
+			theFiles.add(thePath);
+		}
+	}
+	
+	/**
+	 * Checks that no two files to render would be written to the same image.
+	 *
+	 * @param theFiles are the files to render.
+	 * @param theOutput is the directory images are written into, or null.
+	 * @throws IllegalArgumentException if two files would be written to one image.
+	 */
+	private static void checkTargets(final List<Path> theFiles, final Path theOutput) {
+		final Map<Path, Path> sources = new HashMap<Path, Path>();
+		for (final Path file : theFiles) {
+			final Path target = getTarget(file, theOutput).toAbsolutePath().normalize();
+			final Path other = sources.putIfAbsent(target, file);
+			if (other != null) {
+				throw new IllegalArgumentException(other + " and " + file + " would "
+				                                   + "both be rendered to " + target);
+			}
+		}
+	}
+	
+	/**
+	 * Renders every provided file on a fixed number of worker threads, printing a
+	 * line as each completes and the total throughput at the end.
+	 *
+	 * @param theFiles are the files.
+	 * @param theWorkers is the number of worker threads.
+	 * @return true if every file was rendered, false otherwise.
+	 * @throws InterruptedException if interrupted while waiting for the workers.
+	 */
+	private boolean renderAll(final List<Path> theFiles, final int theWorkers)
+			throws InterruptedException {
+		final ExecutorService executor = Executors.newFixedThreadPool(theWorkers);
+		final List<Future<long[]>> results = new ArrayList<Future<long[]>>();
+		final long start = System.nanoTime();
+		for (final Path file : theFiles) {
+			results.add(executor.submit(() -> render(file)));
+		}
+		long shapes = 0;
+		long bytes = 0;
+		int failures = 0;
+		for (int i = 0; i < results.size(); i++) {
+			try {
+				final long[] result = results.get(i).get();
+				shapes += result[0];
+				bytes += result[1];
+			} catch (final ExecutionException ex) {
+				System.err.println("Could not render " + theFiles.get(i) + ": "
+				                   + ex.getCause());
+				failures++;
+			}
+		}
+		final double seconds = (System.nanoTime() - start) / NANOS_PER_SECOND;
+		executor.shutdown();
+		final int rendered = theFiles.size() - failures;
+		System.out.printf("Rendered %d of %d files (%d Shapes, %.1f MiB) in %.2f s "
+				          + "on %d workers: %.1f files/s, %.0f Shapes/s, %.1f MiB/s%n",
+				          rendered, theFiles.size(), shapes, bytes / MEBIBYTE, seconds,
+				          theWorkers, rendered / seconds, shapes / seconds,
+				          bytes / MEBIBYTE / seconds);
+		return failures == 0;
+	}
+	
+	/**
+	 * Reads a .shp file, renders its Shapes, and writes the image, waiting first for
+	 * the image to fit within the budget of image memory.
+	 *
+	 * @param theFile is the .shp file.
+	 * @return the number of Shapes rendered and the size of the file in bytes.
+	 * @throws IOException if the file cannot be read or the image written.
+	 * @throws InterruptedException if interrupted while waiting for image memory.
+	 */
+	private long[] render(final Path theFile) throws IOException, InterruptedException {
+		final long start = System.nanoTime();
+		final long bytes = Files.size(theFile);
+		final ShapeStore shapes = ShapeFile.read(theFile);
+		final ShapeIndex index = new ShapeIndex();
+		final Rectangle extent = new Rectangle(DEFAULT_WIDTH, DEFAULT_HEIGHT);
+		for (int i = 0; i < shapes.size(); i++) {
+			final Rectangle bounds = shapes.getStrokeBounds(i);
+			index.add(bounds);
+			extent.add(bounds);
+		}
+		final int width;
+		final int height;
+		if (mySize == null) {
+			width = Math.min(myMaxSize.width, extent.x + extent.width);
+			height = Math.min(myMaxSize.height, extent.y + extent.height);
+		} else {
+			width = mySize.width;
+			height = mySize.height;
+		}
+		final long pixels = (long) width * height + PIXELS_PER_PERMIT - 1;
+		final int permits = (int) Math.min(myPixelPermits, pixels / PIXELS_PER_PERMIT);
+		final Path target = getTarget(theFile, myOutput);
+		myPixels.acquire(permits);
+		try {
+			final BufferedImage image = new BufferedImage(width, height,
+					                                      BufferedImage.TYPE_INT_RGB);
+			myRenderer.render(image, BACKGROUND, shapes, index);
+			if (!ImageIO.write(image, IMAGE_FORMAT, target.toFile())) {
+				throw new IOException("No writer for format " + IMAGE_FORMAT);
+			}
+		} finally {
+			myPixels.release(permits);
+		}
+		System.out.printf("%s -> %s (%d Shapes, %dx%d, %.1f ms)%n", theFile, target,
+				          shapes.size(), width, height,
+				          (System.nanoTime() - start) / NANOS_PER_MILLI);
+		return new long[] {shapes.size(), bytes};
+	}
+	
+	/**
+	 * Provides the path the image of a .shp file is written to.
+	 *
+	 * @param theFile is the .shp file.
+	 * @param theOutput is the directory images are written into, or null.
+	 * @return the path of the image.
+	 */
+	private static Path getTarget(final Path theFile, final Path theOutput) {
+		String name = theFile.getFileName().toString();
+		if (name.endsWith(SHP_EXTENSION)) {
+			name = name.substring(0, name.length() - SHP_EXTENSION.length());
+		}
+		name += "." + IMAGE_FORMAT;
+		final Path target;
+		if (theOutput == null) {
+			target = theFile.resolveSibling(name);
+		} else {
+			target = theOutput.resolve(name);
+		}
+		return target;
+	}
+}
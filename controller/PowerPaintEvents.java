@@ -0,0 +1,257 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A PowerPaintEvents class holding the Flight Recorder events of PowerPaint.
+ */
+
+package controller;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This program holds the Java Flight Recorder events emitted by PowerPaint, so that
+ * a recording shows what the user was doing alongside the JVM's own events: each
+ * frame painted by a DrawPanel, each Shape committed, each undo and redo, and each
+ * .shp file saved or loaded. Every event is timed from its begin() to its end().
+ *
+ * The events are disabled unless a recording enables them, as the PowerPaint.jfc
+ * settings beside this class do. While they are disabled, their begin(), end(),
+ * shouldCommit(), and commit() methods do nothing, and an event that is not
+ * committed is never allocated once the caller is compiled. Callers set an
+ * event's fields only once shouldCommit() returns true.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class PowerPaintEvents {
+	
+	/** The category every PowerPaint event is listed under. */
+	private static final String CATEGORY = "PowerPaint";
+	
+	/** Prevents instantiation of this utility class. */
+	private PowerPaintEvents() {
+		throw new IllegalStateException();
+	}
+
+/**
+ * An event recording a frame painted by a DrawPanel.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+@Name("powerpaint.Paint")
+@Label("Paint")
+@Description("A frame painted by a DrawPanel")
+@Category(CATEGORY)
+@StackTrace(false)
+public static final class PaintEvent extends Event {
+	
+	/** The number of committed Shapes drawn while painting the frame. */
+	@Name("shapesPainted")
+	@Label("Shapes Painted")
+	private int myShapesPainted;
+	
+	/** The number of committed Shapes skipped while painting the frame. */
+	@Name("shapesCulled")
+	@Label("Shapes Culled")
+	private int myShapesCulled;
+	
+	/** The area of the region painted, in pixels. */
+	@Name("clipArea")
+	@Label("Clip Area")
+	@Description("The area of the region painted, in pixels")
+	private long myClipArea;
+	
+	/**
+	 * Sets the fields of this PaintEvent.
+	 *
+	 * @param theShapesPainted is the number of committed Shapes drawn.
+	 * @param theShapesCulled is the number of committed Shapes skipped.
+	 * @param theClipArea is the area of the region painted, in pixels.
+	 */
+	public void set(final int theShapesPainted, final int theShapesCulled,
+			        final long theClipArea) {
+		myShapesPainted = theShapesPainted;
+		myShapesCulled = theShapesCulled;
+		myClipArea = theClipArea;
+	}
+}
+
+/**
+ * An event recording a Shape drawn by the user and committed to a DrawPanel.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+@Name("powerpaint.Commit")
+@Label("Stroke Commit")
+@Description("A Shape drawn by the user and committed to a DrawPanel")
+@Category(CATEGORY)
+public static final class CommitEvent extends Event {
+	
+	/** The name of the PaintTool the Shape was drawn with. */
+	@Name("tool")
+	@Label("Tool")
+	private String myTool;
+	
+	/** The number of segments in the Shape's outline. */
+	@Name("segments")
+	@Label("Segments")
+	private int mySegments;
+	
+	/**
+	 * Sets the fields of this CommitEvent.
+	 *
+	 * @param theTool is the name of the PaintTool the Shape was drawn with.
+	 * @param theSegments is the number of segments in the Shape's outline.
+	 */
+	public void set(final String theTool, final int theSegments) {
+		myTool = theTool;
+		mySegments = theSegments;
+	}
+}
+
+/**
+ * An event recording a group of Shapes undone on a DrawPanel.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+@Name("powerpaint.Undo")
+@Label("Undo")
+@Description("A group of Shapes undone on a DrawPanel")
+@Category(CATEGORY)
+public static final class UndoEvent extends Event {
+	
+	/** The number of Shapes in the group. */
+	@Name("groupSize")
+	@Label("Group Size")
+	private int myGroupSize;
+	
+	/**
+	 * Sets the fields of this UndoEvent.
+	 *
+	 * @param theGroupSize is the number of Shapes undone.
+	 */
+	public void set(final int theGroupSize) {
+		myGroupSize = theGroupSize;
+	}
+}
+
+/**
+ * An event recording a group of Shapes redone on a DrawPanel.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+@Name("powerpaint.Redo")
+@Label("Redo")
+@Description("A group of Shapes redone on a DrawPanel")
+@Category(CATEGORY)
+public static final class RedoEvent extends Event {
+	
+	/** The number of Shapes in the group. */
+	@Name("groupSize")
+	@Label("Group Size")
+	private int myGroupSize;
+	
+	/**
+	 * Sets the fields of this RedoEvent.
+	 *
+	 * @param theGroupSize is the number of Shapes redone.
+	 */
+	public void set(final int theGroupSize) {
+		myGroupSize = theGroupSize;
+	}
+}
+
+/**
+ * An event recording a .shp file written.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+@Name("powerpaint.Save")
+@Label("Save")
+@Description("A .shp file written")
+@Category(CATEGORY)
+public static final class SaveEvent extends Event {
+	
+	/** The path of the file. */
+	@Name("path")
+	@Label("Path")
+	private String myPath;
+	
+	/** The size of the file. */
+	@Name("bytes")
+	@Label("Bytes")
+	@DataAmount
+	private long myBytes;
+	
+	/** The number of Shapes written. */
+	@Name("shapes")
+	@Label("Shapes")
+	private int myShapes;
+	
+	/**
+	 * Sets the fields of this SaveEvent.
+	 *
+	 * @param thePath is the path of the file.
+	 * @param theBytes is the size of the file.
+	 * @param theShapes is the number of Shapes written.
+	 */
+	public void set(final String thePath, final long theBytes, final int theShapes) {
+		myPath = thePath;
+		myBytes = theBytes;
+		myShapes = theShapes;
+	}
+}
+
+/**
+ * An event recording a .shp file read.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+@Name("powerpaint.Load")
+@Label("Load")
+@Description("A .shp file read")
+@Category(CATEGORY)
+public static final class LoadEvent extends Event {
+	
+	/** The path of the file. */
+	@Name("path")
+	@Label("Path")
+	private String myPath;
+	
+	/** The size of the file. */
+	@Name("bytes")
+	@Label("Bytes")
+	@DataAmount
+	private long myBytes;
+	
+	/** The number of Shapes read. */
+	@Name("shapes")
+	@Label("Shapes")
+	private int myShapes;
+	
+	/**
+	 * Sets the fields of this LoadEvent.
+	 *
+	 * @param thePath is the path of the file.
+	 * @param theBytes is the size of the file.
+	 * @param theShapes is the number of Shapes read.
+	 */
+	public void set(final String thePath, final long theBytes, final int theShapes) {
+		myPath = thePath;
+		myBytes = theBytes;
+		myShapes = theShapes;
+	}
+}
+}
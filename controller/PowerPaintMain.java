@@ -6,6 +6,12 @@
 
 package controller;
 
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 import javax.swing.JFrame;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
@@ -20,13 +26,30 @@ import view.PowerPaintFrame;
  */
 public final class PowerPaintMain {
 	
+	/** The Java2D property enabling geometric clipping of paths before rasterization. */
+	private static final String RENDERER_CLIP = "sun.java2d.renderer.clip";
+	
+	/** The directory, within the user's home directory, holding the journal. */
+	private static final String JOURNAL_DIRECTORY = ".powerpaint";
+	
+	/** The name of the journal file recording the drawing. */
+	private static final String JOURNAL_FILE = "drawing.journal";
+	
+	/** The name of the journal file of each further running PowerPaint. */
+	private static final String NUMBERED_JOURNAL_FILE = "drawing-%d.journal";
+	
+	/** The most journal files tried before PowerPaint runs without one. */
+	private static final int MAX_JOURNALS = 16;
+	
 	/**
-	 * The starting point of the Power Paint program. Configures the LookAndFeel
-	 * and instantiates a new PowerPaintFrame. 
+	 * The starting point of the Power Paint program. Configures the LookAndFeel,
+	 * recovers the drawing recorded in the journal, and instantiates a new
+	 * PowerPaintFrame showing it. 
 	 * 
 	 * @param theArgs are command line arguments - unused.
 	 */
 	public final static void main(final String[] theArgs) {
+		configureRenderer();
 		try {
             UIManager.setLookAndFeel("javax.swing.plaf.metal.MetalLookAndFeel");
         } catch (final UnsupportedLookAndFeelException ex) {
@@ -39,6 +62,7 @@ public final class PowerPaintMain {
             ex.printStackTrace();
         }
         UIManager.put("swing.boldMetal", Boolean.FALSE);
+        final StrokeJournal journal = openJournal();
         
         javax.swing.SwingUtilities.invokeLater(new Runnable() {
         	
@@ -48,11 +72,71 @@ public final class PowerPaintMain {
         	@Override
             public final void run() {
                 final PowerPaintFrame mainFrame = new PowerPaintFrame();
+                if (journal != null) {
+                	mainFrame.setJournal(journal);
+                }
                 mainFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
                 mainFrame.setLocationRelativeTo(null);
                 mainFrame.pack();
                 mainFrame.setVisible(true);
+                if (journal == null) {
+                	mainFrame.showJournalUnavailable();
+                }
             }
         });
 	}
+	
+	/**
+	 * Opens the journal in the user's home directory, replaying it to recover the
+	 * drawing it records, and closes it when the program ends so that every change
+	 * recorded is written. If another running PowerPaint holds the journal, the
+	 * first numbered journal no other PowerPaint holds is opened instead. Nothing is
+	 * reported here; the PowerPaintFrame tells the user once if there is no journal.
+	 * 
+	 * @return the journal, or null if it cannot be opened.
+	 */
+	private static StrokeJournal openJournal() {
+		StrokeJournal journal = null;
+		try {
+			final Path directory = Paths.get(System.getProperty("user.home"), 
+					                         JOURNAL_DIRECTORY);
+			Files.createDirectories(directory);
+			for (int i = 1; journal == null && i <= MAX_JOURNALS; i++) {
+				String name = JOURNAL_FILE;
+				if (i > 1) {
+					name = String.format(NUMBERED_JOURNAL_FILE, i);
+				}
+				try {
+					journal = new StrokeJournal(directory.resolve(name));
+				} catch (final AccessDeniedException ex) {
+					// Another running PowerPaint holds it, so the next one is tried.
+					journal = null;
+				}
+			}
+		} catch (final IOException ex) {
+			// The drawing is not recorded, which the PowerPaintFrame reports.
+			journal = null;
+		}
+		if (journal != null) {
+			final StrokeJournal opened = journal;
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					opened.close();
+				} catch (final InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}));
+		}
+		return journal;
+	}
+	
+	/**
+	 * Disables Java2D's geometric path clipping so that a Shape is rasterized to the
+	 * same pixels whatever clip it is drawn through. DrawPanel redraws dirty regions
+	 * and tiles of its committed image through clips and relies on the result being
+	 * identical to a complete redraw. This must run before anything is rendered.
+	 */
+	public static void configureRenderer() {
+		System.setProperty(RENDERER_CLIP, Boolean.FALSE.toString());
+	}
 }
@@ -0,0 +1,1845 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A ShapeFile class to save and load the Shapes drawn on a DrawPanel.
+ */
+
+package controller;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import tools.Polyline;
+import tools.ShapeAttributeContainer;
+
+/**
+ * This program saves the contents of a ShapeStore to a .shp file in a compact,
+ * spatially indexed binary format, and loads .shp files in that format, in the
+ * earlier version 2 format, or in the original format written by Java object
+ * serialization.
+ *
+ * A version 3 file holds, in order:
+ *
+ * - A header: the bytes 'P' 'P' 'S' 'H', the version number 3 as a byte, the
+ *   number of Shapes, and the number of styles.
+ * - A style table: for each distinct combination of outline Color, fill Color,
+ *   stroke width, and flags, the ARGB outline and fill Colors as ints, the stroke
+ *   width as a byte, and a flags byte (1: filled, 2: drawn in 'erase' mode).
+ * - The chunks: the Shapes grouped by the square cell of the drawing the centre
+ *   of their stroke falls in, at most 1024 to a chunk. Each chunk holds its number
+ *   of Shapes followed by a record for each, in drawing order. A record begins
+ *   with the Shape's position in the drawing order, as the number of positions
+ *   skipped since the previous record of the chunk.
+ * - An index: the number of chunks, and for each its offset as a long, its length
+ *   in bytes, its number of Shapes, and the x, y, width, and height of the region
+ *   its Shapes cover when drawn.
+ * - A trailer: the offset of the index as a long, followed by 'P' 'P' 'S' 'H'.
+ *
+ * A Shape record then holds a tag byte with the Shape's kind (with bit 0x80 set if
+ * its coordinates are stored as floats), the index of its style, and its ID number
+ * as the difference from the previous record's ID number, followed by its
+ * coordinates. Lines, rectangles, ellipses, and Polylines whose coordinates are all
+ * small integers store them as differences: the first Point from the previous
+ * record's first Point, and each later Point from the Point before it, except that
+ * the width and height of a rectangle or ellipse are stored as they are. Polylines
+ * store their number of Points first. Any other Shape is stored as a path: its
+ * winding rule byte, its number of segments, and each segment's type byte followed
+ * by its coordinates as doubles. The first record of every chunk is stored relative
+ * to an ID number and Point of 0, so that each chunk can be decoded on its own.
+ * Counts and indices are unsigned varints; differences are zig-zag encoded signed
+ * varints. All multi-byte values are big-endian.
+ *
+ * A version 2 file holds the same header and style table followed by every Shape
+ * record in drawing order, without positions, chunks, or an index. Version 2 is
+ * still written for the records of a StrokeJournal, which are too small to gain
+ * from an index.
+ *
+ * A version 3 file may be loaded in part for viewing: only the chunks whose region
+ * meets a requested area are mapped into memory and decoded, and their Shapes are
+ * merged back into drawing order. A drawing to be edited is always loaded in full,
+ * so that saving it again keeps every Shape. Files in older formats are always
+ * loaded in full. Files in the original format are read through a filter that
+ * rejects any class other than those of a saved Shape list.
+ *
+ * A file may also be read a batch at a time through a Reader. The Shapes of a
+ * version 2 file are provided as their records are decoded; those of a version 3
+ * file once every chunk has been decoded, as only then are they in drawing order,
+ * though the Reader reports its progress through the file as it decodes them; and
+ * those of an original format file once it has been read.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class ShapeFile {
+	
+	/** The version number of the files written by this class. */
+	public static final int VERSION = 3;
+	
+	/** The version number of files holding every Shape record in drawing order. */
+	private static final int UNCHUNKED_VERSION = 2;
+	
+	/** The bytes that begin and end every file written by this class. */
+	private static final byte[] MAGIC = {'P', 'P', 'S', 'H'};
+	
+	/** The first two bytes of a stream written by Java object serialization. */
+	private static final int SERIAL_MAGIC = 0xACED;
+	
+	/** The kind tag of a Shape stored as a path. */
+	private static final int PATH = ShapeStore.OTHER;
+	
+	/** The tag bit marking Shape coordinates stored as floats. */
+	private static final int FLOAT_COORDS = 0x80;
+	
+	/** The style flag marking a filled Shape. */
+	private static final int FILLED = 1;
+	
+	/** The style flag marking a Shape drawn in 'erase' mode. */
+	private static final int ERASER = 2;
+	
+	/** The largest magnitude of a coordinate stored as an integer. */
+	private static final int MAX_INT_COORD = 1 << 24;
+	
+	/** The width and height of the cells Shapes are grouped into chunks by. */
+	private static final int CELL_SIZE = 256;
+	
+	/** The largest number of Shapes in a chunk. */
+	private static final int CHUNK_SHAPES = 1024;
+	
+	/** The number of bytes in the header before the number of Shapes. */
+	private static final int PREFIX_SIZE = MAGIC.length + 1;
+	
+	/** The number of bytes in the trailer. */
+	private static final int TRAILER_SIZE = Long.BYTES + MAGIC.length;
+	
+	/** The number of varints in an index entry after the chunk's offset. */
+	private static final int INDEX_VARINTS = 6;
+	
+	/** The size of the buffers used to read and write files. */
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	/** The suffix of the temporary file a file is written to before replacing it. */
+	private static final String SAVE_SUFFIX = ".tmp";
+	
+	/** The size of the buffer used to write a few Shapes in the version 2 format. */
+	private static final int RECORD_BUFFER_SIZE = 1 << 10;
+	
+	/** The number of coordinates of a line, rectangle, or ellipse. */
+	private static final int FRAME_COORDS = 4;
+	
+	/** The number of payload bits in each byte of a varint. */
+	private static final int VARINT_BITS = 7;
+	
+	/** The bits of a varint byte holding payload. */
+	private static final int VARINT_PAYLOAD = 0x7F;
+	
+	/** The bit of a varint byte marking that another byte follows. */
+	private static final int VARINT_MORE = 0x80;
+	
+	/** The largest number of bytes in a varint. */
+	private static final int MAX_VARINT_BYTES = 5;
+	
+	/** The largest number of coordinates in a path segment. */
+	private static final int MAX_SEGMENT_COORDS = 6;
+	
+	/** The classes that may appear in a file in the original format. */
+	private static final ObjectInputFilter LEGACY_FILTER =
+			ObjectInputFilter.Config.createFilter("java.lang.Object;java.util.ArrayList;"
+					+ "java.util.Stack;"
+					+ "java.util.Vector;java.lang.Number;java.lang.Integer;"
+					+ "tools.ShapeAttributeContainer;tools.Polyline;java.awt.Color;"
+					+ "java.awt.Rectangle;java.awt.geom.*;java.awt.color.*;!*");
+	
+	/** Prevents instantiation of this utility class. */
+	private ShapeFile() {
+		throw new IllegalStateException();
+	}
+	
+	/**
+	 * Writes the Shapes of a ShapeStore to a file in the version 3 format,
+	 * replacing any existing file. The Shapes are written to a temporary file beside
+	 * it, forced to the storage device, and then moved over the file atomically, so
+	 * a failed or interrupted write leaves any existing file whole. A SaveEvent is
+	 * committed to any recording enabling it.
+	 *
+	 * @param thePath is the path of the file.
+	 * @param theShapes are the Shapes to be written.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static void write(final Path thePath, final ShapeStore theShapes)
+			throws IOException {
+		final PowerPaintEvents.SaveEvent event = new PowerPaintEvents.SaveEvent();
+		event.begin();
+		final Path temp = thePath.resolveSibling(thePath.getFileName() + SAVE_SUFFIX);
+		final long size;
+		try {
+			try (FileChannel channel = FileChannel.open(temp,
+					StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+					StandardOpenOption.WRITE)) {
+				write(channel, theShapes);
+				channel.force(false);
+				size = channel.size();
+			}
+			Files.move(temp, thePath, StandardCopyOption.REPLACE_EXISTING,
+					   StandardCopyOption.ATOMIC_MOVE);
+		} catch (final IOException ex) {
+			try {
+				Files.deleteIfExists(temp);
+			} catch (final IOException suppressed) {
+				ex.addSuppressed(suppressed);
+			}
+			throw ex;
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.set(thePath.toString(), size, theShapes.size());
+			event.commit();
+		}
+	}
+	
+	/**
+	 * Writes the Shapes of a ShapeStore to a channel in the version 3 format.
+	 *
+	 * @param theChannel is the channel.
+	 * @param theShapes are the Shapes to be written.
+	 * @throws IOException if the channel cannot be written.
+	 */
+	public static void write(final WritableByteChannel theChannel,
+			                 final ShapeStore theShapes) throws IOException {
+		final Output out = new Output(theChannel);
+		final int[] styleOf = writeHeader(out, theShapes, VERSION);
+		final int[] cellOf = new int[theShapes.size()];
+		final int[] order = orderByCell(theShapes, cellOf);
+		final ShapeStore.Geometry geometry = new ShapeStore.Geometry();
+		final List<Chunk> chunks = new ArrayList<Chunk>();
+		int next = 0;
+		while (next < order.length) {
+			int end = next + 1;
+			while (end < order.length && end - next < CHUNK_SHAPES
+				   && cellOf[order[end]] == cellOf[order[next]]) {
+				end++;
+			}
+			chunks.add(writeChunk(out, theShapes, order, next, end, styleOf, geometry));
+			next = end;
+		}
+		final long index = out.getPosition();
+		out.putVarint(chunks.size());
+		for (final Chunk chunk : chunks) {
+			out.putLong(chunk.myOffset);
+			out.putVarint(chunk.myLength);
+			out.putVarint(chunk.myCount);
+			out.putSigned(chunk.myBounds.x);
+			out.putSigned(chunk.myBounds.y);
+			out.putVarint(chunk.myBounds.width);
+			out.putVarint(chunk.myBounds.height);
+		}
+		out.putLong(index);
+		out.putBytes(MAGIC);
+		out.flush();
+	}
+	
+	/**
+	 * Writes the Shapes of a ShapeStore to a channel in the version 2 format, through
+	 * a small heap buffer suited to writing only a few Shapes at a time.
+	 *
+	 * @param theChannel is the channel.
+	 * @param theShapes are the Shapes to be written.
+	 * @throws IOException if the channel cannot be written.
+	 */
+	static void writeUnchunked(final WritableByteChannel theChannel,
+			                   final ShapeStore theShapes) throws IOException {
+		final Output out = new Output(theChannel, ByteBuffer.allocate(RECORD_BUFFER_SIZE));
+		final int[] styleOf = writeHeader(out, theShapes, UNCHUNKED_VERSION);
+		final ShapeStore.Geometry geometry = new ShapeStore.Geometry();
+		final Anchor anchor = new Anchor();
+		for (int i = 0; i < theShapes.size(); i++) {
+			writeShape(out, theShapes, i, styleOf[i], anchor, geometry);
+		}
+		out.flush();
+	}
+	
+	/**
+	 * Writes the header and style table of a file.
+	 *
+	 * @param theOut is the Output being written.
+	 * @param theShapes are the Shapes to be written.
+	 * @param theVersion is the version number of the file.
+	 * @return the index in the style table of each Shape's style.
+	 * @throws IOException if the Output cannot be written.
+	 */
+	private static int[] writeHeader(final Output theOut, final ShapeStore theShapes,
+			                         final int theVersion) throws IOException {
+		final Map<Style, Integer> indices = new HashMap<Style, Integer>();
+		final List<Style> styles = new ArrayList<Style>();
+		final int[] styleOf = new int[theShapes.size()];
+		for (int i = 0; i < theShapes.size(); i++) {
+			final Style style = new Style(theShapes, i);
+			Integer index = indices.get(style);
+			if (index == null) {
+				index = styles.size();
+				indices.put(style, index);
+				styles.add(style);
+			}
+			styleOf[i] = index;
+		}
+		theOut.putBytes(MAGIC);
+		theOut.putByte(theVersion);
+		theOut.putVarint(theShapes.size());
+		theOut.putVarint(styles.size());
+		for (final Style style : styles) {
+			theOut.putInt(style.myOutline);
+			theOut.putInt(style.myFill);
+			theOut.putByte(style.myWidth);
+			theOut.putByte(style.myFlags);
+		}
+		return styleOf;
+	}
+	
+	/**
+	 * Provides the indices of the Shapes of a ShapeStore ordered by the cell the
+	 * centre of their stroke falls in, and by drawing order within each cell.
+	 *
+	 * @param theShapes are the Shapes.
+	 * @param theCellOf receives the number of the cell of each Shape.
+	 * @return the ordered indices.
+	 */
+	private static int[] orderByCell(final ShapeStore theShapes, final int[] theCellOf) {
+		final Map<Long, Integer> cells = new HashMap<Long, Integer>();
+		int[] counts = new int[CHUNK_SHAPES];
+		for (int i = 0; i < theShapes.size(); i++) {
+			final Rectangle bounds = theShapes.getStrokeBounds(i);
+			final long column = Math.floorDiv(bounds.x + bounds.width / 2, CELL_SIZE);
+			final long row = Math.floorDiv(bounds.y + bounds.height / 2, CELL_SIZE);
+			final Long key = column << Integer.SIZE | row & 0xFFFFFFFFL;
+			Integer cell = cells.get(key);
+			if (cell == null) {
+				cell = cells.size();
+				cells.put(key, cell);
+				if (cell == counts.length) {
+					counts = Arrays.copyOf(counts, cell * 2);
+				}
+			}
+			theCellOf[i] = cell;
+			counts[cell]++;
+		}
+		int start = 0;
+		for (int cell = 0; cell < cells.size(); cell++) {
+			final int count = counts[cell];
+			counts[cell] = start;
+			start += count;
+		}
+		final int[] order = new int[theShapes.size()];
+		for (int i = 0; i < theShapes.size(); i++) {
+			order[counts[theCellOf[i]]++] = i;
+		}
+		return order;
+	}
+	
+	/**
+	 * Writes a chunk holding a run of ordered Shapes.
+	 *
+	 * @param theOut is the Output being written.
+	 * @param theShapes is the ShapeStore holding the Shapes.
+	 * @param theOrder are the ordered indices of the Shapes.
+	 * @param theFrom is the first position in theOrder of the chunk's Shapes.
+	 * @param theTo is the position in theOrder after the chunk's last Shape.
+	 * @param theStyleOf holds the index of each Shape's style.
+	 * @param theGeometry holds reusable geometry for Shapes stored as paths.
+	 * @return the index entry of the chunk.
+	 * @throws IOException if the Output cannot be written.
+	 */
+	private static Chunk writeChunk(final Output theOut, final ShapeStore theShapes,
+			                        final int[] theOrder, final int theFrom,
+			                        final int theTo, final int[] theStyleOf,
+			                        final ShapeStore.Geometry theGeometry)
+			throws IOException {
+		final long offset = theOut.getPosition();
+		final Anchor anchor = new Anchor();
+		final Rectangle bounds = theShapes.getStrokeBounds(theOrder[theFrom]);
+		int previous = -1;
+		theOut.putVarint(theTo - theFrom);
+		for (int k = theFrom; k < theTo; k++) {
+			final int i = theOrder[k];
+			theOut.putVarint(i - previous - 1);
+			previous = i;
+			writeShape(theOut, theShapes, i, theStyleOf[i], anchor, theGeometry);
+			bounds.add(theShapes.getStrokeBounds(i));
+		}
+		return new Chunk(offset, Math.toIntExact(theOut.getPosition() - offset),
+				         theTo - theFrom, bounds);
+	}
+	
+	/**
+	 * Writes the record of a stored Shape.
+	 *
+	 * @param theOut is the Output being written.
+	 * @param theShapes is the ShapeStore holding the Shape.
+	 * @param theIndex is the index of the Shape.
+	 * @param theStyle is the index of the Shape's style.
+	 * @param theAnchor holds the values the record is stored relative to, and is
+	 * updated to this record's values.
+	 * @param theGeometry holds reusable geometry for Shapes stored as paths.
+	 * @throws IOException if the Output cannot be written.
+	 */
+	private static void writeShape(final Output theOut, final ShapeStore theShapes,
+			                       final int theIndex, final int theStyle,
+			                       final Anchor theAnchor,
+			                       final ShapeStore.Geometry theGeometry)
+			throws IOException {
+		final int kind = theShapes.getKind(theIndex);
+		final int count = theShapes.getCoordinateCount(theIndex);
+		final boolean integral = kind != PATH && isIntegral(theShapes, theIndex);
+		theOut.putByte(integral || kind == PATH ? kind : kind | FLOAT_COORDS);
+		theOut.putVarint(theStyle);
+		theOut.putSigned(theShapes.getID(theIndex) - theAnchor.myID);
+		theAnchor.myID = theShapes.getID(theIndex);
+		if (kind == ShapeStore.POLYLINE) {
+			theOut.putVarint(count / 2);
+		}
+		if (kind == PATH) {
+			writePath(theOut, theShapes.getShape(theIndex, theGeometry));
+		} else if (integral) {
+			int x = (int) theShapes.getCoordinate(theIndex, 0);
+			int y = (int) theShapes.getCoordinate(theIndex, 1);
+			theOut.putSigned(x - theAnchor.myX);
+			theOut.putSigned(y - theAnchor.myY);
+			theAnchor.myX = x;
+			theAnchor.myY = y;
+			for (int c = 2; c < count; c += 2) {
+				final int nextX = (int) theShapes.getCoordinate(theIndex, c);
+				final int nextY = (int) theShapes.getCoordinate(theIndex, c + 1);
+				if (kind == ShapeStore.RECTANGLE || kind == ShapeStore.ELLIPSE) {
+					theOut.putSigned(nextX);
+					theOut.putSigned(nextY);
+				} else {
+					theOut.putSigned(nextX - x);
+					theOut.putSigned(nextY - y);
+					x = nextX;
+					y = nextY;
+				}
+			}
+		} else {
+			for (int c = 0; c < count; c++) {
+				theOut.putFloat(theShapes.getCoordinate(theIndex, c));
+			}
+		}
+	}
+	
+	/**
+	 * Indicates whether every coordinate of a stored Shape is an integer small
+	 * enough to be stored as one.
+	 *
+	 * @param theShapes is the ShapeStore holding the Shape.
+	 * @param theIndex is the index of the Shape.
+	 * @return true if the Shape's coordinates may be stored as integers.
+	 */
+	private static boolean isIntegral(final ShapeStore theShapes, final int theIndex) {
+		boolean integral = true;
+		for (int c = 0; integral && c < theShapes.getCoordinateCount(theIndex); c++) {
+			final float value = theShapes.getCoordinate(theIndex, c);
+			integral = value == (int) value && Math.abs(value) <= MAX_INT_COORD;
+		}
+		return integral;
+	}
+	
+	/**
+	 * Writes a Shape as a path.
+	 *
+	 * @param theOut is the Output being written.
+	 * @param theShape is the Shape.
+	 * @throws IOException if the Output cannot be written.
+	 */
+	private static void writePath(final Output theOut, final Shape theShape)
+			throws IOException {
+		final double[] coords = new double[MAX_SEGMENT_COORDS];
+		int segments = 0;
+		for (PathIterator it = theShape.getPathIterator(null); !it.isDone(); it.next()) {
+			segments++;
+		}
+		final PathIterator iterator = theShape.getPathIterator(null);
+		theOut.putByte(iterator.getWindingRule());
+		theOut.putVarint(segments);
+		for (; !iterator.isDone(); iterator.next()) {
+			final int type = iterator.currentSegment(coords);
+			theOut.putByte(type);
+			for (int c = 0; c < getSegmentCoords(type); c++) {
+				theOut.putDouble(coords[c]);
+			}
+		}
+	}
+	
+	/**
+	 * Provides the number of coordinates of a path segment type.
+	 *
+	 * @param theType is the segment type.
+	 * @return the number of coordinates.
+	 * @throws IllegalArgumentException if theType is not a segment type.
+	 */
+	private static int getSegmentCoords(final int theType) {
+		final int coords;
+		switch (theType) {
+			case PathIterator.SEG_MOVETO:
+			case PathIterator.SEG_LINETO:
+				coords = 2;
+				break;
+			case PathIterator.SEG_QUADTO:
+				coords = 4;
+				break;
+			case PathIterator.SEG_CUBICTO:
+				coords = MAX_SEGMENT_COORDS;
+				break;
+			case PathIterator.SEG_CLOSE:
+				coords = 0;
+				break;
+			default:
+				throw new IllegalArgumentException("Invalid segment type: " + theType);
+		}
+		return coords;
+	}
+	
+	/**
+	 * Reads every Shape held in a .shp file in any format.
+	 *
+	 * @param thePath is the path of the file.
+	 * @return a ShapeStore holding the Shapes read, in drawing order.
+	 * @throws IOException if the file cannot be read or is not a valid .shp file.
+	 */
+	public static ShapeStore read(final Path thePath) throws IOException {
+		return read(thePath, null);
+	}
+	
+	/**
+	 * Reads the Shapes held in a .shp file that may be visible within the provided
+	 * area. Only the chunks of a version 3 file whose region meets theArea are mapped
+	 * into memory and decoded; files in older formats are read in full. A LoadEvent
+	 * is committed to any recording enabling it.
+	 *
+	 * The Shapes read with an area are a view of the drawing, such as the preview
+	 * shown while a file loads, and may omit Shapes outside theArea or part of a
+	 * group of Shapes sharing an ID. A drawing that may be edited and saved again
+	 * must be read in full.
+	 *
+	 * @param thePath is the path of the file.
+	 * @param theArea is the area, or null to read every Shape.
+	 * @return a ShapeStore holding the Shapes read, in drawing order.
+	 * @throws IOException if the file cannot be read or is not a valid .shp file.
+	 */
+	public static ShapeStore read(final Path thePath, final Rectangle2D theArea)
+			throws IOException {
+		try (Reader reader = open(thePath)) {
+			final ShapeStore shapes;
+			if (theArea != null && reader.isIndexed()) {
+				shapes = reader.readArea(theArea);
+			} else {
+				shapes = new ShapeStore();
+				reader.read(shapes, reader.getShapeCount());
+			}
+			return shapes;
+		}
+	}
+	
+	/**
+	 * Opens a .shp file in any format to be read a batch of Shapes at a time, so that
+	 * the Shapes read so far may be used while the rest are decoded.
+	 *
+	 * @param thePath is the path of the file.
+	 * @return a Reader positioned at the file's first Shape.
+	 * @throws IOException if the file cannot be opened or is not a valid .shp file.
+	 */
+	public static Reader open(final Path thePath) throws IOException {
+		final FileChannel channel = FileChannel.open(thePath, StandardOpenOption.READ);
+		try {
+			return new Reader(thePath, channel);
+		} catch (final IOException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+	
+	/**
+	 * Reads the first bytes of a file, as many as begin a version 2 or version 3
+	 * file, and moves the channel back to the start of the file.
+	 *
+	 * @param theChannel is the channel of the file.
+	 * @return a buffer holding the bytes read, ready to be read.
+	 * @throws IOException if the file cannot be read.
+	 */
+	private static ByteBuffer readPrefix(final FileChannel theChannel)
+			throws IOException {
+		final ByteBuffer start = ByteBuffer.allocate(PREFIX_SIZE);
+		int read = 0;
+		while (start.hasRemaining() && read >= 0) {
+			read = theChannel.read(start);
+		}
+		start.flip();
+		theChannel.position(0);
+		return start;
+	}
+	
+	/**
+	 * Indicates if a file begins as one written by Java object serialization.
+	 *
+	 * @param theStart holds the first bytes of the file.
+	 * @return true if the file is in the original format, false otherwise.
+	 */
+	private static boolean isLegacy(final ByteBuffer theStart) {
+		return theStart.remaining() >= 2
+			   && (theStart.getShort(0) & 0xFFFF) == SERIAL_MAGIC;
+	}
+	
+	/**
+	 * Reads every Shape held in a channel in the version 2 or version 3 format. As a
+	 * channel is read in order, every chunk of a version 3 file is decoded before
+	 * its Shapes are put in drawing order; a file is better read from its path.
+	 *
+	 * @param theChannel is the channel.
+	 * @return a ShapeStore holding the Shapes read, in drawing order.
+	 * @throws IOException if the channel cannot be read or does not hold a valid
+	 * version 2 or version 3 .shp file.
+	 */
+	public static ShapeStore read(final ReadableByteChannel theChannel)
+			throws IOException {
+		return read(new Input(theChannel));
+	}
+	
+	/**
+	 * Reads every Shape of a version 2 or version 3 file held in the remaining bytes
+	 * of a buffer, leaving the buffer positioned after the file.
+	 *
+	 * @param theBuffer is the buffer.
+	 * @return a ShapeStore holding the Shapes read, in drawing order.
+	 * @throws IOException if the buffer does not hold a valid version 2 or version 3
+	 * .shp file.
+	 */
+	static ShapeStore read(final ByteBuffer theBuffer) throws IOException {
+		return read(new Input(theBuffer));
+	}
+	
+	/**
+	 * Reads every Shape of a version 2 or version 3 file.
+	 *
+	 * @param theIn is the Input being read.
+	 * @return a ShapeStore holding the Shapes read, in drawing order.
+	 * @throws IOException if the Input cannot be read or does not hold a valid
+	 * version 2 or version 3 .shp file.
+	 */
+	private static ShapeStore read(final Input theIn) throws IOException {
+		final Header header = readHeader(theIn);
+		final Map<Integer, Color> colors = new HashMap<Integer, Color>();
+		final ShapeStore shapes;
+		if (header.myVersion == VERSION) {
+			final ShapeStore decoded = new ShapeStore();
+			int[] positions = new int[Math.min(header.myShapeCount, CHUNK_SHAPES)];
+			while (decoded.size() < header.myShapeCount) {
+				positions = readChunk(theIn, header, colors, decoded, positions);
+			}
+			skipIndex(theIn);
+			shapes = merge(decoded, positions);
+		} else {
+			shapes = new ShapeStore();
+			final Anchor anchor = new Anchor();
+			for (int i = 0; i < header.myShapeCount; i++) {
+				readShape(theIn, header.myStyles, colors, anchor, shapes);
+			}
+		}
+		return shapes;
+	}
+	
+	/**
+	 * Reads past the index of a version 3 file, checking that it is followed by a
+	 * complete trailer.
+	 *
+	 * @param theIn is the Input being read, positioned at the index.
+	 * @throws IOException if the Input cannot be read or ends first.
+	 */
+	private static void skipIndex(final Input theIn) throws IOException {
+		for (int c = theIn.getVarint(); c > 0; c--) {
+			theIn.getLong();
+			for (int v = 0; v < INDEX_VARINTS; v++) {
+				theIn.getVarint();
+			}
+		}
+		theIn.getLong();
+		for (final byte b : MAGIC) {
+			if (theIn.getByte() != b) {
+				throw new StreamCorruptedException("Missing .shp trailer");
+			}
+		}
+	}
+	
+	/**
+	 * Reads the index of a version 3 file, mapping only the index and the trailer
+	 * that locates it into memory.
+	 *
+	 * @param theChannel is the channel of the file.
+	 * @param theHeader is the header of the file.
+	 * @return the index entry of each chunk, in the order of the index.
+	 * @throws IOException if the file cannot be read or holds an invalid index.
+	 */
+	private static List<Chunk> readIndex(final FileChannel theChannel,
+			                             final Header theHeader) throws IOException {
+		final long size = theChannel.size();
+		if (size < PREFIX_SIZE + TRAILER_SIZE) {
+			throw new EOFException("Unexpected end of .shp file");
+		}
+		final ByteBuffer trailer = theChannel.map(FileChannel.MapMode.READ_ONLY,
+				                                  size - TRAILER_SIZE, TRAILER_SIZE);
+		final long index = trailer.getLong();
+		for (final byte b : MAGIC) {
+			if (trailer.get() != b) {
+				throw new StreamCorruptedException("Missing .shp trailer");
+			}
+		}
+		if (index < PREFIX_SIZE || index > size - TRAILER_SIZE) {
+			throw new StreamCorruptedException("Invalid index offset: " + index);
+		}
+		final Input in = new Input(theChannel.map(FileChannel.MapMode.READ_ONLY, index,
+				                                  size - TRAILER_SIZE - index));
+		final List<Chunk> chunks = new ArrayList<Chunk>();
+		long total = 0;
+		for (int c = in.getVarint(); c > 0; c--) {
+			final Chunk chunk = new Chunk(in.getLong(), in.getVarint(), in.getVarint(),
+					                      new Rectangle(in.getSigned(), in.getSigned(),
+					                                    in.getVarint(), in.getVarint()));
+			if (chunk.myOffset < PREFIX_SIZE || chunk.myLength < 0 || chunk.myCount <= 0
+				|| chunk.myOffset > index - chunk.myLength) {
+				throw new StreamCorruptedException("Invalid chunk: " + chunk.myOffset);
+			}
+			chunks.add(chunk);
+			total += chunk.myCount;
+		}
+		if (total != theHeader.myShapeCount) {
+			throw new StreamCorruptedException("Invalid chunk index");
+		}
+		return chunks;
+	}
+	
+	/**
+	 * Maps chunks of a version 3 file into memory and opens a Cursor on each, ready
+	 * to read its first Shape.
+	 *
+	 * @param theChannel is the channel of the file.
+	 * @param theChunks are the index entries of the chunks.
+	 * @param theShapeCount is the number of Shapes in the file.
+	 * @return a queue of the Cursors ordered by the position of their next Shapes.
+	 * @throws IOException if the file cannot be read or holds an invalid chunk.
+	 */
+	private static PriorityQueue<Cursor> openCursors(final FileChannel theChannel,
+			                                         final List<Chunk> theChunks,
+			                                         final int theShapeCount)
+			throws IOException {
+		final PriorityQueue<Cursor> cursors =
+				new PriorityQueue<Cursor>(Math.max(1, theChunks.size()),
+						                  Comparator.comparingInt(c -> c.myPosition));
+		for (final Chunk chunk : theChunks) {
+			final ByteBuffer buffer = theChannel.map(FileChannel.MapMode.READ_ONLY,
+					                                 chunk.myOffset, chunk.myLength);
+			final Cursor cursor = new Cursor(buffer, chunk);
+			cursor.advance(theShapeCount);
+			cursors.add(cursor);
+		}
+		return cursors;
+	}
+	
+	/**
+	 * Reads the header and style table of a version 2 or version 3 file.
+	 *
+	 * @param theIn is the Input being read.
+	 * @return the header.
+	 * @throws IOException if the Input cannot be read or does not hold a valid
+	 * header.
+	 */
+	private static Header readHeader(final Input theIn) throws IOException {
+		for (final byte b : MAGIC) {
+			if (theIn.getByte() != b) {
+				throw new StreamCorruptedException("Not a .shp file");
+			}
+		}
+		final int version = theIn.getByte() & 0xFF;
+		if (version != VERSION && version != UNCHUNKED_VERSION) {
+			throw new StreamCorruptedException("Unsupported .shp version: " + version);
+		}
+		final int count = theIn.getVarint();
+		final int styleCount = theIn.getVarint();
+		if (count < 0 || styleCount < 0 || styleCount > count) {
+			throw new StreamCorruptedException("Invalid .shp header");
+		}
+		final Style[] styles = new Style[styleCount];
+		for (int i = 0; i < styles.length; i++) {
+			styles[i] = new Style(theIn.getInt(), theIn.getInt(), theIn.getByte() & 0xFF,
+					              theIn.getByte() & 0xFF);
+		}
+		return new Header(version, count, styles);
+	}
+	
+	/**
+	 * Reads a chunk, adding its Shapes to a ShapeStore and recording the position
+	 * of each in the drawing order.
+	 *
+	 * @param theIn is the Input being read.
+	 * @param theHeader is the header of the file.
+	 * @param theColors holds the Colors created so far, keyed by ARGB value.
+	 * @param theShapes is the ShapeStore receiving the Shapes.
+	 * @param thePositions holds the position of each Shape of theShapes.
+	 * @return thePositions, or a larger copy of it if more room was needed.
+	 * @throws IOException if the Input cannot be read or holds an invalid chunk.
+	 */
+	private static int[] readChunk(final Input theIn, final Header theHeader,
+			                       final Map<Integer, Color> theColors,
+			                       final ShapeStore theShapes, final int[] thePositions)
+			throws IOException {
+		final int count = theIn.getVarint();
+		if (count <= 0 || count > theHeader.myShapeCount - theShapes.size()) {
+			throw new StreamCorruptedException("Invalid chunk size: " + count);
+		}
+		int[] positions = thePositions;
+		if (theShapes.size() + count > positions.length) {
+			positions = Arrays.copyOf(positions, Math.max(theShapes.size() + count,
+					                                      positions.length * 2));
+		}
+		final Anchor anchor = new Anchor();
+		int position = -1;
+		for (int i = 0; i < count; i++) {
+			final int skipped = theIn.getVarint();
+			if (skipped < 0 || skipped >= theHeader.myShapeCount - position - 1) {
+				throw new StreamCorruptedException("Invalid Shape position");
+			}
+			position += skipped + 1;
+			positions[theShapes.size()] = position;
+			readShape(theIn, theHeader.myStyles, theColors, anchor, theShapes);
+		}
+		return positions;
+	}
+	
+	/**
+	 * Provides the Shapes of a ShapeStore in the order of their recorded positions.
+	 *
+	 * @param theShapes are the Shapes.
+	 * @param thePositions holds the position of each Shape.
+	 * @return a ShapeStore holding the Shapes in order.
+	 * @throws StreamCorruptedException if two Shapes have the same position.
+	 */
+	private static ShapeStore merge(final ShapeStore theShapes, final int[] thePositions)
+			throws StreamCorruptedException {
+		final long[] keys = new long[theShapes.size()];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = (long) thePositions[i] << Integer.SIZE | i;
+		}
+		Arrays.sort(keys);
+		final ShapeStore shapes = new ShapeStore();
+		for (int k = 0; k < keys.length; k++) {
+			if (k > 0 && keys[k] >>> Integer.SIZE == keys[k - 1] >>> Integer.SIZE) {
+				throw new StreamCorruptedException("Repeated Shape position");
+			}
+			final int i = (int) keys[k];
+			theShapes.copyTo(i, shapes, theShapes.getID(i));
+		}
+		return shapes;
+	}
+	
+	/**
+	 * Reads the record of a Shape, adding the Shape to a ShapeStore.
+	 *
+	 * @param theIn is the Input being read.
+	 * @param theStyles is the style table of the file.
+	 * @param theColors holds the Colors created so far, keyed by ARGB value.
+	 * @param theAnchor holds the values the record is stored relative to, and is
+	 * updated to this record's values.
+	 * @param theShapes is the ShapeStore receiving the Shape.
+	 * @throws IOException if the Input cannot be read or holds an invalid record.
+	 */
+	private static void readShape(final Input theIn, final Style[] theStyles,
+			                      final Map<Integer, Color> theColors,
+			                      final Anchor theAnchor, final ShapeStore theShapes)
+			throws IOException {
+		final int tag = theIn.getByte() & 0xFF;
+		final int kind = tag & ~FLOAT_COORDS;
+		final boolean floats = (tag & FLOAT_COORDS) != 0;
+		final int styleIndex = theIn.getVarint();
+		if (styleIndex < 0 || styleIndex >= theStyles.length) {
+			throw new StreamCorruptedException("Invalid style index: " + styleIndex);
+		}
+		final Style style = theStyles[styleIndex];
+		theAnchor.myID += theIn.getSigned();
+		final float[] coords;
+		if (kind == PATH) {
+			coords = null;
+		} else if (kind == ShapeStore.POLYLINE) {
+			final int points = theIn.getVarint();
+			if (points <= 0 || points > Integer.MAX_VALUE / 2) {
+				throw new StreamCorruptedException("Invalid Point count: " + points);
+			}
+			coords = new float[points * 2];
+		} else if (kind < PATH) {
+			coords = new float[FRAME_COORDS];
+		} else {
+			throw new StreamCorruptedException("Invalid Shape kind: " + kind);
+		}
+		if (coords != null && floats) {
+			for (int c = 0; c < coords.length; c++) {
+				coords[c] = theIn.getFloat();
+			}
+		} else if (coords != null) {
+			int x = theAnchor.myX + theIn.getSigned();
+			int y = theAnchor.myY + theIn.getSigned();
+			coords[0] = x;
+			coords[1] = y;
+			theAnchor.myX = x;
+			theAnchor.myY = y;
+			for (int c = 2; c < coords.length; c += 2) {
+				if (kind == ShapeStore.RECTANGLE || kind == ShapeStore.ELLIPSE) {
+					coords[c] = theIn.getSigned();
+					coords[c + 1] = theIn.getSigned();
+				} else {
+					x += theIn.getSigned();
+					y += theIn.getSigned();
+					coords[c] = x;
+					coords[c + 1] = y;
+				}
+			}
+		}
+		final Shape shape;
+		if (coords == null) {
+			shape = readPath(theIn);
+		} else {
+			shape = createShape(kind, coords);
+		}
+		theShapes.add(new ShapeAttributeContainer(shape, (style.myFlags & FILLED) != 0,
+				                                  (style.myFlags & ERASER) != 0,
+				                                  getColor(theColors, style.myOutline),
+				                                  getColor(theColors, style.myFill),
+				                                  style.myWidth, theAnchor.myID));
+	}
+	
+	/**
+	 * Creates a Shape of the provided kind from its coordinates.
+	 *
+	 * @param theKind is the kind of the Shape.
+	 * @param theCoords are the coordinates of the Shape.
+	 * @return the Shape.
+	 */
+	private static Shape createShape(final int theKind, final float[] theCoords) {
+		final Shape shape;
+		switch (theKind) {
+			case ShapeStore.LINE:
+				shape = new Line2D.Float(theCoords[0], theCoords[1], theCoords[2],
+						                 theCoords[3]);
+				break;
+			case ShapeStore.RECTANGLE:
+				shape = new Rectangle2D.Float(theCoords[0], theCoords[1], theCoords[2],
+						                      theCoords[3]);
+				break;
+			case ShapeStore.ELLIPSE:
+				shape = new Ellipse2D.Float(theCoords[0], theCoords[1], theCoords[2],
+						                    theCoords[3]);
+				break;
+			default:
+				final Polyline line = new Polyline(theCoords[0], theCoords[1]);
+				for (int c = 2; c < theCoords.length; c += 2) {
+					line.lineTo(theCoords[c], theCoords[c + 1]);
+				}
+				shape = line;
+				break;
+		}
+		return shape;
+	}
+	
+	/**
+	 * Reads a Shape stored as a path.
+	 *
+	 * @param theIn is the Input being read.
+	 * @return the Shape.
+	 * @throws IOException if the Input cannot be read or holds an invalid path.
+	 */
+	private static Shape readPath(final Input theIn) throws IOException {
+		final int rule = theIn.getByte();
+		if (rule != Path2D.WIND_EVEN_ODD && rule != Path2D.WIND_NON_ZERO) {
+			throw new StreamCorruptedException("Invalid winding rule: " + rule);
+		}
+		final Path2D.Double path = new Path2D.Double(rule);
+		final double[] c = new double[MAX_SEGMENT_COORDS];
+		for (int segments = theIn.getVarint(); segments > 0; segments--) {
+			final int type = theIn.getByte();
+			final int count;
+			try {
+				count = getSegmentCoords(type);
+			} catch (final IllegalArgumentException ex) {
+				throw new StreamCorruptedException(ex.getMessage());
+			}
+			for (int i = 0; i < count; i++) {
+				c[i] = theIn.getDouble();
+			}
+			if (type != PathIterator.SEG_MOVETO && path.getCurrentPoint() == null) {
+				throw new StreamCorruptedException("Paths must begin with a move");
+			}
+			switch (type) {
+				case PathIterator.SEG_MOVETO:
+					path.moveTo(c[0], c[1]);
+					break;
+				case PathIterator.SEG_LINETO:
+					path.lineTo(c[0], c[1]);
+					break;
+				case PathIterator.SEG_QUADTO:
+					path.quadTo(c[0], c[1], c[2], c[3]);
+					break;
+				case PathIterator.SEG_CUBICTO:
+					path.curveTo(c[0], c[1], c[2], c[3], c[4], c[5]);
+					break;
+				default:
+					path.closePath();
+					break;
+			}
+		}
+		return path;
+	}
+	
+	/**
+	 * Provides a shared Color object for an ARGB value.
+	 *
+	 * @param theColors holds the Colors created so far, keyed by ARGB value.
+	 * @param theARGB is the ARGB value.
+	 * @return the Color.
+	 */
+	private static Color getColor(final Map<Integer, Color> theColors, final int theARGB) {
+		return theColors.computeIfAbsent(theARGB, (theKey) -> new Color(theKey, true));
+	}
+	
+	/**
+	 * Reads the Shapes held in a channel in the original format, written by Java
+	 * object serialization, allowing only the classes of a saved Shape list.
+	 *
+	 * @param theChannel is the channel.
+	 * @return a ShapeStore holding the Shapes read.
+	 * @throws IOException if the channel cannot be read or does not hold a saved
+	 * Shape list.
+	 */
+	private static ShapeStore readLegacy(final ReadableByteChannel theChannel)
+			throws IOException {
+		final ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(
+				                     Channels.newInputStream(theChannel), BUFFER_SIZE));
+		in.setObjectInputFilter(LEGACY_FILTER);
+		final Object object;
+		try {
+			object = in.readObject();
+		} catch (final ClassNotFoundException ex) {
+			throw new InvalidObjectException(ex.getMessage());
+		}
+		if (!(object instanceof List)) {
+			throw new InvalidObjectException("Not a saved Shape list");
+		}
+		final ShapeStore shapes = new ShapeStore();
+		for (final Object element : (List<?>) object) {
+			if (!(element instanceof ShapeAttributeContainer)) {
+				throw new InvalidObjectException("Not a saved Shape list");
+			}
+			shapes.add((ShapeAttributeContainer) element);
+		}
+		return shapes;
+	}
+
+/**
+ * The outline Color, fill Color, stroke width, and flags shared by Shapes in a
+ * file's style table.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+private static final class Style {
+	
+	/** The ARGB outline Color. */
+	private final int myOutline;
+	
+	/** The ARGB fill Color. */
+	private final int myFill;
+	
+	/** The stroke width. */
+	private final int myWidth;
+	
+	/** The style flags. */
+	private final int myFlags;
+	
+	/**
+	 * Constructs a new Style from its parts.
+	 *
+	 * @param theOutline is the ARGB outline Color.
+	 * @param theFill is the ARGB fill Color.
+	 * @param theWidth is the stroke width.
+	 * @param theFlags are the style flags.
+	 */
+	private Style(final int theOutline, final int theFill, final int theWidth,
+			      final int theFlags) {
+		myOutline = theOutline;
+		myFill = theFill;
+		myWidth = theWidth;
+		myFlags = theFlags;
+	}
+	
+	/**
+	 * Constructs a new Style describing a stored Shape.
+	 *
+	 * @param theShapes is the ShapeStore holding the Shape.
+	 * @param theIndex is the index of the Shape.
+	 */
+	private Style(final ShapeStore theShapes, final int theIndex) {
+		this(theShapes.getColor(theIndex).getRGB(),
+			 theShapes.getFillColor(theIndex).getRGB(),
+			 theShapes.getStrokeWidth(theIndex),
+			 (theShapes.isFilled(theIndex) ? FILLED : 0)
+			 | (theShapes.isEraserActivated(theIndex) ? ERASER : 0));
+	}
+	
+	@Override
+	public boolean equals(final Object theOther) {
+		boolean result = false;
+		if (theOther instanceof Style) {
+			final Style other = (Style) theOther;
+			result = myOutline == other.myOutline && myFill == other.myFill &&
+					 myWidth == other.myWidth && myFlags == other.myFlags;
+		}
+		return result;
+	}
+	
+	@Override
+	public int hashCode() {
+		return ((myOutline * 31 + myFill) * 31 + myWidth) * 31 + myFlags;
+	}
+}
+
+/**
+ * The version, number of Shapes, and style table read from a file's header.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+private static final class Header {
+	
+	/** The version number of the file. */
+	private final int myVersion;
+	
+	/** The number of Shapes in the file. */
+	private final int myShapeCount;
+	
+	/** The style table of the file. */
+	private final Style[] myStyles;
+	
+	/**
+	 * Constructs a new Header.
+	 *
+	 * @param theVersion is the version number of the file.
+	 * @param theShapeCount is the number of Shapes in the file.
+	 * @param theStyles is the style table of the file.
+	 */
+	private Header(final int theVersion, final int theShapeCount,
+			       final Style[] theStyles) {
+		myVersion = theVersion;
+		myShapeCount = theShapeCount;
+		myStyles = theStyles;
+	}
+}
+
+/**
+ * The index entry of a chunk of a version 3 file.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+private static final class Chunk {
+	
+	/** The offset of the chunk from the start of the file. */
+	private final long myOffset;
+	
+	/** The length of the chunk in bytes. */
+	private final int myLength;
+	
+	/** The number of Shapes in the chunk. */
+	private final int myCount;
+	
+	/** The region covered by the chunk's Shapes when drawn. */
+	private final Rectangle myBounds;
+	
+	/**
+	 * Constructs a new Chunk.
+	 *
+	 * @param theOffset is the offset of the chunk from the start of the file.
+	 * @param theLength is the length of the chunk in bytes.
+	 * @param theCount is the number of Shapes in the chunk.
+	 * @param theBounds is the region covered by the chunk's Shapes when drawn.
+	 */
+	private Chunk(final long theOffset, final int theLength, final int theCount,
+			      final Rectangle theBounds) {
+		myOffset = theOffset;
+		myLength = theLength;
+		myCount = theCount;
+		myBounds = theBounds;
+	}
+}
+
+/**
+ * The ID number and Point that the next Shape record is stored relative to.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+private static final class Anchor {
+	
+	/** The ID number of the previous record. */
+	private int myID;
+	
+	/** The x coordinate of the first Point of the previous record. */
+	private int myX;
+	
+	/** The y coordinate of the first Point of the previous record. */
+	private int myY;
+}
+
+/**
+ * A buffered writer of the values in a file.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+private static final class Output {
+	
+	/** The channel written to. */
+	private final WritableByteChannel myChannel;
+	
+	/** The buffer holding bytes not yet written to the channel. */
+	private final ByteBuffer myBuffer;
+	
+	/** The number of bytes written to the channel. */
+	private long myWritten;
+	
+	/**
+	 * Constructs a new Output writing to the provided channel.
+	 *
+	 * @param theChannel is the channel.
+	 */
+	private Output(final WritableByteChannel theChannel) {
+		this(theChannel, ByteBuffer.allocateDirect(BUFFER_SIZE));
+	}
+	
+	/**
+	 * Constructs a new Output writing to the provided channel through the provided
+	 * empty buffer.
+	 *
+	 * @param theChannel is the channel.
+	 * @param theBuffer is the buffer.
+	 */
+	private Output(final WritableByteChannel theChannel, final ByteBuffer theBuffer) {
+		myChannel = theChannel;
+		myBuffer = theBuffer;
+	}
+	
+	/**
+	 * Provides the number of bytes written to this Output so far, including those
+	 * still buffered.
+	 *
+	 * @return the number of bytes.
+	 */
+	private long getPosition() {
+		return myWritten + myBuffer.position();
+	}
+	
+	/**
+	 * Ensures the buffer has room for the provided number of bytes.
+	 *
+	 * @param theBytes is the number of bytes.
+	 * @throws IOException if the channel cannot be written.
+	 */
+	private void require(final int theBytes) throws IOException {
+		if (myBuffer.remaining() < theBytes) {
+			flush();
+		}
+	}
+	
+	/**
+	 * Writes every buffered byte to the channel.
+	 *
+	 * @throws IOException if the channel cannot be written.
+	 */
+	private void flush() throws IOException {
+		myBuffer.flip();
+		while (myBuffer.hasRemaining()) {
+			myWritten += myChannel.write(myBuffer);
+		}
+		myBuffer.clear();
+	}
+	
+	/**
+	 * Writes a byte.
+	 *
+	 * @param theValue is the byte, in its low 8 bits.
+	 * @throws IOException if the channel cannot be written.
+	 */
+	private void putByte(final int theValue) throws IOException {
+		require(1);
+		myBuffer.put((byte) theValue);
+	}
+	
+	/**
+	 * Writes an array of bytes.
+	 *
+	 * @param theBytes are the bytes.
+	 * @throws IOException if the channel cannot be written.
+	 */
+	private void putBytes(final byte[] theBytes) throws IOException {
+		require(theBytes.length);
+		myBuffer.put(theBytes);
+	}
+	
+	/**
+	 * Writes an int.
+	 *
+	 * @param theValue is the int.
+	 * @throws IOException if the channel cannot be written.
+	 */
+	private void putInt(final int theValue) throws IOException {
+		require(Integer.BYTES);
+		myBuffer.putInt(theValue);
+	}
+	
+	/**
+	 * Writes a long.
+	 *
+	 * @param theValue is the long.
+	 * @throws IOException if the channel cannot be written.
+	 */
+	private void putLong(final long theValue) throws IOException {
+		require(Long.BYTES);
+		myBuffer.putLong(theValue);
+	}
+	
+	/**
+	 * Writes a float.
+	 *
+	 * @param theValue is the float.
+	 * @throws IOException if the channel cannot be written.
+	 */
+	private void putFloat(final float theValue) throws IOException {
+		require(Float.BYTES);
+		myBuffer.putFloat(theValue);
+	}
+	
+	/**
+	 * Writes a double.
+	 *
+	 * @param theValue is the double.
+	 * @throws IOException if the channel cannot be written.
+	 */
+	private void putDouble(final double theValue) throws IOException {
+		require(Double.BYTES);
+		myBuffer.putDouble(theValue);
+	}
+	
+	/**
+	 * Writes an int as an unsigned varint.
+	 *
+	 * @param theValue is the int, treated as unsigned.
+	 * @throws IOException if the channel cannot be written.
+	 */
+	private void putVarint(final int theValue) throws IOException {
+		require(MAX_VARINT_BYTES);
+		int value = theValue;
+		while ((value & ~VARINT_PAYLOAD) != 0) {
+			myBuffer.put((byte) ((value & VARINT_PAYLOAD) | VARINT_MORE));
+			value >>>= VARINT_BITS;
+		}
+		myBuffer.put((byte) value);
+	}
+	
+	/**
+	 * Writes an int as a zig-zag encoded signed varint.
+	 *
+	 * @param theValue is the int.
+	 * @throws IOException if the channel cannot be written.
+	 */
+	private void putSigned(final int theValue) throws IOException {
+		putVarint((theValue << 1) ^ (theValue >> (Integer.SIZE - 1)));
+	}
+}
+
+/**
+ * A Cursor class to read the Shapes of one chunk of a version 3 file, which are
+ * stored in drawing order, so that the Shapes of every chunk can be merged back
+ * into the drawing order of the file as they are read.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+private static final class Cursor {
+	
+	/** The Input reading the chunk. */
+	private final Input myIn;
+	
+	/** The previous record read from the chunk. */
+	private final Anchor myAnchor;
+	
+	/** The number of the chunk's Shapes whose positions have not yet been read. */
+	private int myRemaining;
+	
+	/** The position in the drawing order of the chunk's next Shape. */
+	private int myPosition;
+	
+	/**
+	 * Constructs a new Cursor reading the provided chunk, checking that it holds as
+	 * many Shapes as its index entry.
+	 *
+	 * @param theBuffer holds the bytes of the chunk.
+	 * @param theChunk is the index entry of the chunk.
+	 * @throws IOException if the chunk cannot be read or does not match its entry.
+	 */
+	private Cursor(final ByteBuffer theBuffer, final Chunk theChunk) throws IOException {
+		myIn = new Input(theBuffer);
+		myAnchor = new Anchor();
+		myRemaining = myIn.getVarint();
+		myPosition = -1;
+		if (myRemaining != theChunk.myCount) {
+			throw new StreamCorruptedException("Invalid chunk: " + theChunk.myOffset);
+		}
+	}
+	
+	/**
+	 * Reads the position of the chunk's next Shape, if it has one.
+	 *
+	 * @param theShapeCount is the number of Shapes in the file.
+	 * @return true if the chunk has another Shape, false otherwise.
+	 * @throws IOException if the chunk cannot be read or holds an invalid position.
+	 */
+	private boolean advance(final int theShapeCount) throws IOException {
+		final boolean more = myRemaining > 0;
+		if (more) {
+			final int skipped = myIn.getVarint();
+			if (skipped < 0 || skipped >= theShapeCount - myPosition - 1) {
+				throw new StreamCorruptedException("Invalid Shape position");
+			}
+			myPosition += skipped + 1;
+			myRemaining--;
+		}
+		return more;
+	}
+}
+
+/**
+ * A buffered reader of the values in a file, reading from a channel or from a
+ * region of a file mapped into memory.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+private static final class Input {
+	
+	/** The channel read from, or null if every byte is already buffered. */
+	private final ReadableByteChannel myChannel;
+	
+	/** The buffer holding bytes read from the channel but not yet consumed. */
+	private final ByteBuffer myBuffer;
+	
+	/**
+	 * Constructs a new Input reading from the provided channel.
+	 *
+	 * @param theChannel is the channel.
+	 */
+	private Input(final ReadableByteChannel theChannel) {
+		myChannel = theChannel;
+		myBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		myBuffer.limit(0);
+	}
+	
+	/**
+	 * Constructs a new Input reading the remaining bytes of the provided buffer,
+	 * such as a region of a file mapped into memory.
+	 *
+	 * @param theBuffer is the buffer.
+	 */
+	private Input(final ByteBuffer theBuffer) {
+		myChannel = null;
+		myBuffer = theBuffer;
+	}
+	
+	/**
+	 * Ensures the buffer holds at least the provided number of unread bytes.
+	 *
+	 * @param theBytes is the number of bytes.
+	 * @throws IOException if the channel cannot be read or ends first.
+	 */
+	private void require(final int theBytes) throws IOException {
+		if (myBuffer.remaining() < theBytes) {
+			if (myChannel == null) {
+				throw new EOFException("Unexpected end of .shp file");
+			}
+			myBuffer.compact();
+			while (myBuffer.position() < theBytes) {
+				if (myChannel.read(myBuffer) < 0) {
+					throw new EOFException("Unexpected end of .shp file");
+				}
+			}
+			myBuffer.flip();
+		}
+	}
+	
+	/**
+	 * Reads a byte.
+	 *
+	 * @return the byte.
+	 * @throws IOException if the channel cannot be read or ends first.
+	 */
+	private byte getByte() throws IOException {
+		require(1);
+		return myBuffer.get();
+	}
+	
+	/**
+	 * Reads an int.
+	 *
+	 * @return the int.
+	 * @throws IOException if the channel cannot be read or ends first.
+	 */
+	private int getInt() throws IOException {
+		require(Integer.BYTES);
+		return myBuffer.getInt();
+	}
+	
+	/**
+	 * Reads a long.
+	 *
+	 * @return the long.
+	 * @throws IOException if the channel cannot be read or ends first.
+	 */
+	private long getLong() throws IOException {
+		require(Long.BYTES);
+		return myBuffer.getLong();
+	}
+	
+	/**
+	 * Reads a float.
+	 *
+	 * @return the float.
+	 * @throws IOException if the channel cannot be read or ends first.
+	 */
+	private float getFloat() throws IOException {
+		require(Float.BYTES);
+		return myBuffer.getFloat();
+	}
+	
+	/**
+	 * Reads a double.
+	 *
+	 * @return the double.
+	 * @throws IOException if the channel cannot be read or ends first.
+	 */
+	private double getDouble() throws IOException {
+		require(Double.BYTES);
+		return myBuffer.getDouble();
+	}
+	
+	/**
+	 * Reads an unsigned varint.
+	 *
+	 * @return the varint's value.
+	 * @throws IOException if the channel cannot be read, ends first, or holds an
+	 * invalid varint.
+	 */
+	private int getVarint() throws IOException {
+		int value = 0;
+		int shift = 0;
+		int b = VARINT_MORE;
+		while ((b & VARINT_MORE) != 0) {
+			if (shift >= MAX_VARINT_BYTES * VARINT_BITS) {
+				throw new StreamCorruptedException("Invalid varint");
+			}
+			b = getByte();
+			value |= (b & VARINT_PAYLOAD) << shift;
+			shift += VARINT_BITS;
+		}
+		return value;
+	}
+	
+	/**
+	 * Reads a zig-zag encoded signed varint.
+	 *
+	 * @return the varint's value.
+	 * @throws IOException if the channel cannot be read, ends first, or holds an
+	 * invalid varint.
+	 */
+	private int getSigned() throws IOException {
+		final int value = getVarint();
+		return (value >>> 1) ^ -(value & 1);
+	}
+}
+
+/**
+ * A Reader class to read a .shp file a batch of Shapes at a time, providing the
+ * Shapes in drawing order along with its progress through the file. The chunks of
+ * a version 3 file are merged back into drawing order as they are read, each from
+ * its own region of the file mapped into memory, so no Shape is held twice.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public static final class Reader implements Closeable {
+	
+	/** The path of the file. */
+	private final Path myPath;
+	
+	/** The channel of the file. */
+	private final FileChannel myChannel;
+	
+	/** The size of the file, in bytes. */
+	private final long mySize;
+	
+	/** The number of Shapes in the file. */
+	private final int myShapeCount;
+	
+	/** The event recording the load, committed once every Shape has been read. */
+	private final PowerPaintEvents.LoadEvent myEvent;
+	
+	/** The Input reading the file, or null for a file in the original format. */
+	private final Input myIn;
+	
+	/** The header of the file, or null for a file in the original format. */
+	private final Header myHeader;
+	
+	/** The Colors created so far, keyed by ARGB value. */
+	private final Map<Integer, Color> myColors;
+	
+	/** The previous record read from a version 2 file. */
+	private final Anchor myAnchor;
+	
+	/**
+	 * A Cursor on each chunk of a version 3 file with Shapes left to read, ordered by
+	 * the position of their next Shapes, or null for a file in another format.
+	 */
+	private final PriorityQueue<Cursor> myCursors;
+	
+	/** The Shapes of a file in the original format, or null for any other file. */
+	private final ShapeStore myShapes;
+	
+	/** The index entry of each chunk of a version 3 file, or null for another file. */
+	private final List<Chunk> myChunks;
+	
+	/** The number of bytes before the first chunk of a version 3 file. */
+	private final long myHeaderSize;
+	
+	/** The number of bytes of the chunks of a version 3 file decoded so far. */
+	private long myDecodedSize;
+	
+	/** The number of Shapes provided so far. */
+	private int myRead;
+	
+	/** The number of Shapes provided by reading areas of the file. */
+	private int myAreaShapes;
+	
+	/**
+	 * Constructs a new Reader, reading the header of the provided file, or the whole
+	 * of a file in the original format.
+	 *
+	 * @param thePath is the path of the file.
+	 * @param theChannel is the channel of the file.
+	 * @throws IOException if the file cannot be read or is not a valid .shp file.
+	 */
+	private Reader(final Path thePath, final FileChannel theChannel) throws IOException {
+		myPath = thePath;
+		myChannel = theChannel;
+		mySize = theChannel.size();
+		myEvent = new PowerPaintEvents.LoadEvent();
+		myEvent.begin();
+		myColors = new HashMap<Integer, Color>();
+		myAnchor = new Anchor();
+		if (isLegacy(readPrefix(theChannel))) {
+			myIn = null;
+			myHeader = null;
+			myChunks = null;
+			myCursors = null;
+			myShapes = readLegacy(theChannel);
+			myShapeCount = myShapes.size();
+			myHeaderSize = mySize;
+		} else {
+			myIn = new Input(theChannel);
+			myHeader = readHeader(myIn);
+			myShapeCount = myHeader.myShapeCount;
+			myShapes = null;
+			myHeaderSize = theChannel.position() - myIn.myBuffer.remaining();
+			if (myHeader.myVersion == VERSION) {
+				myChunks = readIndex(theChannel, myHeader);
+				myCursors = openCursors(theChannel, myChunks, myShapeCount);
+			} else {
+				myChunks = null;
+				myCursors = null;
+			}
+		}
+	}
+	
+	/**
+	 * Provides the number of Shapes in the file.
+	 *
+	 * @return the number of Shapes.
+	 */
+	public int getShapeCount() {
+		return myShapeCount;
+	}
+	
+	/**
+	 * Provides the size of the file.
+	 *
+	 * @return the size of the file, in bytes.
+	 */
+	public long getSize() {
+		return mySize;
+	}
+	
+	/**
+	 * Provides the number of bytes of the file decoded so far.
+	 *
+	 * @return the number of bytes decoded.
+	 * @throws IOException if the position of the file cannot be read.
+	 */
+	public long getPosition() throws IOException {
+		long position = mySize;
+		if (myCursors != null) {
+			position = Math.min(mySize, myHeaderSize + myDecodedSize);
+		} else if (myIn != null) {
+			position = myChannel.position() - myIn.myBuffer.remaining();
+		}
+		return position;
+	}
+	
+	/**
+	 * Indicates if the file is indexed by region, so that the Shapes within an area
+	 * can be read without reading the rest.
+	 *
+	 * @return true if the file is a version 3 file, false otherwise.
+	 */
+	public boolean isIndexed() {
+		return myChunks != null;
+	}
+	
+	/**
+	 * Indicates if every Shape of the file has been read.
+	 *
+	 * @return true if every Shape has been read, false otherwise.
+	 */
+	public boolean isFinished() {
+		return myRead == myShapeCount;
+	}
+	
+	/**
+	 * Decodes up to the provided number of the file's next Shapes in drawing order,
+	 * adding them to a ShapeStore under their own ID numbers. The Shapes of a
+	 * version 3 file are decoded from whichever chunk holds the next position.
+	 *
+	 * @param theShapes is the ShapeStore receiving the Shapes.
+	 * @param theCount is the most Shapes to decode.
+	 * @return the number of Shapes added.
+	 * @throws IOException if the file cannot be read or is not a valid .shp file.
+	 */
+	public int read(final ShapeStore theShapes, final int theCount) throws IOException {
+		final int start = myRead;
+		final int end = Math.min(myShapeCount, myRead + Math.max(0, theCount));
+		for (; myRead < end; myRead++) {
+			if (myShapes != null) {
+				myShapes.copyTo(myRead, theShapes, myShapes.getID(myRead));
+			} else if (myCursors != null) {
+				final Cursor cursor = myCursors.poll();
+				if (cursor.myPosition != myRead) {
+					throw new StreamCorruptedException("Invalid Shape position");
+				}
+				final int before = cursor.myIn.myBuffer.position();
+				readShape(cursor.myIn, myHeader.myStyles, myColors, cursor.myAnchor,
+						  theShapes);
+				if (cursor.advance(myShapeCount)) {
+					myCursors.add(cursor);
+				}
+				myDecodedSize += cursor.myIn.myBuffer.position() - before;
+			} else {
+				readShape(myIn, myHeader.myStyles, myColors, myAnchor, theShapes);
+			}
+		}
+		return myRead - start;
+	}
+	
+	/**
+	 * Decodes the Shapes of an indexed file whose chunks meet the provided area,
+	 * mapping only those chunks into memory, without affecting the Shapes provided
+	 * by read. The Shapes are a view of the drawing, as described by
+	 * ShapeFile.read(Path, Rectangle2D).
+	 *
+	 * @param theArea is the area.
+	 * @return a ShapeStore holding the Shapes read, in drawing order.
+	 * @throws IOException if the file cannot be read or is not a valid .shp file.
+	 * @throws IllegalStateException if the file is not indexed.
+	 */
+	public ShapeStore readArea(final Rectangle2D theArea) throws IOException {
+		if (!isIndexed()) {
+			throw new IllegalStateException("Only version 3 files are indexed!");
+		}
+		final List<Chunk> chunks = new ArrayList<Chunk>();
+		for (final Chunk chunk : myChunks) {
+			if (chunk.myBounds.intersects(theArea)) {
+				chunks.add(chunk);
+			}
+		}
+		final PriorityQueue<Cursor> cursors = openCursors(myChannel, chunks,
+				                                          myShapeCount);
+		final ShapeStore shapes = new ShapeStore();
+		int previous = -1;
+		while (!cursors.isEmpty()) {
+			final Cursor cursor = cursors.poll();
+			if (cursor.myPosition == previous) {
+				throw new StreamCorruptedException("Invalid Shape position");
+			}
+			previous = cursor.myPosition;
+			readShape(cursor.myIn, myHeader.myStyles, myColors, cursor.myAnchor, shapes);
+			if (cursor.advance(myShapeCount)) {
+				cursors.add(cursor);
+			}
+		}
+		myAreaShapes += shapes.size();
+		return shapes;
+	}
+	
+	/**
+	 * Closes the file, committing a LoadEvent to any recording enabling it if every
+	 * Shape or an area of the file was read.
+	 *
+	 * @throws IOException if the file cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		myEvent.end();
+		if ((isFinished() || myAreaShapes > 0) && myEvent.shouldCommit()) {
+			myEvent.set(myPath.toString(), mySize, myRead + myAreaShapes);
+			myEvent.commit();
+		}
+		myChannel.close();
+	}
+}
+}
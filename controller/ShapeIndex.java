@@ -0,0 +1,404 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A ShapeIndex class to locate the Shapes drawn on a DrawPanel by region.
+ */
+
+package controller;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This program indexes the drawing positions of Shapes by the regions they cover
+ * so that only the Shapes intersecting a region need to be visited when that region
+ * is repainted. Positions are added and removed in drawing order, matching the way
+ * Shapes are drawn, undone, and redone on a DrawPanel, so every query yields its
+ * positions in drawing order.
+ *
+ * The index divides the plane into square cells. Each Shape's position is stored in
+ * every cell its bounds overlap, except for Shapes that overlap too many cells, which
+ * are kept in a separate list that every query visits.
+ *
+ * A position may be pruned once a later position is known to hide it completely,
+ * as found by an OcclusionPruner. A query for a range of positions omits a pruned
+ * position only if the position hiding it lies within the range, so drawing any
+ * range of the positions a query provides yields the same pixels as drawing every
+ * position in the range. Removing the position hiding a pruned position restores
+ * it.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class ShapeIndex {
+	
+	/** The width and height of a ShapeIndex cell, in pixels. */
+	private static final int CELL_SIZE = 64;
+	
+	/** The largest number of cells a Shape may be stored in before it is kept in
+	 *  the list of large Shapes instead.
+	 */
+	private static final int MAX_CELLS = 256;
+	
+	/** The initial capacity of a ShapeIndex's internal arrays. */
+	private static final int INITIAL_CAPACITY = 16;
+	
+	/** The initial capacity of a ShapeIndex cell. */
+	private static final int INITIAL_BUCKET_CAPACITY = 4;
+	
+	/** The number of values recorded for each indexed position. */
+	private static final int CELL_RANGE_SIZE = 4;
+	
+	/** The occluder recorded for a position that is not pruned. */
+	private static final int NOT_PRUNED = Integer.MAX_VALUE;
+	
+	/** The positions stored in each non-empty cell, keyed by cell coordinates. */
+	private final Map<Long, Bucket> myCells;
+	
+	/** The positions whose bounds overlap too many cells to be stored per cell. */
+	private final Bucket myLargeShapes;
+	
+	/** The first and last cell columns and rows overlapped by each position. */
+	private int[] myCellRanges;
+	
+	/** The position hiding each position, or NOT_PRUNED if it is not pruned. */
+	private int[] myOccluders;
+	
+	/**
+	 * The pruned positions, each combined with the position hiding it in its high
+	 * bits, in ascending order of the positions hiding them.
+	 */
+	private long[] myPruned;
+	
+	/** The number of pruned positions. */
+	private int myPrunedCount;
+	
+	/** The number of positions in this ShapeIndex. */
+	private int mySize;
+	
+	/** Constructs a new, empty ShapeIndex. */
+	public ShapeIndex() {
+		myCells = new HashMap<Long, Bucket>();
+		myLargeShapes = new Bucket();
+		myCellRanges = new int[INITIAL_CAPACITY * CELL_RANGE_SIZE];
+		myOccluders = new int[INITIAL_CAPACITY];
+		myPruned = new long[INITIAL_CAPACITY];
+	}
+	
+	/**
+	 * Provides the number of positions in this ShapeIndex.
+	 *
+	 * @return the number of positions in this ShapeIndex.
+	 */
+	public int size() {
+		return mySize;
+	}
+	
+	/**
+	 * Provides the number of pruned positions in this ShapeIndex.
+	 *
+	 * @return the number of pruned positions.
+	 */
+	public int getPrunedCount() {
+		return myPrunedCount;
+	}
+	
+	/**
+	 * Provides the pruned positions in this ShapeIndex.
+	 *
+	 * @return a new BitSet holding the pruned positions.
+	 */
+	public BitSet getPruned() {
+		final BitSet pruned = new BitSet(mySize);
+		for (int i = 0; i < myPrunedCount; i++) {
+			pruned.set((int) myPruned[i]);
+		}
+		return pruned;
+	}
+	
+	/**
+	 * Adds the next drawing position to this ShapeIndex. The position added is
+	 * equal to the size of this ShapeIndex prior to the call.
+	 *
+	 * @param theBounds is the region covered by the Shape at the added position.
+	 * @throws NullPointerException if theBounds is null.
+	 */
+	public void add(final Rectangle theBounds) {
+		final int position = mySize;
+		final int col0 = Math.floorDiv(theBounds.x, CELL_SIZE);
+		final int row0 = Math.floorDiv(theBounds.y, CELL_SIZE);
+		final int col1 = Math.floorDiv(theBounds.x + Math.max(0, theBounds.width - 1),
+				                       CELL_SIZE);
+		final int row1 = Math.floorDiv(theBounds.y + Math.max(0, theBounds.height - 1),
+				                       CELL_SIZE);
+		if (myCellRanges.length < (position + 1) * CELL_RANGE_SIZE) {
+			myCellRanges = Arrays.copyOf(myCellRanges, myCellRanges.length * 2);
+			myOccluders = Arrays.copyOf(myOccluders, myOccluders.length * 2);
+		}
+		myOccluders[position] = NOT_PRUNED;
+		final int offset = position * CELL_RANGE_SIZE;
+		myCellRanges[offset] = col0;
+		myCellRanges[offset + 1] = row0;
+		myCellRanges[offset + 2] = col1;
+		myCellRanges[offset + 3] = row1;
+		if (isLarge(col0, row0, col1, row1)) {
+			myLargeShapes.add(position);
+		} else {
+			for (int row = row0; row <= row1; row++) {
+				for (int col = col0; col <= col1; col++) {
+					myCells.computeIfAbsent(getKey(col, row),
+							                (theKey) -> new Bucket()).add(position);
+				}
+			}
+		}
+		mySize++;
+	}
+	
+	/**
+	 * Removes the most recently added position from this ShapeIndex, restoring
+	 * every position it hides.
+	 *
+	 * @throws IllegalStateException if this ShapeIndex is empty.
+	 */
+	public void removeLast() {
+		if (mySize == 0) {
+			throw new IllegalStateException("Cannot remove from an empty ShapeIndex!");
+		}
+		mySize--;
+		while (myPrunedCount > 0 && (int) (myPruned[myPrunedCount - 1] >>> Integer.SIZE)
+				                    >= mySize) {
+			myPrunedCount--;
+			myOccluders[(int) myPruned[myPrunedCount]] = NOT_PRUNED;
+		}
+		final int offset = mySize * CELL_RANGE_SIZE;
+		final int col0 = myCellRanges[offset];
+		final int row0 = myCellRanges[offset + 1];
+		final int col1 = myCellRanges[offset + 2];
+		final int row1 = myCellRanges[offset + 3];
+		if (isLarge(col0, row0, col1, row1)) {
+			myLargeShapes.removeLast();
+		} else {
+			for (int row = row0; row <= row1; row++) {
+				for (int col = col0; col <= col1; col++) {
+					final Long key = getKey(col, row);
+					final Bucket bucket = myCells.get(key);
+					bucket.removeLast();
+					if (bucket.mySize == 0) {
+						myCells.remove(key);
+					}
+				}
+			}
+		}
+	}
+	
+	/** Removes all positions from this ShapeIndex. */
+	public void clear() {
+		myCells.clear();
+		myLargeShapes.mySize = 0;
+		mySize = 0;
+		myPrunedCount = 0;
+	}
+	
+	/**
+	 * Prunes the positions hidden by later positions of this ShapeIndex, as found by
+	 * an OcclusionPruner for a snapshot of the Shapes whose first positions match
+	 * those of this ShapeIndex. Only positions hidden by a position below theLimit
+	 * are pruned, and positions already pruned are left as they are.
+	 *
+	 * @param theOccluders are the positions hiding each position, or
+	 * OcclusionPruner.NOT_OCCLUDED for a position that is not hidden.
+	 * @param theLimit is one past the last position that may hide another.
+	 * @throws IllegalArgumentException if theLimit is greater than the size of this
+	 * ShapeIndex, or if a position is hidden by one that is not later.
+	 */
+	public void prune(final int[] theOccluders, final int theLimit) {
+		if (theLimit > mySize) {
+			throw new IllegalArgumentException("Occluders must be indexed!");
+		}
+		final int start = myPrunedCount;
+		for (int position = 0; position < Math.min(theLimit, theOccluders.length);
+			 position++) {
+			final int occluder = theOccluders[position];
+			if (occluder >= 0 && occluder < theLimit
+				&& myOccluders[position] == NOT_PRUNED) {
+				if (occluder <= position) {
+					throw new IllegalArgumentException("Occluders must be later!");
+				}
+				if (myPrunedCount == myPruned.length) {
+					myPruned = Arrays.copyOf(myPruned, myPrunedCount * 2);
+				}
+				myPruned[myPrunedCount++] = (long) occluder << Integer.SIZE | position;
+				myOccluders[position] = occluder;
+			}
+		}
+		if (myPrunedCount > start) {
+			Arrays.sort(myPruned, 0, myPrunedCount);
+		}
+	}
+	
+	/** Restores every pruned position of this ShapeIndex. */
+	public void restorePruned() {
+		for (int i = 0; i < myPrunedCount; i++) {
+			myOccluders[(int) myPruned[i]] = NOT_PRUNED;
+		}
+		myPrunedCount = 0;
+	}
+	
+	/**
+	 * Provides the positions of all Shapes whose bounds may intersect the provided
+	 * region, in ascending (drawing) order. The result may include Shapes that share
+	 * a cell with theRegion without intersecting it, but never omits a Shape that
+	 * does intersect it. This method does not modify this ShapeIndex and may be
+	 * called from several threads at once.
+	 *
+	 * @param theRegion is the region.
+	 * @return the ascending positions of the Shapes that may intersect theRegion.
+	 * @throws NullPointerException if theRegion is null.
+	 */
+	public int[] query(final Rectangle theRegion) {
+		return query(theRegion, 0);
+	}
+	
+	/**
+	 * Provides the positions, not below the provided position, of all Shapes whose
+	 * bounds may intersect the provided region, in ascending (drawing) order. Shapes
+	 * before theFrom are skipped without being collected.
+	 *
+	 * @param theRegion is the region.
+	 * @param theFrom is the lowest position to be provided.
+	 * @return the ascending positions of the Shapes that may intersect theRegion.
+	 * @throws NullPointerException if theRegion is null.
+	 */
+	public int[] query(final Rectangle theRegion, final int theFrom) {
+		return query(theRegion, theFrom, mySize);
+	}
+	
+	/**
+	 * Provides the positions in the provided range of all Shapes whose bounds may
+	 * intersect the provided region, in ascending (drawing) order, omitting the
+	 * positions pruned by a position within the range.
+	 *
+	 * @param theRegion is the region.
+	 * @param theFrom is the lowest position to be provided.
+	 * @param theTo is one past the highest position to be provided.
+	 * @return the ascending positions of the Shapes that may intersect theRegion.
+	 * @throws NullPointerException if theRegion is null.
+	 */
+	public int[] query(final Rectangle theRegion, final int theFrom, final int theTo) {
+		if (theRegion.isEmpty() || mySize <= theFrom || theTo <= theFrom) {
+			return new int[0];
+		}
+		final int col0 = Math.floorDiv(theRegion.x, CELL_SIZE);
+		final int row0 = Math.floorDiv(theRegion.y, CELL_SIZE);
+		final int col1 = Math.floorDiv(theRegion.x + theRegion.width - 1, CELL_SIZE);
+		final int row1 = Math.floorDiv(theRegion.y + theRegion.height - 1, CELL_SIZE);
+		final int largeFrom = myLargeShapes.indexOf(theFrom);
+		int count = myLargeShapes.mySize - largeFrom;
+		int[] found = Arrays.copyOfRange(myLargeShapes.myPositions, largeFrom,
+				                         largeFrom + Math.max(INITIAL_CAPACITY, count));
+		for (int row = row0; row <= row1; row++) {
+			for (int col = col0; col <= col1; col++) {
+				final Bucket bucket = myCells.get(getKey(col, row));
+				if (bucket != null) {
+					final int from = bucket.indexOf(theFrom);
+					final int length = bucket.mySize - from;
+					if (found.length < count + length) {
+						found = Arrays.copyOf(found,
+								              Math.max(found.length * 2, count + length));
+					}
+					System.arraycopy(bucket.myPositions, from, found, count, length);
+					count += length;
+				}
+			}
+		}
+		Arrays.sort(found, 0, count);
+		int unique = 0;
+		for (int i = 0; i < count; i++) {
+			final int position = found[i];
+			if (position < theTo && myOccluders[position] >= theTo
+				&& (unique == 0 || found[unique - 1] != position)) {
+				found[unique++] = position;
+			}
+		}
+		return Arrays.copyOf(found, unique);
+	}
+	
+	/**
+	 * Indicates whether the provided range of cells is too large to be stored
+	 * cell by cell.
+	 *
+	 * @param theCol0 is the first cell column.
+	 * @param theRow0 is the first cell row.
+	 * @param theCol1 is the last cell column.
+	 * @param theRow1 is the last cell row.
+	 * @return true if the range covers more than MAX_CELLS cells, false otherwise.
+	 */
+	private static boolean isLarge(final int theCol0, final int theRow0,
+			                       final int theCol1, final int theRow1) {
+		return (long) (theCol1 - theCol0 + 1) * (theRow1 - theRow0 + 1) > MAX_CELLS;
+	}
+	
+	/**
+	 * Combines a cell column and row into a single map key.
+	 *
+	 * @param theCol is the cell column.
+	 * @param theRow is the cell row.
+	 * @return the combined key.
+	 */
+	private static Long getKey(final int theCol, final int theRow) {
+		return ((long) theCol << Integer.SIZE) | (theRow & 0xFFFFFFFFL);
+	}
+
+/**
+ * A growable list of the ascending positions stored in a single ShapeIndex cell.
+ *
+ * @author Parker Rosengreen
+ * @version 16 December 2020
+ */
+private static final class Bucket {
+	
+	/** The positions stored in this Bucket. */
+	private int[] myPositions;
+	
+	/** The number of positions stored in this Bucket. */
+	private int mySize;
+	
+	/** Constructs a new, empty Bucket. */
+	private Bucket() {
+		myPositions = new int[INITIAL_BUCKET_CAPACITY];
+	}
+	
+	/**
+	 * Adds a position to the end of this Bucket.
+	 *
+	 * @param thePosition is the position.
+	 */
+	private void add(final int thePosition) {
+		if (mySize == myPositions.length) {
+			myPositions = Arrays.copyOf(myPositions, mySize * 2);
+		}
+		myPositions[mySize++] = thePosition;
+	}
+	
+	/** Removes the last position from this Bucket. */
+	private void removeLast() {
+		mySize--;
+	}
+	
+	/**
+	 * Provides the index within this Bucket of its first position not below the
+	 * provided position. Positions are held in ascending order.
+	 *
+	 * @param thePosition is the position.
+	 * @return the index of the first position >= thePosition, or the size of this
+	 * Bucket if there is none.
+	 */
+	private int indexOf(final int thePosition) {
+		final int search = Arrays.binarySearch(myPositions, 0, mySize, thePosition);
+		return search >= 0 ? search : -search - 1;
+	}
+}
+}
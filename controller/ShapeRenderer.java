@@ -0,0 +1,198 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A ShapeRenderer class to draw the Shapes stored for a DrawPanel.
+ */
+
+package controller;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+
+import tools.Polyline;
+import tools.ShapeAttributeContainer;
+
+/**
+ * This program defines how a stored Shape is drawn: its outline in its own Color,
+ * or in the background Color if it was drawn in 'erase' mode, followed by its fill
+ * if it is filled. Freehand Polylines are stroked with round caps and joins. Every
+ * renderer of stored Shapes draws through this class so that they all produce the
+ * same pixels, whether a Shape is held in a ShapeAttributeContainer or a ShapeStore.
+ *
+ * The strokes of outlines up to the widest a DrawPanel allows are interned, and a
+ * Graphics context's paint and stroke are only set when they change, so drawing a
+ * run of Shapes of one style costs a single pipeline state change and allocates
+ * nothing.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class ShapeRenderer {
+	
+	/** The widest outline whose strokes are interned. */
+	private static final int MAX_INTERNED_WIDTH = 20;
+	
+	/** The interned strokes of outlines with plain caps and joins, by width. */
+	private static final BasicStroke[] STROKES = createStrokes(false);
+	
+	/** The interned strokes of outlines with round caps and joins, by width. */
+	private static final BasicStroke[] ROUND_STROKES = createStrokes(true);
+	
+	/** Prevents instantiation of this utility class. */
+	private ShapeRenderer() {
+		throw new IllegalStateException();
+	}
+	
+	/**
+	 * Configures the provided Graphics context for drawing stored Shapes.
+	 *
+	 * @param theGraphics is the Graphics context.
+	 */
+	public static void prepare(final Graphics2D theGraphics) {
+		theGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+				                     RenderingHints.VALUE_ANTIALIAS_ON);
+	}
+	
+	/**
+	 * Draws a single stored Shape onto the provided Graphics context.
+	 *
+	 * @param theGraphics is the Graphics context.
+	 * @param theShape is the stored Shape to be drawn.
+	 * @param theBackground is the background Color erased Shapes are drawn in.
+	 */
+	public static void draw(final Graphics2D theGraphics,
+			                final ShapeAttributeContainer theShape,
+			                final Color theBackground) {
+		draw(theGraphics, theShape.getShape(), theShape.getShape() instanceof Polyline,
+			 theShape.isEraserActivated() ? theBackground : theShape.getColor(),
+			 theShape.getStrokeWidth(), theShape.isFilled(), theShape.getFillColor());
+	}
+	
+	/**
+	 * Draws a single Shape of a ShapeStore onto the provided Graphics context.
+	 *
+	 * @param theGraphics is the Graphics context.
+	 * @param theShapes is the ShapeStore holding the Shape.
+	 * @param theIndex is the index of the Shape in theShapes.
+	 * @param theBackground is the background Color erased Shapes are drawn in.
+	 * @param theGeometry holds the reusable geometry of the calling thread.
+	 */
+	public static void draw(final Graphics2D theGraphics, final ShapeStore theShapes,
+			                final int theIndex, final Color theBackground,
+			                final ShapeStore.Geometry theGeometry) {
+		draw(theGraphics, theShapes.getShape(theIndex, theGeometry),
+			 theShapes.getKind(theIndex) == ShapeStore.POLYLINE,
+			 theShapes.isEraserActivated(theIndex) ? theBackground
+					                                : theShapes.getColor(theIndex),
+			 theShapes.getStrokeWidth(theIndex), theShapes.isFilled(theIndex),
+			 theShapes.getFillColor(theIndex));
+	}
+	
+	/**
+	 * Draws a Shape's outline and, if it is filled, its fill.
+	 *
+	 * @param theGraphics is the Graphics context.
+	 * @param theShape is the Shape.
+	 * @param theRound indicates if the outline has round caps and joins.
+	 * @param theColor is the Color of the outline.
+	 * @param theWidth is the width of the outline.
+	 * @param theFilled indicates if the Shape is filled.
+	 * @param theFillColor is the Color of the fill.
+	 */
+	private static void draw(final Graphics2D theGraphics, final Shape theShape,
+			                 final boolean theRound, final Color theColor,
+			                 final int theWidth, final boolean theFilled,
+			                 final Color theFillColor) {
+		setStyle(theGraphics, theColor, getStroke(theWidth, theRound));
+		theGraphics.draw(theShape);
+		if (theFilled) {
+			setPaint(theGraphics, theFillColor);
+			theGraphics.fill(theShape);
+		}
+	}
+	
+	/**
+	 * Sets the paint and stroke of the provided Graphics context, skipping either
+	 * if it is already set. Every change of either invalidates the context's 
+	 * rendering pipeline, which is then validated again by the next draw.
+	 *
+	 * @param theGraphics is the Graphics context.
+	 * @param theColor is the paint.
+	 * @param theStroke is the stroke.
+	 */
+	private static void setStyle(final Graphics2D theGraphics, final Color theColor,
+			                     final BasicStroke theStroke) {
+		setPaint(theGraphics, theColor);
+		if (!theStroke.equals(theGraphics.getStroke())) {
+			theGraphics.setStroke(theStroke);
+		}
+	}
+	
+	/**
+	 * Sets the paint of the provided Graphics context unless it is already set.
+	 *
+	 * @param theGraphics is the Graphics context.
+	 * @param theColor is the paint.
+	 */
+	private static void setPaint(final Graphics2D theGraphics, final Color theColor) {
+		if (!theColor.equals(theGraphics.getPaint())) {
+			theGraphics.setPaint(theColor);
+		}
+	}
+	
+	/**
+	 * Provides the stroke used to draw the outline of a stored Shape, interned if
+	 * its width is at most the widest a DrawPanel allows.
+	 * 
+	 * @param theWidth is the width of the outline.
+	 * @param theRound indicates if the outline has round caps and joins.
+	 * @return the stroke for the outline.
+	 */
+	static BasicStroke getStroke(final int theWidth, final boolean theRound) {
+		final BasicStroke stroke;
+		if (theWidth < 0 || theWidth > MAX_INTERNED_WIDTH) {
+			stroke = createStroke(theWidth, theRound);
+		} else if (theRound) {
+			stroke = ROUND_STROKES[theWidth];
+		} else {
+			stroke = STROKES[theWidth];
+		}
+		return stroke;
+	}
+	
+	/**
+	 * Creates the interned strokes of every outline width up to the widest a
+	 * DrawPanel allows.
+	 * 
+	 * @param theRound indicates if the outlines have round caps and joins.
+	 * @return the strokes, indexed by width.
+	 */
+	private static BasicStroke[] createStrokes(final boolean theRound) {
+		final BasicStroke[] strokes = new BasicStroke[MAX_INTERNED_WIDTH + 1];
+		for (int width = 0; width < strokes.length; width++) {
+			strokes[width] = createStroke(width, theRound);
+		}
+		return strokes;
+	}
+	
+	/**
+	 * Creates the stroke used to draw the outline of a stored Shape.
+	 * 
+	 * @param theWidth is the width of the outline.
+	 * @param theRound indicates if the outline has round caps and joins.
+	 * @return the stroke for the outline.
+	 */
+	private static BasicStroke createStroke(final int theWidth, final boolean theRound) {
+		final BasicStroke stroke;
+		if (theRound) {
+			stroke = new BasicStroke(theWidth, BasicStroke.CAP_ROUND, 
+					                 BasicStroke.JOIN_ROUND);
+		} else {
+			stroke = new BasicStroke(theWidth);
+		}
+		return stroke;
+	}
+}
@@ -0,0 +1,1341 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A ShapeStore class to hold the Shapes drawn on a DrawPanel in packed columns.
+ */
+
+package controller;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RectangularShape;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import tools.Polyline;
+import tools.ShapeAttributeContainer;
+
+/**
+ * This program stores a sequence of drawn Shapes and their attributes in primitive
+ * columns rather than as individual ShapeAttributeContainer objects. Each Shape
+ * occupies one entry in every column: its kind, stroke width, flags, ARGB Colors,
+ * ID number, and the offset of its coordinates within a packed coordinate array.
+ * Colors are interned so that the Color objects handed out for a given ARGB value
+ * are shared. Lines, rectangles, ellipses, and Polylines are stored this way; any
+ * other Shape, or one whose coordinates cannot be stored exactly as floats, is kept
+ * as an object on the side.
+ *
+ * Shapes are added and removed only at the end of a ShapeStore, in the same way
+ * that Shapes are drawn, undone, and redone on a DrawPanel. Consecutive Shapes with
+ * the same ID number form a group, and the start of every group is recorded so that
+ * a group's boundaries are found without comparing ID numbers. ShapeAttributeContainers
+ * are created only as views of stored Shapes, for saving and compatibility.
+ *
+ * The columns are split into chunks of 1024 Shapes, each with its own coordinate
+ * array, so that a ShapeStore is a persistent vector: a read-only snapshot of it is
+ * taken in constant time by sharing its chunks. Shapes added beyond those a snapshot
+ * can see are written into the shared chunks without disturbing it. Only when a
+ * Shape is removed and another stored in its place, or a shared chunk must grow, is
+ * that one chunk copied before it changes, so drawing after an undo costs at most
+ * one chunk however long the drawing is. Interned Colors are never removed and are
+ * shared by every snapshot. A snapshot may therefore be read on any thread while
+ * its ShapeStore continues to change.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class ShapeStore {
+	
+	/** The kind of a stored Line2D, with coordinates x1, y1, x2, y2. */
+	public static final byte LINE = 0;
+	
+	/** The kind of a stored Rectangle2D, with coordinates x, y, width, height. */
+	public static final byte RECTANGLE = 1;
+	
+	/** The kind of a stored Ellipse2D, with coordinates x, y, width, height. */
+	public static final byte ELLIPSE = 2;
+	
+	/** The kind of a stored Polyline, with coordinates x and y for each Point. */
+	public static final byte POLYLINE = 3;
+	
+	/** The kind of a Shape stored as an object, with no coordinates. */
+	public static final byte OTHER = 4;
+	
+	/** The flag bit marking a filled Shape. */
+	private static final int FILLED = 1;
+	
+	/** The flag bit marking a Shape drawn in 'erase' mode. */
+	private static final int ERASER = 2;
+	
+	/** The number of pixels beyond a Shape's stroke touched by antialiasing. */
+	private static final int ANTIALIAS_MARGIN = 2;
+	
+	/** The largest stroke width a ShapeStore can hold. */
+	private static final int MAX_WIDTH = 0xFF;
+	
+	/** The initial number of Shapes the first chunk of a ShapeStore can hold. */
+	private static final int INITIAL_CAPACITY = 64;
+	
+	/** The base 2 logarithm of the number of Shapes or groups in a full chunk. */
+	private static final int CHUNK_BITS = 10;
+	
+	/** The number of Shapes or groups in a full chunk. */
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	
+	/** The mask selecting an index's position within its chunk. */
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	
+	/** The initial number of chunk slots of a ShapeStore. */
+	private static final int INITIAL_CHUNKS = 4;
+	
+	/** The fraction, as a divisor, of a full chunk's coordinates added as headroom
+	 *  when sizing the chunk after it.
+	 */
+	private static final int COORD_HEADROOM = 8;
+	
+	/** The number of coordinates of a line, rectangle, or ellipse. */
+	private static final int FRAME_COORDS = 4;
+	
+	/** The interned Colors handed out by this ShapeStore, keyed by ARGB value. */
+	private final Map<Integer, Color> myColors;
+	
+	/** The chunks of Shapes, in order. */
+	private Chunk[] myChunks;
+	
+	/** The epoch each chunk of Shapes was created or copied in, or null for a snapshot. */
+	private long[] myChunkEpochs;
+	
+	/** The number of chunk slots holding a chunk of Shapes. */
+	private int myChunkCount;
+	
+	/** The chunks of group starts, each holding the index of the first Shape of
+	 *  successive groups, in order.
+	 */
+	private int[][] myGroupChunks;
+	
+	/** The epoch each chunk of group starts was created or copied in, or null for a
+	 *  snapshot.
+	 */
+	private long[] myGroupEpochs;
+	
+	/** The number of chunk slots holding a chunk of group starts. */
+	private int myGroupChunkCount;
+	
+	/** The number of groups in this ShapeStore. */
+	private int myGroupCount;
+	
+	/** The number of Shapes in this ShapeStore. */
+	private int mySize;
+	
+	/** The current epoch; chunks created or copied in an earlier one may be shared. */
+	private long myEpoch;
+	
+	/** The number of leading Shapes visible to snapshots of this ShapeStore. */
+	private int mySharedSize;
+	
+	/** The number of leading groups visible to snapshots of this ShapeStore. */
+	private int mySharedGroupCount;
+	
+	/** Indicates if the array of chunks of Shapes is shared with a snapshot. */
+	private boolean myChunksShared;
+	
+	/** Indicates if the array of chunks of group starts is shared with a snapshot. */
+	private boolean myGroupChunksShared;
+	
+	/** Indicates if this ShapeStore is a snapshot, which may not be changed. */
+	private final boolean myReadOnly;
+	
+	/** Constructs a new, empty ShapeStore. */
+	public ShapeStore() {
+		myColors = new ConcurrentHashMap<Integer, Color>();
+		myChunks = new Chunk[INITIAL_CHUNKS];
+		myChunkEpochs = new long[INITIAL_CHUNKS];
+		myGroupChunks = new int[INITIAL_CHUNKS][];
+		myGroupEpochs = new long[INITIAL_CHUNKS];
+		myReadOnly = false;
+	}
+	
+	/**
+	 * Constructs a read-only snapshot sharing the chunks and Colors of a ShapeStore.
+	 *
+	 * @param theShapes is the ShapeStore.
+	 */
+	private ShapeStore(final ShapeStore theShapes) {
+		myColors = theShapes.myColors;
+		myChunks = theShapes.myChunks;
+		myChunkCount = theShapes.myChunkCount;
+		myGroupChunks = theShapes.myGroupChunks;
+		myGroupChunkCount = theShapes.myGroupChunkCount;
+		myGroupCount = theShapes.myGroupCount;
+		mySize = theShapes.mySize;
+		myReadOnly = true;
+	}
+	
+	/**
+	 * Provides the number of Shapes in this ShapeStore.
+	 *
+	 * @return the number of Shapes in this ShapeStore.
+	 */
+	public int size() {
+		return mySize;
+	}
+	
+	/**
+	 * Indicates whether this ShapeStore holds no Shapes.
+	 *
+	 * @return true if this ShapeStore is empty, false otherwise.
+	 */
+	public boolean isEmpty() {
+		return mySize == 0;
+	}
+	
+	/**
+	 * Adds a drawn Shape and its attributes to the end of this ShapeStore.
+	 *
+	 * @param theShape is the drawn Shape and its attributes.
+	 * @throws NullPointerException if theShape or any of its Colors is null.
+	 * @throws IllegalArgumentException if theShape's stroke width is negative or
+	 * greater than 255.
+	 */
+	public void add(final ShapeAttributeContainer theShape) {
+		add(theShape, theShape.getID());
+	}
+	
+	/**
+	 * Adds a drawn Shape and its attributes to the end of this ShapeStore under
+	 * the provided ID number.
+	 *
+	 * @param theShape is the drawn Shape and its attributes.
+	 * @param theID is the ID number to store theShape under.
+	 * @throws NullPointerException if theShape or any of its Colors is null.
+	 * @throws IllegalArgumentException if theShape's stroke width is negative or
+	 * greater than 255.
+	 */
+	public void add(final ShapeAttributeContainer theShape, final int theID) {
+		final int width = theShape.getStrokeWidth();
+		if (width < 0 || width > MAX_WIDTH) {
+			throw new IllegalArgumentException("Stroke widths must be in [0, 255]!");
+		}
+		int flags = 0;
+		if (theShape.isFilled()) {
+			flags |= FILLED;
+		}
+		if (theShape.isEraserActivated()) {
+			flags |= ERASER;
+		}
+		final Shape shape = theShape.getShape();
+		final byte kind = classify(shape);
+		final int count;
+		if (kind == POLYLINE) {
+			count = ((Polyline) shape).getPointCount() * 2;
+		} else if (kind == OTHER) {
+			count = 0;
+		} else {
+			count = FRAME_COORDS;
+		}
+		final int index = mySize;
+		final Chunk chunk = prepareWrite(index, count, kind == OTHER);
+		final int slot = index & CHUNK_MASK;
+		addCoordinates(chunk, slot, kind, shape);
+		chunk.myKinds[slot] = kind;
+		chunk.myWidths[slot] = (byte) width;
+		chunk.myFlags[slot] = (byte) flags;
+		chunk.myOutlines[slot] = intern(theShape.getColor());
+		chunk.myFills[slot] = intern(theShape.getFillColor());
+		chunk.myIDs[slot] = theID;
+		addGroup(index, theID);
+		mySize++;
+	}
+	
+	/**
+	 * Provides the kind a Shape is stored as: OTHER if it is not a line, rectangle,
+	 * ellipse, or Polyline, or if its coordinates cannot be represented exactly.
+	 *
+	 * @param theShape is the Shape.
+	 * @return the kind the Shape is stored as.
+	 */
+	private static byte classify(final Shape theShape) {
+		byte kind = OTHER;
+		if (theShape instanceof Polyline) {
+			kind = POLYLINE;
+		} else if (theShape instanceof Line2D.Double || theShape instanceof Line2D.Float) {
+			final Line2D line = (Line2D) theShape;
+			kind = classifyFrame(LINE, line.getX1(), line.getY1(),
+					                   line.getX2(), line.getY2());
+		} else if (theShape instanceof Rectangle2D.Double
+				   || theShape instanceof Rectangle2D.Float) {
+			final Rectangle2D rect = (Rectangle2D) theShape;
+			kind = classifyFrame(RECTANGLE, rect.getX(), rect.getY(),
+					                        rect.getWidth(), rect.getHeight());
+		} else if (theShape instanceof Ellipse2D.Double
+				   || theShape instanceof Ellipse2D.Float) {
+			final Ellipse2D ellipse = (Ellipse2D) theShape;
+			kind = classifyFrame(ELLIPSE, ellipse.getX(), ellipse.getY(),
+					                      ellipse.getWidth(), ellipse.getHeight());
+		}
+		return kind;
+	}
+	
+	/**
+	 * Provides the kind a line, rectangle, or ellipse is stored as, according to
+	 * whether each of its four coordinates can be represented exactly as a float.
+	 *
+	 * @param theKind is the kind of Shape described by the coordinates.
+	 * @param theA is the first coordinate.
+	 * @param theB is the second coordinate.
+	 * @param theC is the third coordinate.
+	 * @param theD is the fourth coordinate.
+	 * @return theKind if the coordinates can be stored, OTHER otherwise.
+	 */
+	private static byte classifyFrame(final byte theKind, final double theA,
+			                          final double theB, final double theC,
+			                          final double theD) {
+		byte kind = OTHER;
+		if ((float) theA == theA && (float) theB == theB &&
+			(float) theC == theC && (float) theD == theD) {
+			kind = theKind;
+		}
+		return kind;
+	}
+	
+	/**
+	 * Stores the coordinates of a Shape after those of the Shape before it in a
+	 * chunk, or stores the Shape itself if it is of kind OTHER.
+	 *
+	 * @param theChunk is the chunk, already able to hold the coordinates.
+	 * @param theSlot is the position the Shape is stored at within theChunk.
+	 * @param theKind is the kind the Shape is stored as.
+	 * @param theShape is the Shape.
+	 */
+	private static void addCoordinates(final Chunk theChunk, final int theSlot,
+			                           final byte theKind, final Shape theShape) {
+		final float[] coords = theChunk.myCoords;
+		final int offset = theChunk.myOffsets[theSlot];
+		int end = offset + FRAME_COORDS;
+		switch (theKind) {
+			case POLYLINE:
+				final Polyline line = (Polyline) theShape;
+				final int count = line.getPointCount();
+				for (int i = 0; i < count; i++) {
+					coords[offset + i * 2] = line.getX(i);
+					coords[offset + i * 2 + 1] = line.getY(i);
+				}
+				end = offset + count * 2;
+				break;
+			case LINE:
+				final Line2D segment = (Line2D) theShape;
+				putFrame(coords, offset, segment.getX1(), segment.getY1(),
+						 segment.getX2(), segment.getY2());
+				break;
+			case RECTANGLE:
+			case ELLIPSE:
+				final RectangularShape frame = (RectangularShape) theShape;
+				putFrame(coords, offset, frame.getX(), frame.getY(),
+						 frame.getWidth(), frame.getHeight());
+				break;
+			default:
+				theChunk.myOthers[theSlot] = theShape;
+				end = offset;
+				break;
+		}
+		theChunk.myOffsets[theSlot + 1] = end;
+	}
+	
+	/**
+	 * Stores four coordinates in a coordinate array as floats.
+	 *
+	 * @param theCoords is the coordinate array.
+	 * @param theOffset is the offset the first coordinate is stored at.
+	 * @param theA is the first coordinate.
+	 * @param theB is the second coordinate.
+	 * @param theC is the third coordinate.
+	 * @param theD is the fourth coordinate.
+	 */
+	private static void putFrame(final float[] theCoords, final int theOffset,
+			                     final double theA, final double theB,
+			                     final double theC, final double theD) {
+		theCoords[theOffset] = (float) theA;
+		theCoords[theOffset + 1] = (float) theB;
+		theCoords[theOffset + 2] = (float) theC;
+		theCoords[theOffset + 3] = (float) theD;
+	}
+	
+	/**
+	 * Moves the last Shape of this ShapeStore to the end of another ShapeStore.
+	 *
+	 * @param theOther is the ShapeStore receiving the Shape.
+	 * @throws IllegalStateException if this ShapeStore is empty.
+	 */
+	public void moveLastTo(final ShapeStore theOther) {
+		checkNotEmpty();
+		copyTo(mySize - 1, theOther, getID(mySize - 1));
+		removeLast();
+	}
+	
+	/**
+	 * Copies a stored Shape and its attributes to the end of another ShapeStore
+	 * under the provided ID number.
+	 *
+	 * @param theIndex is the index of the Shape.
+	 * @param theOther is the ShapeStore receiving the Shape.
+	 * @param theID is the ID number to store the Shape under.
+	 */
+	public void copyTo(final int theIndex, final ShapeStore theOther, final int theID) {
+		final Chunk source = getChunk(theIndex);
+		final int from = theIndex & CHUNK_MASK;
+		final int offset = source.myOffsets[from];
+		final int count = source.myOffsets[from + 1] - offset;
+		final byte kind = source.myKinds[from];
+		final int index = theOther.mySize;
+		final Chunk target = theOther.prepareWrite(index, count, kind == OTHER);
+		final int to = index & CHUNK_MASK;
+		target.myKinds[to] = kind;
+		target.myWidths[to] = source.myWidths[from];
+		target.myFlags[to] = source.myFlags[from];
+		target.myOutlines[to] = theOther.intern(myColors.get(source.myOutlines[from]));
+		target.myFills[to] = theOther.intern(myColors.get(source.myFills[from]));
+		target.myIDs[to] = theID;
+		System.arraycopy(source.myCoords, offset, target.myCoords,
+				         target.myOffsets[to], count);
+		target.myOffsets[to + 1] = target.myOffsets[to] + count;
+		if (kind == OTHER) {
+			target.myOthers[to] = source.myOthers[from];
+		}
+		theOther.addGroup(index, theID);
+		theOther.mySize++;
+	}
+	
+	/**
+	 * Provides a new ShapeStore holding the same Shapes as this ShapeStore and
+	 * sharing none of its chunks.
+	 *
+	 * @return the copy.
+	 */
+	public ShapeStore copy() {
+		final ShapeStore copy = new ShapeStore();
+		copy.myColors.putAll(myColors);
+		final int chunks = (mySize + CHUNK_MASK) >>> CHUNK_BITS;
+		copy.myChunks = new Chunk[Math.max(INITIAL_CHUNKS, chunks)];
+		copy.myChunkEpochs = new long[copy.myChunks.length];
+		for (int c = 0; c < chunks; c++) {
+			final Chunk chunk = myChunks[c];
+			copy.myChunks[c] = new Chunk(chunk, chunk.myKinds.length,
+					                     chunk.myCoords.length, false);
+		}
+		copy.myChunkCount = chunks;
+		final int groupChunks = (myGroupCount + CHUNK_MASK) >>> CHUNK_BITS;
+		copy.myGroupChunks = new int[Math.max(INITIAL_CHUNKS, groupChunks)][];
+		copy.myGroupEpochs = new long[copy.myGroupChunks.length];
+		for (int c = 0; c < groupChunks; c++) {
+			copy.myGroupChunks[c] = myGroupChunks[c].clone();
+		}
+		copy.myGroupChunkCount = groupChunks;
+		copy.myGroupCount = myGroupCount;
+		copy.mySize = mySize;
+		return copy;
+	}
+	
+	/**
+	 * Provides a read-only snapshot of this ShapeStore, holding the Shapes it holds
+	 * now, in constant time. The snapshot is unaffected by later changes to this
+	 * ShapeStore and may be read on any thread once it has been safely published.
+	 *
+	 * @return the snapshot.
+	 */
+	public ShapeStore snapshot() {
+		final ShapeStore snapshot;
+		if (myReadOnly) {
+			snapshot = this;
+		} else {
+			snapshot = new ShapeStore(this);
+			myEpoch++;
+			myChunksShared = true;
+			myGroupChunksShared = true;
+			mySharedSize = Math.max(mySharedSize, mySize);
+			mySharedGroupCount = Math.max(mySharedGroupCount, myGroupCount);
+		}
+		return snapshot;
+	}
+	
+	/**
+	 * Removes the last Shape of this ShapeStore.
+	 *
+	 * @throws IllegalStateException if this ShapeStore is empty.
+	 */
+	public void removeLast() {
+		checkWritable();
+		checkNotEmpty();
+		mySize--;
+		if (getGroupStartAt(myGroupCount - 1) == mySize) {
+			myGroupCount--;
+		}
+	}
+	
+	/** Removes every Shape from this ShapeStore. */
+	public void clear() {
+		checkWritable();
+		myChunks = new Chunk[INITIAL_CHUNKS];
+		myChunkEpochs = new long[INITIAL_CHUNKS];
+		myChunkCount = 0;
+		myGroupChunks = new int[INITIAL_CHUNKS][];
+		myGroupEpochs = new long[INITIAL_CHUNKS];
+		myGroupChunkCount = 0;
+		myGroupCount = 0;
+		mySize = 0;
+		mySharedSize = 0;
+		mySharedGroupCount = 0;
+		myChunksShared = false;
+		myGroupChunksShared = false;
+	}
+	
+	/**
+	 * Records the start of a new group if the Shape just stored at the provided
+	 * index has a different ID number than the Shape before it.
+	 *
+	 * @param theIndex is the index of the Shape.
+	 * @param theID is the ID number of the Shape.
+	 */
+	private void addGroup(final int theIndex, final int theID) {
+		final int previous = theIndex - 1;
+		if (theIndex == 0
+			|| myChunks[previous >>> CHUNK_BITS].myIDs[previous & CHUNK_MASK] != theID) {
+			prepareGroupWrite(myGroupCount)[myGroupCount & CHUNK_MASK] = theIndex;
+			myGroupCount++;
+		}
+	}
+	
+	/**
+	 * Provides the number of groups in this ShapeStore.
+	 *
+	 * @return the number of groups.
+	 */
+	public int getGroupCount() {
+		return myGroupCount;
+	}
+	
+	/**
+	 * Provides the index of the first Shape of a group.
+	 *
+	 * @param theGroup is the index of the group, in drawing order.
+	 * @return the index of the group's first Shape.
+	 * @throws IndexOutOfBoundsException if theGroup is not a valid group index.
+	 */
+	public int getGroupStart(final int theGroup) {
+		if (theGroup < 0 || theGroup >= myGroupCount) {
+			throw new IndexOutOfBoundsException("Invalid group index: " + theGroup);
+		}
+		return getGroupStartAt(theGroup);
+	}
+	
+	/**
+	 * Provides the index of the first Shape of the last group.
+	 *
+	 * @return the index of the last group's first Shape.
+	 * @throws IllegalStateException if this ShapeStore is empty.
+	 */
+	public int getLastGroupStart() {
+		checkNotEmpty();
+		return getGroupStartAt(myGroupCount - 1);
+	}
+	
+	/**
+	 * Provides the index of the first Shape of a group without checking that the
+	 * group exists.
+	 *
+	 * @param theGroup is the index of the group.
+	 * @return the index of the group's first Shape.
+	 */
+	private int getGroupStartAt(final int theGroup) {
+		return myGroupChunks[theGroup >>> CHUNK_BITS][theGroup & CHUNK_MASK];
+	}
+	
+	/**
+	 * Provides the kind of a stored Shape: LINE, RECTANGLE, ELLIPSE, POLYLINE,
+	 * or OTHER.
+	 *
+	 * @param theIndex is the index of the Shape.
+	 * @return the kind of the Shape.
+	 */
+	public byte getKind(final int theIndex) {
+		return getChunk(theIndex).myKinds[theIndex & CHUNK_MASK];
+	}
+	
+	/**
+	 * Provides the ID number of a stored Shape.
+	 *
+	 * @param theIndex is the index of the Shape.
+	 * @return the ID number of the Shape.
+	 */
+	public int getID(final int theIndex) {
+		return getChunk(theIndex).myIDs[theIndex & CHUNK_MASK];
+	}
+	
+	/**
+	 * Provides the stroke width of a stored Shape.
+	 *
+	 * @param theIndex is the index of the Shape.
+	 * @return the stroke width of the Shape.
+	 */
+	public int getStrokeWidth(final int theIndex) {
+		return getChunk(theIndex).myWidths[theIndex & CHUNK_MASK] & MAX_WIDTH;
+	}
+	
+	/**
+	 * Indicates if a stored Shape is filled.
+	 *
+	 * @param theIndex is the index of the Shape.
+	 * @return true if the Shape is filled, false otherwise.
+	 */
+	public boolean isFilled(final int theIndex) {
+		return (getChunk(theIndex).myFlags[theIndex & CHUNK_MASK] & FILLED) != 0;
+	}
+	
+	/**
+	 * Indicates if a stored Shape was drawn in 'erase' mode.
+	 *
+	 * @param theIndex is the index of the Shape.
+	 * @return true if the Shape was drawn in 'erase' mode, false otherwise.
+	 */
+	public boolean isEraserActivated(final int theIndex) {
+		return (getChunk(theIndex).myFlags[theIndex & CHUNK_MASK] & ERASER) != 0;
+	}
+	
+	/**
+	 * Provides the outline Color of a stored Shape.
+	 *
+	 * @param theIndex is the index of the Shape.
+	 * @return the outline Color of the Shape.
+	 */
+	public Color getColor(final int theIndex) {
+		return myColors.get(getChunk(theIndex).myOutlines[theIndex & CHUNK_MASK]);
+	}
+	
+	/**
+	 * Provides the fill Color of a stored Shape.
+	 *
+	 * @param theIndex is the index of the Shape.
+	 * @return the fill Color of the Shape.
+	 */
+	public Color getFillColor(final int theIndex) {
+		return myColors.get(getChunk(theIndex).myFills[theIndex & CHUNK_MASK]);
+	}
+	
+	/**
+	 * Provides the number of coordinates stored for a Shape: 4 for a line, rectangle,
+	 * or ellipse, 2 per Point for a Polyline, and 0 for a Shape of kind OTHER.
+	 *
+	 * @param theIndex is the index of the Shape.
+	 * @return the number of coordinates.
+	 */
+	public int getCoordinateCount(final int theIndex) {
+		final int[] offsets = getChunk(theIndex).myOffsets;
+		final int slot = theIndex & CHUNK_MASK;
+		return offsets[slot + 1] - offsets[slot];
+	}
+	
+	/**
+	 * Provides one coordinate stored for a Shape, in the order described by the
+	 * Shape's kind.
+	 *
+	 * @param theIndex is the index of the Shape.
+	 * @param theCoordinate is the index of the coordinate.
+	 * @return the coordinate.
+	 * @throws IndexOutOfBoundsException if theCoordinate is not a valid coordinate
+	 * index for the Shape.
+	 */
+	public float getCoordinate(final int theIndex, final int theCoordinate) {
+		if (theCoordinate < 0 || theCoordinate >= getCoordinateCount(theIndex)) {
+			throw new IndexOutOfBoundsException("Invalid coordinate: " + theCoordinate);
+		}
+		final Chunk chunk = myChunks[theIndex >>> CHUNK_BITS];
+		return chunk.myCoords[chunk.myOffsets[theIndex & CHUNK_MASK] + theCoordinate];
+	}
+	
+	/**
+	 * Provides the bounds of a stored Shape, not including its stroke.
+	 *
+	 * @param theIndex is the index of the Shape.
+	 * @return the bounds of the Shape.
+	 */
+	public Rectangle2D getBounds2D(final int theIndex) {
+		final Chunk chunk = getChunk(theIndex);
+		final int slot = theIndex & CHUNK_MASK;
+		final float[] coords = chunk.myCoords;
+		final int offset = chunk.myOffsets[slot];
+		final Rectangle2D bounds;
+		switch (chunk.myKinds[slot]) {
+			case LINE:
+				bounds = new Rectangle2D.Float(coords[offset], coords[offset + 1], 0, 0);
+				bounds.add(coords[offset + 2], coords[offset + 3]);
+				break;
+			case RECTANGLE:
+			case ELLIPSE:
+				bounds = new Rectangle2D.Float(coords[offset], coords[offset + 1],
+						                       coords[offset + 2], coords[offset + 3]);
+				break;
+			case POLYLINE:
+				bounds = new Rectangle2D.Float(coords[offset], coords[offset + 1], 0, 0);
+				for (int i = offset + 2; i < chunk.myOffsets[slot + 1]; i += 2) {
+					bounds.add(coords[i], coords[i + 1]);
+				}
+				break;
+			default:
+				bounds = chunk.myOthers[slot].getBounds2D();
+				break;
+		}
+		return bounds;
+	}
+	
+	/**
+	 * Provides the region covered by a stored Shape when it is drawn, including its
+	 * stroke and the pixels touched by antialiasing.
+	 *
+	 * @param theIndex is the index of the Shape.
+	 * @return the region covered by the Shape.
+	 */
+	public Rectangle getStrokeBounds(final int theIndex) {
+		final Rectangle bounds = getBounds2D(theIndex).getBounds();
+		final int margin = getStrokeWidth(theIndex) + ANTIALIAS_MARGIN;
+		bounds.grow(margin, margin);
+		return bounds;
+	}
+	
+	/**
+	 * Provides a stored Shape using the reusable geometry of the provided Geometry
+	 * holder. The returned Shape is only valid until theGeometry is used again and
+	 * must not be modified.
+	 *
+	 * @param theIndex is the index of the Shape.
+	 * @param theGeometry holds the reusable geometry.
+	 * @return the Shape.
+	 */
+	public Shape getShape(final int theIndex, final Geometry theGeometry) {
+		final Chunk chunk = getChunk(theIndex);
+		final int slot = theIndex & CHUNK_MASK;
+		final float[] coords = chunk.myCoords;
+		final int offset = chunk.myOffsets[slot];
+		final Shape shape;
+		switch (chunk.myKinds[slot]) {
+			case LINE:
+				theGeometry.myLine.setLine(coords[offset], coords[offset + 1],
+						                   coords[offset + 2], coords[offset + 3]);
+				shape = theGeometry.myLine;
+				break;
+			case RECTANGLE:
+				theGeometry.myRectangle.setRect(coords[offset], coords[offset + 1],
+						                        coords[offset + 2], coords[offset + 3]);
+				shape = theGeometry.myRectangle;
+				break;
+			case ELLIPSE:
+				theGeometry.myEllipse.setFrame(coords[offset], coords[offset + 1],
+						                       coords[offset + 2], coords[offset + 3]);
+				shape = theGeometry.myEllipse;
+				break;
+			case POLYLINE:
+				theGeometry.myPath.set(coords, offset,
+						               (chunk.myOffsets[slot + 1] - offset) / 2);
+				shape = theGeometry.myPath;
+				break;
+			default:
+				shape = chunk.myOthers[slot];
+				break;
+		}
+		return shape;
+	}
+	
+	/**
+	 * Provides a new ShapeAttributeContainer holding a copy of a stored Shape
+	 * and its attributes.
+	 *
+	 * @param theIndex is the index of the Shape.
+	 * @return the ShapeAttributeContainer.
+	 */
+	public ShapeAttributeContainer get(final int theIndex) {
+		final Chunk chunk = getChunk(theIndex);
+		final int slot = theIndex & CHUNK_MASK;
+		final float[] coords = chunk.myCoords;
+		final int offset = chunk.myOffsets[slot];
+		final Shape shape;
+		switch (chunk.myKinds[slot]) {
+			case LINE:
+				shape = new Line2D.Double(coords[offset], coords[offset + 1],
+						                  coords[offset + 2], coords[offset + 3]);
+				break;
+			case RECTANGLE:
+				shape = new Rectangle2D.Double(coords[offset], coords[offset + 1],
+						                       coords[offset + 2], coords[offset + 3]);
+				break;
+			case ELLIPSE:
+				shape = new Ellipse2D.Double(coords[offset], coords[offset + 1],
+						                     coords[offset + 2], coords[offset + 3]);
+				break;
+			case POLYLINE:
+				final Polyline line = new Polyline(coords[offset], coords[offset + 1]);
+				for (int i = offset + 2; i < chunk.myOffsets[slot + 1]; i += 2) {
+					line.lineTo(coords[i], coords[i + 1]);
+				}
+				shape = line;
+				break;
+			default:
+				shape = chunk.myOthers[slot];
+				break;
+		}
+		return new ShapeAttributeContainer(shape, isFilled(theIndex),
+				                           isEraserActivated(theIndex), getColor(theIndex),
+				                           getFillColor(theIndex),
+				                           getStrokeWidth(theIndex), getID(theIndex));
+	}
+	
+	/**
+	 * Provides the shared Color object for a Color's ARGB value, recording theColor
+	 * as the shared object if there is none yet.
+	 *
+	 * @param theColor is the Color.
+	 * @return theColor's ARGB value.
+	 * @throws NullPointerException if theColor is null.
+	 */
+	private int intern(final Color theColor) {
+		Objects.requireNonNull(theColor, "Colors must be non-null!");
+		final int argb = theColor.getRGB();
+		if (!myColors.containsKey(argb)) {
+			myColors.putIfAbsent(argb, theColor);
+		}
+		return argb;
+	}
+	
+	/**
+	 * Prepares this ShapeStore to store a Shape at the provided index, creating the
+	 * chunk for that index if there is none and growing it to hold the Shape and its
+	 * coordinates. A chunk shared with a snapshot is first copied if the snapshot
+	 * can see the entries at that index or if the chunk must grow.
+	 *
+	 * @param theIndex is the index.
+	 * @param theCoords is the number of coordinates of the Shape.
+	 * @param theOther indicates if the Shape is stored as an object.
+	 * @return the chunk holding the index, ready to be written.
+	 * @throws IllegalStateException if this ShapeStore is a snapshot.
+	 */
+	private Chunk prepareWrite(final int theIndex, final int theCoords,
+			                   final boolean theOther) {
+		checkWritable();
+		final int c = theIndex >>> CHUNK_BITS;
+		final int slot = theIndex & CHUNK_MASK;
+		if (c == myChunkCount) {
+			setChunk(c, createChunk(c));
+			myChunkCount++;
+		}
+		Chunk chunk = myChunks[c];
+		final int capacity = grow(chunk.myKinds.length, slot + 1, CHUNK_SIZE);
+		final int coords = grow(chunk.myCoords.length, chunk.myOffsets[slot] + theCoords,
+				                Integer.MAX_VALUE);
+		final boolean resize = capacity != chunk.myKinds.length
+							   || coords != chunk.myCoords.length
+							   || theOther && chunk.myOthers == null;
+		if (myChunkEpochs[c] == myEpoch) {
+			if (resize) {
+				chunk.resize(capacity, coords, theOther);
+			}
+		} else if (resize || theIndex < mySharedSize) {
+			chunk = new Chunk(chunk, capacity, coords, theOther);
+			setChunk(c, chunk);
+		}
+		return chunk;
+	}
+	
+	/**
+	 * Creates the chunk for an empty chunk slot. The first chunk starts small; each
+	 * later chunk is sized to hold slightly more coordinates than the full chunk
+	 * before it, so that chunks of long Polylines rarely grow.
+	 *
+	 * @param theSlot is the chunk slot.
+	 * @return the new chunk.
+	 */
+	private Chunk createChunk(final int theSlot) {
+		final Chunk chunk;
+		if (theSlot == 0) {
+			chunk = new Chunk(INITIAL_CAPACITY, INITIAL_CAPACITY * FRAME_COORDS);
+		} else {
+			final int used = myChunks[theSlot - 1].myOffsets[CHUNK_SIZE];
+			chunk = new Chunk(CHUNK_SIZE, Math.max(CHUNK_SIZE, used + used / COORD_HEADROOM));
+		}
+		return chunk;
+	}
+	
+	/**
+	 * Prepares this ShapeStore to record the start of a group, creating, growing,
+	 * or copying the chunk of group starts holding it as for a chunk of Shapes.
+	 *
+	 * @param theGroup is the index of the group.
+	 * @return the chunk of group starts holding the group, ready to be written.
+	 */
+	private int[] prepareGroupWrite(final int theGroup) {
+		final int c = theGroup >>> CHUNK_BITS;
+		if (c == myGroupChunkCount) {
+			setGroupChunk(c, new int[c == 0 ? INITIAL_CAPACITY : CHUNK_SIZE]);
+			myGroupChunkCount++;
+		}
+		int[] starts = myGroupChunks[c];
+		final int length = grow(starts.length, (theGroup & CHUNK_MASK) + 1, CHUNK_SIZE);
+		if (length != starts.length
+			|| myGroupEpochs[c] != myEpoch && theGroup < mySharedGroupCount) {
+			starts = Arrays.copyOf(starts, length);
+			setGroupChunk(c, starts);
+		}
+		return starts;
+	}
+	
+	/**
+	 * Places a chunk of Shapes in a chunk slot, first copying the array of chunks if
+	 * a snapshot shares it, and marks the chunk as belonging to the current epoch.
+	 *
+	 * @param theSlot is the chunk slot.
+	 * @param theChunk is the chunk.
+	 */
+	private void setChunk(final int theSlot, final Chunk theChunk) {
+		if (theSlot == myChunks.length) {
+			myChunks = Arrays.copyOf(myChunks, theSlot * 2);
+			myChunkEpochs = Arrays.copyOf(myChunkEpochs, theSlot * 2);
+			myChunksShared = false;
+		} else if (myChunksShared) {
+			myChunks = myChunks.clone();
+			myChunksShared = false;
+		}
+		myChunks[theSlot] = theChunk;
+		myChunkEpochs[theSlot] = myEpoch;
+	}
+	
+	/**
+	 * Places a chunk of group starts in a chunk slot, first copying the array of
+	 * chunks if a snapshot shares it, and marks the chunk as belonging to the
+	 * current epoch.
+	 *
+	 * @param theSlot is the chunk slot.
+	 * @param theStarts is the chunk of group starts.
+	 */
+	private void setGroupChunk(final int theSlot, final int[] theStarts) {
+		if (theSlot == myGroupChunks.length) {
+			myGroupChunks = Arrays.copyOf(myGroupChunks, theSlot * 2);
+			myGroupEpochs = Arrays.copyOf(myGroupEpochs, theSlot * 2);
+			myGroupChunksShared = false;
+		} else if (myGroupChunksShared) {
+			myGroupChunks = myGroupChunks.clone();
+			myGroupChunksShared = false;
+		}
+		myGroupChunks[theSlot] = theStarts;
+		myGroupEpochs[theSlot] = myEpoch;
+	}
+	
+	/**
+	 * Provides the length an array should have to hold the provided number of
+	 * entries, doubling its current length if it is too short.
+	 *
+	 * @param theLength is the current length of the array.
+	 * @param theNeeded is the number of entries the array must hold.
+	 * @param theLimit is the largest length the array may grow to.
+	 * @return the new length, or theLength if the array is long enough.
+	 */
+	private static int grow(final int theLength, final int theNeeded, final int theLimit) {
+		int length = theLength;
+		if (theNeeded > theLength) {
+			length = Math.min(theLimit, Math.max(theNeeded, theLength * 2));
+		}
+		return length;
+	}
+	
+	/**
+	 * Ensures this ShapeStore is not a snapshot.
+	 *
+	 * @throws IllegalStateException if this ShapeStore is a snapshot.
+	 */
+	private void checkWritable() {
+		if (myReadOnly) {
+			throw new IllegalStateException("ShapeStore snapshots are read-only!");
+		}
+	}
+	
+	/**
+	 * Ensures this ShapeStore is not empty.
+	 *
+	 * @throws IllegalStateException if this ShapeStore is empty.
+	 */
+	private void checkNotEmpty() {
+		if (mySize == 0) {
+			throw new IllegalStateException("The ShapeStore is empty!");
+		}
+	}
+	
+	/**
+	 * Provides the chunk holding a stored Shape.
+	 *
+	 * @param theIndex is the index of the Shape.
+	 * @return the chunk holding the Shape.
+	 * @throws IndexOutOfBoundsException if theIndex is not a valid Shape index.
+	 */
+	private Chunk getChunk(final int theIndex) {
+		if (theIndex < 0 || theIndex >= mySize) {
+			throw new IndexOutOfBoundsException("Invalid Shape index: " + theIndex);
+		}
+		return myChunks[theIndex >>> CHUNK_BITS];
+	}
+
+/**
+ * A holder of the reusable geometry objects a ShapeStore fills in when providing
+ * stored Shapes for drawing. Each thread drawing stored Shapes needs its own.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public static final class Geometry {
+	
+	/** The reusable line. */
+	private final Line2D.Double myLine;
+	
+	/** The reusable rectangle. */
+	private final Rectangle2D.Double myRectangle;
+	
+	/** The reusable ellipse. */
+	private final Ellipse2D.Double myEllipse;
+	
+	/** The reusable Polyline path. */
+	private final PathView myPath;
+	
+	/** Constructs a new Geometry holder. */
+	public Geometry() {
+		myLine = new Line2D.Double();
+		myRectangle = new Rectangle2D.Double();
+		myEllipse = new Ellipse2D.Double();
+		myPath = new PathView();
+	}
+}
+
+/**
+ * A reusable, read-only Shape following a run of Points in a coordinate array. It
+ * describes the same path as a Polyline with those Points.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+private static final class PathView implements Shape {
+	
+	/** The coordinate array holding this PathView's Points. */
+	private float[] myCoords;
+	
+	/** The offset of this PathView's first Point in the coordinate array. */
+	private int myOffset;
+	
+	/** The number of Points in this PathView. */
+	private int myPointCount;
+	
+	/**
+	 * Points this PathView at a run of Points in a coordinate array.
+	 *
+	 * @param theCoords is the coordinate array.
+	 * @param theOffset is the offset of the first Point.
+	 * @param thePointCount is the number of Points.
+	 */
+	private void set(final float[] theCoords, final int theOffset,
+			         final int thePointCount) {
+		myCoords = theCoords;
+		myOffset = theOffset;
+		myPointCount = thePointCount;
+	}
+	
+	/**
+	 * Provides this PathView as a Path2D, used for bounds, containment, and
+	 * intersection tests.
+	 *
+	 * @return a Path2D following this PathView's Points.
+	 */
+	private Path2D createPath() {
+		final Path2D.Float path = new Path2D.Float(Path2D.WIND_NON_ZERO, myPointCount);
+		path.append(getPathIterator(null), false);
+		return path;
+	}
+	
+	/**
+	 * Provides the integer bounding Rectangle of this PathView's Points.
+	 *
+	 * @return the bounding Rectangle.
+	 */
+	@Override
+	public Rectangle getBounds() {
+		return createPath().getBounds();
+	}
+	
+	/**
+	 * Provides the bounding Rectangle2D of this PathView's Points.
+	 *
+	 * @return the bounding Rectangle2D.
+	 */
+	@Override
+	public Rectangle2D getBounds2D() {
+		return createPath().getBounds2D();
+	}
+	
+	/**
+	 * Indicates whether a point lies inside this PathView, treated as a closed path.
+	 *
+	 * @param theX is the x coordinate of the point.
+	 * @param theY is the y coordinate of the point.
+	 * @return true if the point lies inside, false otherwise.
+	 */
+	@Override
+	public boolean contains(final double theX, final double theY) {
+		return createPath().contains(theX, theY);
+	}
+	
+	/**
+	 * Indicates whether a Point2D lies inside this PathView, treated as a closed path.
+	 *
+	 * @param thePoint is the Point2D.
+	 * @return true if thePoint lies inside, false otherwise.
+	 */
+	@Override
+	public boolean contains(final Point2D thePoint) {
+		return createPath().contains(thePoint);
+	}
+	
+	/**
+	 * Indicates whether a rectangle intersects this PathView, treated as a closed path.
+	 *
+	 * @param theX is the x coordinate of the rectangle.
+	 * @param theY is the y coordinate of the rectangle.
+	 * @param theWidth is the width of the rectangle.
+	 * @param theHeight is the height of the rectangle.
+	 * @return true if the rectangle intersects, false otherwise.
+	 */
+	@Override
+	public boolean intersects(final double theX, final double theY,
+			                  final double theWidth, final double theHeight) {
+		return createPath().intersects(theX, theY, theWidth, theHeight);
+	}
+	
+	/**
+	 * Indicates whether a Rectangle2D intersects this PathView, treated as a closed path.
+	 *
+	 * @param theRect is the Rectangle2D.
+	 * @return true if theRect intersects, false otherwise.
+	 */
+	@Override
+	public boolean intersects(final Rectangle2D theRect) {
+		return createPath().intersects(theRect);
+	}
+	
+	/**
+	 * Indicates whether a rectangle lies inside this PathView, treated as a closed path.
+	 *
+	 * @param theX is the x coordinate of the rectangle.
+	 * @param theY is the y coordinate of the rectangle.
+	 * @param theWidth is the width of the rectangle.
+	 * @param theHeight is the height of the rectangle.
+	 * @return true if the rectangle lies inside, false otherwise.
+	 */
+	@Override
+	public boolean contains(final double theX, final double theY,
+			                final double theWidth, final double theHeight) {
+		return createPath().contains(theX, theY, theWidth, theHeight);
+	}
+	
+	/**
+	 * Indicates whether a Rectangle2D lies inside this PathView, treated as a closed path.
+	 *
+	 * @param theRect is the Rectangle2D.
+	 * @return true if theRect lies inside, false otherwise.
+	 */
+	@Override
+	public boolean contains(final Rectangle2D theRect) {
+		return createPath().contains(theRect);
+	}
+	
+	/**
+	 * Provides a PathIterator over this PathView's Points. A single Point is
+	 * described as a zero-length segment, as it is by a Polyline.
+	 *
+	 * @param theTransform is the transform applied to the Points, or null for none.
+	 * @return the PathIterator.
+	 */
+	@Override
+	public PathIterator getPathIterator(final AffineTransform theTransform) {
+		final float[] coords = myCoords;
+		final int offset = myOffset;
+		final int points = myPointCount;
+		return new PathIterator() {
+	
+			/** The index of the current segment. */
+			private int mySegment;
+	
+			@Override
+			public int getWindingRule() {
+				return WIND_NON_ZERO;
+			}
+	
+			@Override
+			public boolean isDone() {
+				return mySegment >= Math.max(2, points);
+			}
+	
+			@Override
+			public void next() {
+				mySegment++;
+			}
+	
+			@Override
+			public int currentSegment(final float[] theCoords) {
+				final int point = offset + Math.min(mySegment, points - 1) * 2;
+				theCoords[0] = coords[point];
+				theCoords[1] = coords[point + 1];
+				if (theTransform != null) {
+					theTransform.transform(theCoords, 0, theCoords, 0, 1);
+				}
+				return mySegment == 0 ? SEG_MOVETO : SEG_LINETO;
+			}
+	
+			@Override
+			public int currentSegment(final double[] theCoords) {
+				final int point = offset + Math.min(mySegment, points - 1) * 2;
+				theCoords[0] = coords[point];
+				theCoords[1] = coords[point + 1];
+				if (theTransform != null) {
+					theTransform.transform(theCoords, 0, theCoords, 0, 1);
+				}
+				return mySegment == 0 ? SEG_MOVETO : SEG_LINETO;
+			}
+		};
+	}
+	
+	/**
+	 * Provides a PathIterator over this PathView's Points. PathViews are already
+	 * flat, so theFlatness is unused.
+	 *
+	 * @param theTransform is the transform applied to the Points, or null for none.
+	 * @param theFlatness is the flatness of the returned segments - unused.
+	 * @return the PathIterator.
+	 */
+	@Override
+	public PathIterator getPathIterator(final AffineTransform theTransform,
+			                            final double theFlatness) {
+		return getPathIterator(theTransform);
+	}
+}
+
+/**
+ * A run of up to 1024 consecutive Shapes of a ShapeStore, held in primitive columns
+ * with its own coordinate array. The offsets of a Chunk are relative to its own
+ * coordinate array, so a Chunk is copied without adjusting them.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+private static final class Chunk {
+	
+	/** The kind of each Shape. */
+	private byte[] myKinds;
+	
+	/** The stroke width of each Shape. */
+	private byte[] myWidths;
+	
+	/** The flag bits of each Shape. */
+	private byte[] myFlags;
+	
+	/** The ARGB outline Color of each Shape. */
+	private int[] myOutlines;
+	
+	/** The ARGB fill Color of each Shape. */
+	private int[] myFills;
+	
+	/** The ID number of each Shape. */
+	private int[] myIDs;
+	
+	/** The offset of each Shape's coordinates in the coordinate array, followed by
+	 *  the offset one past the last Shape's coordinates.
+	 */
+	private int[] myOffsets;
+	
+	/** The packed coordinates of every Shape. */
+	private float[] myCoords;
+	
+	/** The Shapes stored as objects, by position, or null if there are none yet. */
+	private Shape[] myOthers;
+	
+	/**
+	 * Constructs a new, empty Chunk.
+	 *
+	 * @param theCapacity is the number of Shapes the Chunk can hold.
+	 * @param theCoordCapacity is the number of coordinates the Chunk can hold.
+	 */
+	private Chunk(final int theCapacity, final int theCoordCapacity) {
+		myKinds = new byte[theCapacity];
+		myWidths = new byte[theCapacity];
+		myFlags = new byte[theCapacity];
+		myOutlines = new int[theCapacity];
+		myFills = new int[theCapacity];
+		myIDs = new int[theCapacity];
+		myOffsets = new int[theCapacity + 1];
+		myCoords = new float[theCoordCapacity];
+	}
+	
+	/**
+	 * Constructs a copy of a Chunk with the provided capacities.
+	 *
+	 * @param theChunk is the Chunk copied.
+	 * @param theCapacity is the number of Shapes the copy can hold.
+	 * @param theCoordCapacity is the number of coordinates the copy can hold.
+	 * @param theOthers indicates if the copy must be able to hold Shapes as objects.
+	 */
+	private Chunk(final Chunk theChunk, final int theCapacity,
+			      final int theCoordCapacity, final boolean theOthers) {
+		myKinds = Arrays.copyOf(theChunk.myKinds, theCapacity);
+		myWidths = Arrays.copyOf(theChunk.myWidths, theCapacity);
+		myFlags = Arrays.copyOf(theChunk.myFlags, theCapacity);
+		myOutlines = Arrays.copyOf(theChunk.myOutlines, theCapacity);
+		myFills = Arrays.copyOf(theChunk.myFills, theCapacity);
+		myIDs = Arrays.copyOf(theChunk.myIDs, theCapacity);
+		myOffsets = Arrays.copyOf(theChunk.myOffsets, theCapacity + 1);
+		myCoords = Arrays.copyOf(theChunk.myCoords, theCoordCapacity);
+		if (theChunk.myOthers != null) {
+			myOthers = Arrays.copyOf(theChunk.myOthers, theCapacity);
+		} else if (theOthers) {
+			myOthers = new Shape[theCapacity];
+		}
+	}
+	
+	/**
+	 * Grows the columns of this Chunk in place to the provided capacities.
+	 *
+	 * @param theCapacity is the number of Shapes this Chunk must hold.
+	 * @param theCoordCapacity is the number of coordinates this Chunk must hold.
+	 * @param theOthers indicates if this Chunk must be able to hold Shapes as objects.
+	 */
+	private void resize(final int theCapacity, final int theCoordCapacity,
+			            final boolean theOthers) {
+		if (theCapacity != myKinds.length) {
+			myKinds = Arrays.copyOf(myKinds, theCapacity);
+			myWidths = Arrays.copyOf(myWidths, theCapacity);
+			myFlags = Arrays.copyOf(myFlags, theCapacity);
+			myOutlines = Arrays.copyOf(myOutlines, theCapacity);
+			myFills = Arrays.copyOf(myFills, theCapacity);
+			myIDs = Arrays.copyOf(myIDs, theCapacity);
+			myOffsets = Arrays.copyOf(myOffsets, theCapacity + 1);
+			if (myOthers != null) {
+				myOthers = Arrays.copyOf(myOthers, theCapacity);
+			}
+		}
+		if (theCoordCapacity != myCoords.length) {
+			myCoords = Arrays.copyOf(myCoords, theCoordCapacity);
+		}
+		if (theOthers && myOthers == null) {
+			myOthers = new Shape[theCapacity];
+		}
+	}
+}
+}
@@ -0,0 +1,693 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A StrokeJournal class to record the drawing history of a DrawPanel as it is made.
+ */
+
+package controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * This program keeps an append-only journal of every change made to the Shapes
+ * drawn on a DrawPanel, so that a drawing survives the program ending before it
+ * is saved. Each committed group of Shapes, undo, redo, and clear is appended as a
+ * record, and when the journal is opened again its records are replayed to recover
+ * both the drawn Shapes and the undone Shapes that may still be redrawn.
+ *
+ * Records are queued by the event dispatch thread and written by a single writer
+ * thread. The writer takes every record queued since its last write, writes them
+ * together, and forces them to disk once, so the cost of each force is shared by
+ * every record that arrived while the previous one ran. The writer applies each
+ * record to its own copy of the drawing, and once enough has been appended it
+ * compacts the journal into a single snapshot of that copy, which is written to a
+ * new file and moved over the journal. Recovery therefore never replays more than
+ * one snapshot and a bounded number of records.
+ *
+ * A journal file holds the bytes 'P' 'P' 'J' 'L' and the version number 1 as a
+ * byte, followed by records. A record holds its type as a byte, the length of its
+ * payload as an int, the payload, and the CRC-32 of the type, length, and payload
+ * as an int. The payload of a commit is the version 2 .shp file of its Shapes;
+ * that of a snapshot is the version 2 .shp file of the drawn Shapes followed by
+ * that of the undone Shapes; undo, redo, and clear records have no payload. A
+ * record left incomplete or damaged when the program ended, and everything after
+ * it, is discarded on recovery.
+ *
+ * A StrokeJournal holds an exclusive lock on a lock file beside its journal file
+ * while it is open, so that two programs never recover, append to, and compact the
+ * same journal. The journal file itself is never locked, and its channel is closed
+ * before a compaction moves the new file over it, as some file systems refuse to
+ * replace a file that is open or locked; the lock file is never replaced, so the
+ * journal stays held throughout.
+ *
+ * If the journal cannot be written, the writer thread stops, later changes are no
+ * longer queued, and the failure is passed to the StrokeJournal's failure listener
+ * so that the user can be told their drawing is no longer being recorded.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class StrokeJournal {
+	
+	/** The version number of the journal format. */
+	public static final int VERSION = 1;
+	
+	/** The bytes every journal file begins with. */
+	private static final byte[] MAGIC = {'P', 'P', 'J', 'L'};
+	
+	/** The type of a record appending Shapes to the drawing. */
+	private static final byte COMMIT = 1;
+	
+	/** The type of a record undoing the last group of drawn Shapes. */
+	private static final byte UNDO = 2;
+	
+	/** The type of a record redrawing the last group of undone Shapes. */
+	private static final byte REDO = 3;
+	
+	/** The type of a record clearing the drawing. */
+	private static final byte CLEAR = 4;
+	
+	/** The type of a record replacing the drawing with a snapshot. */
+	private static final byte SNAPSHOT = 5;
+	
+	/** The type of the entry asking the writer thread to stop. */
+	private static final byte CLOSE = 0;
+	
+	/** The number of bytes in a journal file before its first record. */
+	private static final int HEADER_SIZE = MAGIC.length + 1;
+	
+	/** The number of bytes in a record besides its payload. */
+	private static final int RECORD_OVERHEAD = 1 + Integer.BYTES * 2;
+	
+	/** The number of records appended after a snapshot that triggers compaction. */
+	private static final int COMPACT_RECORDS = 4096;
+	
+	/** The fewest bytes appended after a snapshot that trigger compaction. */
+	private static final long COMPACT_BYTES = 1L << 20;
+	
+	/** The reason a journal that is already open cannot be opened. */
+	private static final String JOURNAL_IN_USE = "Journal is in use by another "
+			                                     + "PowerPaint";
+	
+	/** The file extension of a journal being compacted. */
+	private static final String COMPACT_SUFFIX = ".tmp";
+	
+	/** The file extension of the lock file of a journal. */
+	private static final String LOCK_SUFFIX = ".lock";
+	
+	/**
+	 * The paths of the journals open in this program. A journal is never opened twice,
+	 * as closing the second channel would release the lock taken through the first.
+	 */
+	private static final Set<Path> OPEN_JOURNALS = ConcurrentHashMap.newKeySet();
+	
+	/** The path of the journal file. */
+	private final Path myPath;
+	
+	/** The entries waiting for the writer thread, oldest first. */
+	private final BlockingQueue<Entry> myQueue;
+	
+	/** The drawn Shapes, as of the last record written. */
+	private final ShapeStore myShapes;
+	
+	/** The undone Shapes, as of the last record written. */
+	private final ShapeStore myUndoneShapes;
+	
+	/** The Shapes drawn when the journal was opened, or null once taken. */
+	private ShapeStore myRecoveredShapes;
+	
+	/** The Shapes undone when the journal was opened, or null once taken. */
+	private ShapeStore myRecoveredUndoneShapes;
+	
+	/** The thread writing this StrokeJournal's records. */
+	private final Thread myWriter;
+	
+	/** The channel of the lock file, locked while this StrokeJournal is open. */
+	private final FileChannel myLock;
+	
+	/** The channel of the journal file, used only by the writer thread. */
+	private FileChannel myChannel;
+	
+	/** The number of records appended since the last snapshot. */
+	private int myRecords;
+	
+	/** The number of bytes appended since the last snapshot. */
+	private long myAppendedBytes;
+	
+	/** The number of bytes in the last snapshot written. */
+	private long mySnapshotBytes;
+	
+	/** The failure that stopped the writer thread, or null if it has not failed. */
+	private volatile IOException myFailure;
+	
+	/** Notified once if this StrokeJournal fails, or null if none has been set. */
+	private Consumer<IOException> myFailureListener;
+	
+	/**
+	 * Opens the journal at the provided path, creating it if it does not exist, and
+	 * recovers the drawing it records. Any damaged record at the end of the journal
+	 * is discarded.
+	 *
+	 * @param thePath is the path of the journal file.
+	 * @throws AccessDeniedException if the journal is locked by another open
+	 * StrokeJournal, in this or another program.
+	 * @throws IOException if the journal cannot be read or written, or is not a
+	 * journal file.
+	 */
+	public StrokeJournal(final Path thePath) throws IOException {
+		myPath = thePath.toAbsolutePath().normalize();
+		myQueue = new LinkedBlockingQueue<Entry>();
+		myShapes = new ShapeStore();
+		myUndoneShapes = new ShapeStore();
+		if (!OPEN_JOURNALS.add(myPath)) {
+			throw new AccessDeniedException(myPath.toString(), null, JOURNAL_IN_USE);
+		}
+		final Path lock = myPath.resolveSibling(myPath.getFileName() + LOCK_SUFFIX);
+		try {
+			myLock = FileChannel.open(lock, StandardOpenOption.CREATE,
+					                  StandardOpenOption.WRITE);
+			try {
+				lock(myLock, myPath);
+				myChannel = FileChannel.open(myPath, StandardOpenOption.CREATE,
+						                     StandardOpenOption.READ,
+						                     StandardOpenOption.WRITE);
+				try {
+					recover();
+				} catch (final IOException ex) {
+					myChannel.close();
+					throw ex;
+				}
+			} catch (final IOException ex) {
+				myLock.close();
+				throw ex;
+			}
+		} catch (final IOException ex) {
+			OPEN_JOURNALS.remove(myPath);
+			throw ex;
+		}
+		myRecoveredShapes = myShapes.copy();
+		myRecoveredUndoneShapes = myUndoneShapes.copy();
+		myWriter = new Thread(this::writeRecords, "StrokeJournal");
+		myWriter.setDaemon(true);
+		myWriter.start();
+	}
+	
+	/**
+	 * Provides the Shapes that were drawn when this StrokeJournal was opened. May only
+	 * be called once.
+	 *
+	 * @return the recovered drawn Shapes, in drawing order.
+	 * @throws IllegalStateException if the recovered Shapes were already taken.
+	 */
+	public ShapeStore takeRecoveredShapes() {
+		if (myRecoveredShapes == null) {
+			throw new IllegalStateException("Recovered Shapes were already taken!");
+		}
+		final ShapeStore shapes = myRecoveredShapes;
+		myRecoveredShapes = null;
+		return shapes;
+	}
+	
+	/**
+	 * Provides the Shapes that were undone when this StrokeJournal was opened, the
+	 * most recently undone last, as a DrawPanel holds them. May only be called once.
+	 *
+	 * @return the recovered undone Shapes.
+	 * @throws IllegalStateException if the recovered Shapes were already taken.
+	 */
+	public ShapeStore takeRecoveredUndoneShapes() {
+		if (myRecoveredUndoneShapes == null) {
+			throw new IllegalStateException("Recovered Shapes were already taken!");
+		}
+		final ShapeStore shapes = myRecoveredUndoneShapes;
+		myRecoveredUndoneShapes = null;
+		return shapes;
+	}
+	
+	/**
+	 * Records that a range of Shapes was appended to the drawing. The Shapes are
+	 * copied before this method returns.
+	 *
+	 * @param theShapes is the ShapeStore holding the Shapes.
+	 * @param theStart is the index of the first Shape appended.
+	 * @param theEnd is one past the index of the last Shape appended.
+	 */
+	public void commit(final ShapeStore theShapes, final int theStart, final int theEnd) {
+		if (myFailure == null) {
+			final ShapeStore shapes = new ShapeStore();
+			for (int i = theStart; i < theEnd; i++) {
+				theShapes.copyTo(i, shapes, theShapes.getID(i));
+			}
+			enqueue(new Entry(COMMIT, shapes));
+		}
+	}
+	
+	/** Records that the last group of drawn Shapes was undone. */
+	public void undo() {
+		enqueue(new Entry(UNDO, null));
+	}
+	
+	/** Records that the last group of undone Shapes was redrawn. */
+	public void redo() {
+		enqueue(new Entry(REDO, null));
+	}
+	
+	/** Records that every drawn and undone Shape was cleared. */
+	public void clear() {
+		enqueue(new Entry(CLEAR, null));
+	}
+	
+	/**
+	 * Provides the failure that stopped this StrokeJournal from recording, if any.
+	 * Once a StrokeJournal has failed, it records nothing further.
+	 *
+	 * @return the failure, or null if this StrokeJournal has not failed.
+	 */
+	public IOException getFailure() {
+		return myFailure;
+	}
+	
+	/**
+	 * Sets the listener notified, exactly once, when this StrokeJournal fails. The
+	 * listener is called on the writer thread, or at once on the calling thread if
+	 * this StrokeJournal has already failed.
+	 *
+	 * @param theListener is the listener, receiving the failure.
+	 * @throws NullPointerException if theListener is null.
+	 */
+	public synchronized void setFailureListener(final Consumer<IOException> theListener) {
+		myFailureListener = Objects.requireNonNull(theListener,
+				                                   "Failure listeners must be non-null!");
+		if (myFailure != null) {
+			theListener.accept(myFailure);
+		}
+	}
+	
+	/**
+	 * Writes every record queued so far, forces them to disk, and closes this
+	 * StrokeJournal. Nothing recorded afterwards is written.
+	 *
+	 * @throws InterruptedException if the calling thread is interrupted while
+	 * waiting for the writer thread.
+	 */
+	public void close() throws InterruptedException {
+		myQueue.add(new Entry(CLOSE, null));
+		myWriter.join();
+	}
+	
+	/**
+	 * Takes an exclusive lock on the whole of the lock file of a journal, held until
+	 * its channel is closed.
+	 *
+	 * @param theChannel is the channel of the lock file.
+	 * @param thePath is the path of the journal file.
+	 * @throws AccessDeniedException if the lock file is already locked.
+	 * @throws IOException if the file cannot be locked.
+	 */
+	private static void lock(final FileChannel theChannel, final Path thePath)
+			throws IOException {
+		boolean locked;
+		try {
+			locked = theChannel.tryLock() != null;
+		} catch (final OverlappingFileLockException ex) {
+			locked = false;
+		}
+		if (!locked) {
+			throw new AccessDeniedException(thePath.toString(), null, JOURNAL_IN_USE);
+		}
+	}
+	
+	/**
+	 * Queues an entry for the writer thread, unless this StrokeJournal has failed and
+	 * the writer thread will never take it.
+	 *
+	 * @param theEntry is the entry.
+	 */
+	private void enqueue(final Entry theEntry) {
+		if (myFailure == null) {
+			myQueue.add(theEntry);
+		}
+	}
+	
+	/**
+	 * Records the failure that stopped the writer thread, or that occurred as it
+	 * closed the journal, and notifies the failure listener, if one has been set.
+	 * Only the first failure is recorded.
+	 *
+	 * @param theFailure is the failure.
+	 */
+	private synchronized void fail(final IOException theFailure) {
+		if (myFailure == null) {
+			myFailure = theFailure;
+			if (myFailureListener != null) {
+				myFailureListener.accept(theFailure);
+			}
+		}
+	}
+	
+	/**
+	 * Reads the journal file, applying each intact record to this StrokeJournal's
+	 * copy of the drawing, and truncates the file after the last intact record.
+	 *
+	 * @throws IOException if the file cannot be read or written, or is not a
+	 * journal file.
+	 */
+	private void recover() throws IOException {
+		final long size = myChannel.size();
+		if (size == 0) {
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.put(MAGIC).put((byte) VERSION).flip();
+			while (header.hasRemaining()) {
+				myChannel.write(header);
+			}
+			myChannel.force(false);
+			return;
+		}
+		if (size > Integer.MAX_VALUE) {
+			throw new StreamCorruptedException("Journal too large: " + size);
+		}
+		final ByteBuffer in = ByteBuffer.allocate((int) size);
+		while (in.hasRemaining()) {
+			if (myChannel.read(in, in.position()) < 0) {
+				throw new EOFException("Unexpected end of journal");
+			}
+		}
+		in.flip();
+		for (final byte b : MAGIC) {
+			if (in.remaining() == 0 || in.get() != b) {
+				throw new StreamCorruptedException("Not a journal file");
+			}
+		}
+		if (in.remaining() == 0 || in.get() != VERSION) {
+			throw new StreamCorruptedException("Unsupported journal version");
+		}
+		int end = in.position();
+		while (readRecord(in)) {
+			end = in.position();
+		}
+		myChannel.truncate(end);
+		myChannel.position(end);
+	}
+	
+	/**
+	 * Reads the next record of a journal and applies it to this StrokeJournal's copy
+	 * of the drawing.
+	 *
+	 * @param theIn holds the journal, positioned at the record.
+	 * @return true if an intact record was read and applied, false if the journal
+	 * ends or the record is incomplete or damaged.
+	 */
+	private boolean readRecord(final ByteBuffer theIn) {
+		final int start = theIn.position();
+		if (theIn.remaining() < RECORD_OVERHEAD) {
+			return false;
+		}
+		final byte type = theIn.get();
+		final int length = theIn.getInt();
+		if (length < 0 || length > theIn.remaining() - Integer.BYTES) {
+			return false;
+		}
+		final CRC32 crc = new CRC32();
+		crc.update(theIn.array(), start, RECORD_OVERHEAD - Integer.BYTES + length);
+		final ByteBuffer payload = theIn.slice(theIn.position(), length);
+		theIn.position(theIn.position() + length);
+		if ((int) crc.getValue() != theIn.getInt()) {
+			return false;
+		}
+		try {
+			ShapeStore shapes = null;
+			ShapeStore undone = null;
+			if (type == COMMIT || type == SNAPSHOT) {
+				shapes = ShapeFile.read(payload);
+			}
+			if (type == SNAPSHOT) {
+				undone = ShapeFile.read(payload);
+			}
+			if (payload.hasRemaining()) {
+				return false;
+			}
+			apply(type, shapes, undone);
+		} catch (final IOException | IllegalArgumentException | IllegalStateException ex) {
+			return false;
+		}
+		myRecords++;
+		myAppendedBytes += theIn.position() - start;
+		if (type == SNAPSHOT) {
+			myRecords = 0;
+			myAppendedBytes = 0;
+			mySnapshotBytes = theIn.position() - start;
+		}
+		return true;
+	}
+	
+	/**
+	 * Applies a record to this StrokeJournal's copy of the drawing.
+	 *
+	 * @param theType is the type of the record.
+	 * @param theShapes are the Shapes appended by a commit, or the drawn Shapes of a
+	 * snapshot.
+	 * @param theUndone are the undone Shapes of a snapshot.
+	 * @throws IllegalArgumentException if theType is not a record type.
+	 * @throws IllegalStateException if the record cannot apply to the drawing.
+	 */
+	private void apply(final byte theType, final ShapeStore theShapes,
+			           final ShapeStore theUndone) {
+		switch (theType) {
+			case COMMIT:
+				append(theShapes, myShapes);
+				break;
+			case UNDO:
+				moveLastGroup(myShapes, myUndoneShapes);
+				break;
+			case REDO:
+				moveLastGroup(myUndoneShapes, myShapes);
+				break;
+			case CLEAR:
+				myShapes.clear();
+				myUndoneShapes.clear();
+				break;
+			case SNAPSHOT:
+				myShapes.clear();
+				myUndoneShapes.clear();
+				append(theShapes, myShapes);
+				append(theUndone, myUndoneShapes);
+				break;
+			default:
+				throw new IllegalArgumentException("Invalid record type: " + theType);
+		}
+	}
+	
+	/**
+	 * Appends every Shape of one ShapeStore to another under its own ID number.
+	 *
+	 * @param theFrom is the ShapeStore holding the Shapes.
+	 * @param theTo is the ShapeStore receiving the Shapes.
+	 */
+	private static void append(final ShapeStore theFrom, final ShapeStore theTo) {
+		for (int i = 0; i < theFrom.size(); i++) {
+			theFrom.copyTo(i, theTo, theFrom.getID(i));
+		}
+	}
+	
+	/**
+	 * Moves the last group of one ShapeStore to another a Shape at a time, last
+	 * Shape first, exactly as a DrawPanel undoes and redoes a group.
+	 *
+	 * @param theFrom is the ShapeStore losing the group.
+	 * @param theTo is the ShapeStore receiving the group.
+	 * @throws IllegalStateException if theFrom is empty.
+	 */
+	private static void moveLastGroup(final ShapeStore theFrom, final ShapeStore theTo) {
+		final int start = theFrom.getLastGroupStart();
+		while (theFrom.size() > start) {
+			theFrom.moveLastTo(theTo);
+		}
+	}
+	
+	/**
+	 * Writes queued records until this StrokeJournal is closed or fails. Every
+	 * record queued while the previous group was being written is written and
+	 * forced to disk as one group.
+	 */
+	private void writeRecords() {
+		final List<Entry> entries = new ArrayList<Entry>();
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		boolean open = true;
+		try {
+			while (open) {
+				entries.add(myQueue.take());
+				myQueue.drainTo(entries);
+				bytes.reset();
+				for (final Entry entry : entries) {
+					if (entry.myType == CLOSE) {
+						open = false;
+					} else if (open) {
+						writeRecord(bytes, entry);
+					}
+				}
+				entries.clear();
+				write(myChannel, bytes);
+				myChannel.force(false);
+				if (myRecords >= COMPACT_RECORDS
+					|| myAppendedBytes >= Math.max(mySnapshotBytes, COMPACT_BYTES)) {
+					compact();
+				}
+			}
+		} catch (final IOException ex) {
+			fail(ex);
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} finally {
+			myQueue.clear();
+			try {
+				myChannel.close();
+				myLock.close();
+			} catch (final IOException ex) {
+				fail(ex);
+			}
+			OPEN_JOURNALS.remove(myPath);
+		}
+	}
+	
+	/**
+	 * Encodes the record of a queued entry and applies it to this StrokeJournal's copy
+	 * of the drawing.
+	 *
+	 * @param theBytes receives the encoded record.
+	 * @param theEntry is the entry.
+	 * @throws IOException if the record cannot be encoded.
+	 */
+	private void writeRecord(final ByteArrayOutputStream theBytes, final Entry theEntry)
+			throws IOException {
+		final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+		if (theEntry.myShapes != null) {
+			ShapeFile.writeUnchunked(Channels.newChannel(payload), theEntry.myShapes);
+		}
+		final int size = theBytes.size();
+		writeRecord(theBytes, theEntry.myType, payload);
+		myRecords++;
+		myAppendedBytes += theBytes.size() - size;
+		apply(theEntry.myType, theEntry.myShapes, null);
+	}
+	
+	/**
+	 * Encodes a record.
+	 *
+	 * @param theBytes receives the encoded record.
+	 * @param theType is the type of the record.
+	 * @param thePayload holds the payload of the record.
+	 * @throws IOException if the record cannot be encoded.
+	 */
+	private static void writeRecord(final ByteArrayOutputStream theBytes,
+			                        final byte theType,
+			                        final ByteArrayOutputStream thePayload)
+			throws IOException {
+		final ByteArrayOutputStream record = new ByteArrayOutputStream(
+				                             RECORD_OVERHEAD + thePayload.size());
+		final DataOutputStream out = new DataOutputStream(record);
+		out.writeByte(theType);
+		out.writeInt(thePayload.size());
+		thePayload.writeTo(out);
+		final CRC32 crc = new CRC32();
+		crc.update(record.toByteArray());
+		out.writeInt((int) crc.getValue());
+		record.writeTo(theBytes);
+	}
+	
+	/**
+	 * Writes a snapshot of this StrokeJournal's copy of the drawing to a new journal
+	 * file, forces it to disk, and moves it over the journal file. Both files are
+	 * closed before the move and the journal file is then reopened, while the lock
+	 * file keeps the journal held. If the move fails, the old journal file is left
+	 * whole.
+	 *
+	 * @throws IOException if the new journal cannot be written, moved, or reopened.
+	 */
+	private void compact() throws IOException {
+		final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+		ShapeFile.writeUnchunked(Channels.newChannel(payload), myShapes);
+		ShapeFile.writeUnchunked(Channels.newChannel(payload), myUndoneShapes);
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		bytes.write(MAGIC);
+		bytes.write(VERSION);
+		writeRecord(bytes, SNAPSHOT, payload);
+		final Path temp = myPath.resolveSibling(myPath.getFileName() + COMPACT_SUFFIX);
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+				                                    StandardOpenOption.TRUNCATE_EXISTING,
+				                                    StandardOpenOption.WRITE)) {
+			write(channel, bytes);
+			channel.force(false);
+		}
+		myChannel.close();
+		Files.move(temp, myPath, StandardCopyOption.REPLACE_EXISTING,
+				   StandardCopyOption.ATOMIC_MOVE);
+		myChannel = FileChannel.open(myPath, StandardOpenOption.WRITE);
+		myChannel.position(myChannel.size());
+		myRecords = 0;
+		myAppendedBytes = 0;
+		mySnapshotBytes = bytes.size() - HEADER_SIZE;
+	}
+	
+	/**
+	 * Writes every byte held in a ByteArrayOutputStream to a channel.
+	 *
+	 * @param theChannel is the channel.
+	 * @param theBytes holds the bytes.
+	 * @throws IOException if the channel cannot be written.
+	 */
+	private static void write(final FileChannel theChannel,
+			                  final ByteArrayOutputStream theBytes) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.wrap(theBytes.toByteArray());
+		while (buffer.hasRemaining()) {
+			theChannel.write(buffer);
+		}
+	}
+
+/**
+ * A change to the drawing waiting to be written as a record.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+private static final class Entry {
+	
+	/** The type of the record. */
+	private final byte myType;
+	
+	/** The Shapes appended by a commit, or null for any other record. */
+	private final ShapeStore myShapes;
+	
+	/**
+	 * Constructs a new Entry.
+	 *
+	 * @param theType is the type of the record.
+	 * @param theShapes are the Shapes appended by a commit, or null.
+	 */
+	private Entry(final byte theType, final ShapeStore theShapes) {
+		myType = theType;
+		myShapes = theShapes;
+	}
+}
+}
@@ -0,0 +1,195 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A TileRenderer class to rasterize the Shapes drawn on a DrawPanel in parallel.
+ */
+
+package controller;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This program rasterizes a complete image of stored Shapes by dividing it into
+ * fixed-size tiles that are drawn concurrently on a ForkJoinPool. Each tile is drawn
+ * directly into the target image through its own clip, from only the Shapes whose
+ * bounds intersect it and in drawing order. Because a Shape's geometry is never
+ * translated and neighbouring tiles never share pixels, the result is identical to
+ * drawing every Shape onto the whole image in sequence.
+ *
+ * @author Parker Rosengreen
+ * @version 16 December 2020
+ */
+public final class TileRenderer {
+	
+	/** The width and height of a tile, in pixels. */
+	private static final int TILE_SIZE = 256;
+	
+	/** The pool on which this TileRenderer's tiles are drawn. */
+	private final ForkJoinPool myPool;
+	
+	/**
+	 * Constructs a new TileRenderer drawing its tiles on the common ForkJoinPool.
+	 */
+	public TileRenderer() {
+		this(ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Constructs a new TileRenderer drawing its tiles on the provided ForkJoinPool.
+	 *
+	 * @param thePool is the ForkJoinPool.
+	 * @throws NullPointerException if thePool is null.
+	 */
+	public TileRenderer(final ForkJoinPool thePool) {
+		myPool = Objects.requireNonNull(thePool, "ForkJoinPools must be non-null!");
+	}
+	
+	/**
+	 * Fills the provided image with the background Color and draws every provided
+	 * Shape onto it, returning once all tiles have been drawn.
+	 *
+	 * @param theImage is the image to be drawn.
+	 * @param theBackground is the background Color.
+	 * @param theShapes are the Shapes to be drawn, in drawing order.
+	 * @param theIndex is a ShapeIndex over the stroked bounds of theShapes.
+	 */
+	public void render(final BufferedImage theImage, final Color theBackground,
+			           final ShapeStore theShapes, final ShapeIndex theIndex) {
+		render(theImage, theBackground, theShapes, theIndex, 0, theShapes.size());
+	}
+	
+	/**
+	 * Draws the provided range of Shapes onto the provided image, returning once all
+	 * tiles have been drawn. The image is first filled with the background Color
+	 * only if the range starts with the first Shape; otherwise the range is drawn
+	 * over the Shapes already on the image.
+	 *
+	 * @param theImage is the image to be drawn.
+	 * @param theBackground is the background Color.
+	 * @param theShapes are the Shapes to be drawn, in drawing order.
+	 * @param theIndex is a ShapeIndex over the stroked bounds of theShapes.
+	 * @param theStart is the index of the first Shape to be drawn.
+	 * @param theEnd is one past the index of the last Shape to be drawn.
+	 */
+	public void render(final BufferedImage theImage, final Color theBackground,
+			           final ShapeStore theShapes, final ShapeIndex theIndex,
+			           final int theStart, final int theEnd) {
+		final int columns = (theImage.getWidth() + TILE_SIZE - 1) / TILE_SIZE;
+		final int rows = (theImage.getHeight() + TILE_SIZE - 1) / TILE_SIZE;
+		final TileTask task = new TileTask(theImage, theBackground, theShapes, theIndex,
+				                           theStart, theEnd, columns, 0, columns * rows);
+		if (columns * rows == 1) {
+			task.compute();
+		} else {
+			myPool.invoke(task);
+		}
+	}
+
+/**
+ * A RecursiveAction drawing a contiguous range of tiles, splitting the range in
+ * half until a single tile remains.
+ *
+ * @author Parker Rosengreen
+ * @version 16 December 2020
+ */
+private static final class TileTask extends RecursiveAction {
+	
+	/** A generated serial version ID. */
+	private static final long serialVersionUID = -2270391925874601452L;
+	
+	/** The image being drawn. */
+	private final transient BufferedImage myImage;
+	
+	/** The background Color. */
+	private final transient Color myBackground;
+	
+	/** The Shapes being drawn, in drawing order. */
+	private final transient ShapeStore myShapes;
+	
+	/** A ShapeIndex over the stroked bounds of the Shapes being drawn. */
+	private final transient ShapeIndex myIndex;
+	
+	/** The index of the first Shape drawn. */
+	private final int myStart;
+	
+	/** One past the index of the last Shape drawn. */
+	private final int myEnd;
+	
+	/** The number of tile columns in the image. */
+	private final int myColumns;
+	
+	/** The first tile drawn by this TileTask. */
+	private final int myFirst;
+	
+	/** One past the last tile drawn by this TileTask. */
+	private final int myLast;
+	
+	/**
+	 * Constructs a new TileTask drawing the tiles in the provided range.
+	 *
+	 * @param theImage is the image being drawn.
+	 * @param theBackground is the background Color.
+	 * @param theShapes are the Shapes being drawn, in drawing order.
+	 * @param theIndex is a ShapeIndex over the stroked bounds of theShapes.
+	 * @param theStart is the index of the first Shape to be drawn.
+	 * @param theEnd is one past the index of the last Shape to be drawn.
+	 * @param theColumns is the number of tile columns in theImage.
+	 * @param theFirst is the first tile to be drawn.
+	 * @param theLast is one past the last tile to be drawn.
+	 */
+	private TileTask(final BufferedImage theImage, final Color theBackground,
+			         final ShapeStore theShapes, final ShapeIndex theIndex,
+			         final int theStart, final int theEnd, final int theColumns,
+			         final int theFirst, final int theLast) {
+		super();
+		myImage = theImage;
+		myBackground = theBackground;
+		myShapes = theShapes;
+		myIndex = theIndex;
+		myStart = theStart;
+		myEnd = theEnd;
+		myColumns = theColumns;
+		myFirst = theFirst;
+		myLast = theLast;
+	}
+	
+	/**
+	 * Draws this TileTask's tile, or splits its range of tiles between two
+	 * new TileTasks.
+	 */
+	@Override
+	protected void compute() {
+		if (myLast - myFirst > 1) {
+			final int middle = (myFirst + myLast) >>> 1;
+			invokeAll(new TileTask(myImage, myBackground, myShapes, myIndex, myStart,
+					               myEnd, myColumns, myFirst, middle),
+					  new TileTask(myImage, myBackground, myShapes, myIndex, myStart,
+							       myEnd, myColumns, middle, myLast));
+		} else {
+			final Rectangle tile = new Rectangle((myFirst % myColumns) * TILE_SIZE,
+					                             (myFirst / myColumns) * TILE_SIZE,
+					                             TILE_SIZE, TILE_SIZE).
+					               intersection(new Rectangle(0, 0, myImage.getWidth(),
+					            		                      myImage.getHeight()));
+			final Graphics2D g2d = myImage.createGraphics();
+			g2d.clip(tile);
+			if (myStart == 0) {
+				g2d.setPaint(myBackground);
+				g2d.fill(tile);
+			}
+			ShapeRenderer.prepare(g2d);
+			final ShapeStore.Geometry geometry = new ShapeStore.Geometry();
+			for (final int position : myIndex.query(tile, myStart, myEnd)) {
+				ShapeRenderer.draw(g2d, myShapes, position, myBackground, geometry);
+			}
+			g2d.dispose();
+		}
+	}
+}
+}
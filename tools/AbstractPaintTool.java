@@ -7,6 +7,10 @@
 package tools;
 
 import java.awt.Point;
+import java.awt.Shape;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.RectangularShape;
 import java.util.Objects;
 
 /**
@@ -32,11 +36,11 @@ public abstract class AbstractPaintTool implements PaintTool {
 	/** The file name for this PaintTool's Icon. */
 	private final String myIconFile;
 	
-	/** This PaintTool's start Point. */
-	private Point myStartPoint;
+	/** This PaintTool's start Point, owned by this PaintTool. */
+	private final Point myStartPoint;
 	
-	/** This PaintTool's end Point. */
-	private Point myEndPoint;
+	/** This PaintTool's end Point, owned by this PaintTool. */
+	private final Point myEndPoint;
 	
 	
 	/**
@@ -59,6 +63,8 @@ public abstract class AbstractPaintTool implements PaintTool {
 			throw new IllegalArgumentException("Basic and Icon file names "
 					                           + "cannot be empty!");
 		}
+		myStartPoint = new Point();
+		myEndPoint = new Point();
 		setToInitialPoints();
 		myPathDependency = thePathDependency;
 		myErasable = theErasable;
@@ -75,8 +81,20 @@ public abstract class AbstractPaintTool implements PaintTool {
 	@Override
 	public final void setStartPoint(final Point thePoint) {
 		Objects.requireNonNull(thePoint, "Points must be non-null!");
-		myStartPoint = thePoint;
-		myEndPoint = thePoint;
+		setStartPoint(thePoint.x, thePoint.y);
+	}
+	
+	/**
+	 * Sets this PaintTool's start Point, and its end Point, to the provided
+	 * coordinates.
+	 * 
+	 * @param theX is the x coordinate of the Point to be assigned.
+	 * @param theY is the y coordinate of the Point to be assigned.
+	 */
+	@Override
+	public final void setStartPoint(final int theX, final int theY) {
+		myStartPoint.setLocation(theX, theY);
+		myEndPoint.setLocation(theX, theY);
 	}
 	
 	/**
@@ -97,7 +115,18 @@ public abstract class AbstractPaintTool implements PaintTool {
 	@Override
 	public final void setEndPoint(final Point thePoint) {
 		Objects.requireNonNull(thePoint, "Points must be non-null!");
-		myEndPoint = thePoint;
+		setEndPoint(thePoint.x, thePoint.y);
+	}
+	
+	/**
+	 * Sets this PaintTool's end Point to the provided coordinates.
+	 * 
+	 * @param theX is the x coordinate of the Point to be assigned.
+	 * @param theY is the y coordinate of the Point to be assigned.
+	 */
+	@Override
+	public final void setEndPoint(final int theX, final int theY) {
+		myEndPoint.setLocation(theX, theY);
 	}
 	
 	/**
@@ -127,10 +156,30 @@ public abstract class AbstractPaintTool implements PaintTool {
 		return myIconFile;
 	}
 	
+	/**
+	 * Provides a new copy of this PaintTool's Shape that later changes to this
+	 * PaintTool do not affect.
+	 * 
+	 * @return a copy of this PaintTool's Shape.
+	 */
+	@Override
+	public Shape createShape() {
+		final Shape shape = getShape();
+		final Shape copy;
+		if (shape instanceof RectangularShape) {
+			copy = (Shape) ((RectangularShape) shape).clone();
+		} else if (shape instanceof Line2D) {
+			copy = (Shape) ((Line2D) shape).clone();
+		} else {
+			copy = new Path2D.Double(shape);
+		}
+		return copy;
+	}
+	
 	/** Resets this PaintTool to its initial positioning. */
 	public final void setToInitialPoints() {
-		myStartPoint = INITIAL_POINT;
-		myEndPoint = INITIAL_POINT;
+		myStartPoint.setLocation(INITIAL_POINT);
+		myEndPoint.setLocation(INITIAL_POINT);
 	}
 	
 	/**
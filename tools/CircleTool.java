@@ -9,7 +9,6 @@ package tools;
 
 import java.awt.Shape;
 import java.awt.geom.Ellipse2D;
-import java.awt.geom.Rectangle2D;
 
 /**
  * This program contains attributes and defines behaviors specific to CircleTools.
@@ -31,11 +30,15 @@ public final class CircleTool extends SquareTool {
 	/** A CircleTool's Icon file name. */
 	private static final String ICON_FILE = "images//circle_bw.gif";
 	
+	/** The circle drawn by this CircleTool, reused as its Points change. */
+	private final Ellipse2D.Double myCircle;
+	
 	/** Constructs a new CircleTool and calls CircleTool's superclass constructor 
 	 *  with the defined CircleTool attributes. 
 	 */
 	public CircleTool() {
 		super(FOLLOWER, ERASABLE, BASIC_NAME, ICON_FILE);
+		myCircle = new Ellipse2D.Double();
 	}
 
 	/**
@@ -45,8 +48,7 @@ public final class CircleTool extends SquareTool {
 	 */
 	@Override
 	public final Shape getShape() {
-		final Ellipse2D.Double circle = new Ellipse2D.Double();
-		circle.setFrame((Rectangle2D.Double) super.getShape());
-		return circle;
+		setFrame(myCircle);
+		return myCircle;
 	}
 }
@@ -9,7 +9,6 @@ package tools;
 
 import java.awt.Shape;
 import java.awt.geom.Ellipse2D;
-import java.awt.geom.Rectangle2D;
 
 /**
  * This program contains attributes and defines behaviors specific to EllipseTools.
@@ -31,11 +30,15 @@ public final class EllipseTool extends RectangleTool {
 	/** A EllipseTool's Icon file name. */
 	private static final String ICON_FILE = "images//ellipse_bw.gif";
 	
+	/** The ellipse drawn by this EllipseTool, reused as its Points change. */
+	private final Ellipse2D.Double myEllipse;
+	
 	/** Constructs a new EllipseTool and calls EllipseTool's superclass constructor 
 	 *  with the defined EllipseTool attributes. 
 	 */
 	public EllipseTool() {
 		super(FOLLOWER, ERASABLE, BASIC_NAME, ICON_FILE);
+		myEllipse = new Ellipse2D.Double();
 	}
 
 	/**
@@ -45,9 +48,8 @@ public final class EllipseTool extends RectangleTool {
 	 */
 	@Override
 	public final Shape getShape() {
-		final Ellipse2D.Double ellipse = new Ellipse2D.Double();
-		ellipse.setFrame((Rectangle2D.Double) super.getShape());
-		return ellipse;
+		setFrame(myEllipse);
+		return myEllipse;
 	}
 
 }
@@ -30,6 +30,9 @@ public class LineTool extends AbstractPaintTool {
 	/** A LineTool's Icon file name. */
 	private static final String ICON_FILE = "images//line_bw.gif";
 	
+	/** The line drawn by this LineTool, reused as its Points change. */
+	private final Line2D.Double myLine;
+	
 	/** Constructs a LineTool with the defined LineTool attributes. */
 	public LineTool() {
 		this(FOLLOWER, ERASABLE, BASIC_NAME, ICON_FILE);
@@ -47,6 +50,7 @@ public class LineTool extends AbstractPaintTool {
 	protected LineTool(final boolean theFollower, final boolean theErasable,
 			           final String theBasicName, final String theIconFile) {
 		super(theFollower, theErasable, theBasicName, theIconFile);
+		myLine = new Line2D.Double();
 	}
 
 	/**
@@ -56,6 +60,7 @@ public class LineTool extends AbstractPaintTool {
 	 */
 	@Override
 	public final Shape getShape() {
-		return new Line2D.Double(getStartPoint(), getEndPoint());
+		myLine.setLine(getStartPoint(), getEndPoint());
+		return myLine;
 	}
 }
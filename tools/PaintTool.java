@@ -18,26 +18,52 @@ import java.awt.Shape;
 public interface PaintTool {
 	
 	/**
-	 * Provides access to this PaintTool's Shape.
+	 * Provides access to this PaintTool's Shape. The Shape is owned by this 
+	 * PaintTool and reused: it changes whenever this PaintTool's Points change, 
+	 * so it must not be kept. Use createShape() for a Shape that may be kept.
 	 * 
 	 * @return this PaintTool's Shape.
 	 */
 	Shape getShape();
 	
 	/**
-	 * Sets this PaintTool's start Point.
+	 * Provides a new copy of this PaintTool's Shape that later changes to this
+	 * PaintTool do not affect.
+	 * 
+	 * @return a copy of this PaintTool's Shape.
+	 */
+	Shape createShape();
+	
+	/**
+	 * Sets this PaintTool's start Point. The Point is copied, not kept.
 	 * 
 	 * @param thePoint is the Point to be assigned.
 	 */
 	void setStartPoint(final Point thePoint);
 	
 	/**
-	 * Sets this PaintTool's end Point.
+	 * Sets this PaintTool's start Point to the provided coordinates.
+	 * 
+	 * @param theX is the x coordinate of the Point to be assigned.
+	 * @param theY is the y coordinate of the Point to be assigned.
+	 */
+	void setStartPoint(final int theX, final int theY);
+	
+	/**
+	 * Sets this PaintTool's end Point. The Point is copied, not kept.
 	 * 
 	 * @param thePoint is the Point to be assigned.
 	 */
 	void setEndPoint(final Point thePoint);
 	
+	/**
+	 * Sets this PaintTool's end Point to the provided coordinates.
+	 * 
+	 * @param theX is the x coordinate of the Point to be assigned.
+	 * @param theY is the y coordinate of the Point to be assigned.
+	 */
+	void setEndPoint(final int theX, final int theY);
+	
 	/** Resets this PaintTool to its initial positioning. */
 	void setToInitialPoints();
 	
@@ -0,0 +1,427 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A Polyline class to store the path of a freehand stroke as a single Shape.
+ */
+
+package tools;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * This program stores the points of a freehand stroke, such as one drawn by a
+ * PencilTool or EraserTool, as one growable Shape. Points are appended in place
+ * while the stroke is drawn, and the Polyline is drawn as a single open path. A
+ * Polyline with a single point is drawn as a dot at that point.
+ *
+ * @author Parker Rosengreen
+ * @version 16 December 2020
+ */
+public final class Polyline implements Shape, Serializable {
+	
+	/** A generated serial version ID. */
+	private static final long serialVersionUID = -3630785036306843126L;
+	
+	/** The initial number of points a Polyline can hold. */
+	private static final int INITIAL_CAPACITY = 16;
+	
+	/** The x and y coordinates of this Polyline's points, stored in pairs. */
+	private transient float[] myCoords;
+	
+	/** The number of points in this Polyline. */
+	private transient int myPointCount;
+	
+	/** The smallest x coordinate of this Polyline's points. */
+	private transient float myMinX;
+	
+	/** The smallest y coordinate of this Polyline's points. */
+	private transient float myMinY;
+	
+	/** The largest x coordinate of this Polyline's points. */
+	private transient float myMaxX;
+	
+	/** The largest y coordinate of this Polyline's points. */
+	private transient float myMaxY;
+	
+	/**
+	 * Constructs a new Polyline consisting of a single Point.
+	 *
+	 * @param theX is the x coordinate of the first Point.
+	 * @param theY is the y coordinate of the first Point.
+	 */
+	public Polyline(final float theX, final float theY) {
+		myCoords = new float[INITIAL_CAPACITY * 2];
+		myMinX = theX;
+		myMinY = theY;
+		myMaxX = theX;
+		myMaxY = theY;
+		lineTo(theX, theY);
+	}
+	
+	/**
+	 * Appends a Point to the end of this Polyline.
+	 *
+	 * @param theX is the x coordinate of the appended Point.
+	 * @param theY is the y coordinate of the appended Point.
+	 */
+	public void lineTo(final float theX, final float theY) {
+		if (myCoords.length == myPointCount * 2) {
+			myCoords = Arrays.copyOf(myCoords, myCoords.length * 2);
+		}
+		myCoords[myPointCount * 2] = theX;
+		myCoords[myPointCount * 2 + 1] = theY;
+		myPointCount++;
+		myMinX = Math.min(myMinX, theX);
+		myMinY = Math.min(myMinY, theY);
+		myMaxX = Math.max(myMaxX, theX);
+		myMaxY = Math.max(myMaxY, theY);
+	}
+	
+	/**
+	 * Moves the last Point of this Polyline. The bounds of this Polyline still
+	 * include the Point's previous position.
+	 * 
+	 * @param theX is the new x coordinate of the last Point.
+	 * @param theY is the new y coordinate of the last Point.
+	 */
+	public void setLastPoint(final float theX, final float theY) {
+		myCoords[myPointCount * 2 - 2] = theX;
+		myCoords[myPointCount * 2 - 1] = theY;
+		myMinX = Math.min(myMinX, theX);
+		myMinY = Math.min(myMinY, theY);
+		myMaxX = Math.max(myMaxX, theX);
+		myMaxY = Math.max(myMaxY, theY);
+	}
+	
+	/**
+	 * Provides the number of Points in this Polyline.
+	 *
+	 * @return the number of Points in this Polyline.
+	 */
+	public int getPointCount() {
+		return myPointCount;
+	}
+	
+	/**
+	 * Provides the x coordinate of a Point in this Polyline.
+	 *
+	 * @param theIndex is the index of the Point.
+	 * @return the x coordinate of the Point.
+	 * @throws IndexOutOfBoundsException if theIndex is not a valid Point index.
+	 */
+	public float getX(final int theIndex) {
+		return myCoords[checkIndex(theIndex) * 2];
+	}
+	
+	/**
+	 * Provides the y coordinate of a Point in this Polyline.
+	 *
+	 * @param theIndex is the index of the Point.
+	 * @return the y coordinate of the Point.
+	 * @throws IndexOutOfBoundsException if theIndex is not a valid Point index.
+	 */
+	public float getY(final int theIndex) {
+		return myCoords[checkIndex(theIndex) * 2 + 1];
+	}
+	
+	/**
+	 * Ensures that the provided index refers to a Point in this Polyline.
+	 *
+	 * @param theIndex is the index.
+	 * @return theIndex.
+	 * @throws IndexOutOfBoundsException if theIndex is not a valid Point index.
+	 */
+	private int checkIndex(final int theIndex) {
+		if (theIndex < 0 || theIndex >= myPointCount) {
+			throw new IndexOutOfBoundsException("Invalid Point index: " + theIndex);
+		}
+		return theIndex;
+	}
+	
+	/**
+	 * Provides this Polyline as a Path2D, used for containment and
+	 * intersection tests.
+	 *
+	 * @return a Path2D following this Polyline's Points.
+	 */
+	private Path2D createPath() {
+		final Path2D.Float path = new Path2D.Float(Path2D.WIND_NON_ZERO, myPointCount);
+		path.append(getPathIterator(null), false);
+		return path;
+	}
+	
+	/**
+	 * Provides the integer bounding Rectangle of this Polyline's Points.
+	 *
+	 * @return the bounding Rectangle.
+	 */
+	@Override
+	public Rectangle getBounds() {
+		return getBounds2D().getBounds();
+	}
+	
+	/**
+	 * Provides the bounding Rectangle2D of this Polyline's Points.
+	 *
+	 * @return the bounding Rectangle2D.
+	 */
+	@Override
+	public Rectangle2D getBounds2D() {
+		return new Rectangle2D.Float(myMinX, myMinY, myMaxX - myMinX, myMaxY - myMinY);
+	}
+	
+	/**
+	 * Indicates whether a point lies inside this Polyline, treated as a closed path.
+	 *
+	 * @param theX is the x coordinate of the point.
+	 * @param theY is the y coordinate of the point.
+	 * @return true if the point lies inside, false otherwise.
+	 */
+	@Override
+	public boolean contains(final double theX, final double theY) {
+		return createPath().contains(theX, theY);
+	}
+	
+	/**
+	 * Indicates whether a Point2D lies inside this Polyline, treated as a closed path.
+	 *
+	 * @param thePoint is the Point2D.
+	 * @return true if thePoint lies inside, false otherwise.
+	 */
+	@Override
+	public boolean contains(final Point2D thePoint) {
+		return contains(thePoint.getX(), thePoint.getY());
+	}
+	
+	/**
+	 * Indicates whether a rectangle intersects this Polyline, treated as a closed path.
+	 *
+	 * @param theX is the x coordinate of the rectangle.
+	 * @param theY is the y coordinate of the rectangle.
+	 * @param theWidth is the width of the rectangle.
+	 * @param theHeight is the height of the rectangle.
+	 * @return true if the rectangle intersects, false otherwise.
+	 */
+	@Override
+	public boolean intersects(final double theX, final double theY,
+			                  final double theWidth, final double theHeight) {
+		return createPath().intersects(theX, theY, theWidth, theHeight);
+	}
+	
+	/**
+	 * Indicates whether a Rectangle2D intersects this Polyline, treated as a closed path.
+	 *
+	 * @param theRect is the Rectangle2D.
+	 * @return true if theRect intersects, false otherwise.
+	 */
+	@Override
+	public boolean intersects(final Rectangle2D theRect) {
+		return intersects(theRect.getX(), theRect.getY(),
+				          theRect.getWidth(), theRect.getHeight());
+	}
+	
+	/**
+	 * Indicates whether a rectangle lies inside this Polyline, treated as a closed path.
+	 *
+	 * @param theX is the x coordinate of the rectangle.
+	 * @param theY is the y coordinate of the rectangle.
+	 * @param theWidth is the width of the rectangle.
+	 * @param theHeight is the height of the rectangle.
+	 * @return true if the rectangle lies inside, false otherwise.
+	 */
+	@Override
+	public boolean contains(final double theX, final double theY,
+			                final double theWidth, final double theHeight) {
+		return createPath().contains(theX, theY, theWidth, theHeight);
+	}
+	
+	/**
+	 * Indicates whether a Rectangle2D lies inside this Polyline, treated as a closed path.
+	 *
+	 * @param theRect is the Rectangle2D.
+	 * @return true if theRect lies inside, false otherwise.
+	 */
+	@Override
+	public boolean contains(final Rectangle2D theRect) {
+		return contains(theRect.getX(), theRect.getY(),
+				        theRect.getWidth(), theRect.getHeight());
+	}
+	
+	/**
+	 * Provides a PathIterator over this Polyline's Points.
+	 *
+	 * @param theTransform is the transform applied to the Points, or null for none.
+	 * @return the PathIterator.
+	 */
+	@Override
+	public PathIterator getPathIterator(final AffineTransform theTransform) {
+		return new PolylineIterator(theTransform);
+	}
+	
+	/**
+	 * Provides a PathIterator over this Polyline's Points. Polylines are already flat,
+	 * so theFlatness is unused.
+	 *
+	 * @param theTransform is the transform applied to the Points, or null for none.
+	 * @param theFlatness is the flatness of the returned segments - unused.
+	 * @return the PathIterator.
+	 */
+	@Override
+	public PathIterator getPathIterator(final AffineTransform theTransform,
+			                            final double theFlatness) {
+		return new PolylineIterator(theTransform);
+	}
+	
+	/**
+	 * Writes this Polyline's Points without any unused capacity.
+	 *
+	 * @param theOut is the stream being written.
+	 * @throws IOException if theOut cannot be written.
+	 */
+	private void writeObject(final ObjectOutputStream theOut) throws IOException {
+		theOut.defaultWriteObject();
+		theOut.writeInt(myPointCount);
+		for (int i = 0; i < myPointCount * 2; i++) {
+			theOut.writeFloat(myCoords[i]);
+		}
+	}
+	
+	/**
+	 * Reads the Points written by writeObject.
+	 *
+	 * @param theIn is the stream being read.
+	 * @throws IOException if theIn cannot be read or holds no Points.
+	 * @throws ClassNotFoundException never.
+	 */
+	private void readObject(final ObjectInputStream theIn)
+			                throws IOException, ClassNotFoundException {
+		theIn.defaultReadObject();
+		final int count = theIn.readInt();
+		if (count < 1) {
+			throw new IOException("Polylines must hold at least one Point!");
+		}
+		myCoords = new float[Math.max(count, INITIAL_CAPACITY) * 2];
+		myMinX = Float.POSITIVE_INFINITY;
+		myMinY = Float.POSITIVE_INFINITY;
+		myMaxX = Float.NEGATIVE_INFINITY;
+		myMaxY = Float.NEGATIVE_INFINITY;
+		for (int i = 0; i < count; i++) {
+			lineTo(theIn.readFloat(), theIn.readFloat());
+		}
+	}
+
+/**
+ * A PathIterator over the Points of a Polyline. A single-Point Polyline is
+ * described as a zero-length segment so that its stroke caps are still drawn.
+ *
+ * @author Parker Rosengreen
+ * @version 16 December 2020
+ */
+private final class PolylineIterator implements PathIterator {
+	
+	/** The transform applied to returned coordinates, or null for none. */
+	private final AffineTransform myTransform;
+	
+	/** The number of segments returned by this PolylineIterator. */
+	private final int mySegmentCount;
+	
+	/** The index of the current segment. */
+	private int mySegment;
+	
+	/**
+	 * Constructs a new PolylineIterator applying the provided transform.
+	 *
+	 * @param theTransform is the transform, or null for none.
+	 */
+	private PolylineIterator(final AffineTransform theTransform) {
+		myTransform = theTransform;
+		mySegmentCount = Math.max(2, myPointCount);
+	}
+	
+	/**
+	 * Provides the winding rule of this PolylineIterator's path.
+	 *
+	 * @return WIND_NON_ZERO.
+	 */
+	@Override
+	public int getWindingRule() {
+		return WIND_NON_ZERO;
+	}
+	
+	/**
+	 * Indicates whether every segment has been returned.
+	 *
+	 * @return true if iteration is complete, false otherwise.
+	 */
+	@Override
+	public boolean isDone() {
+		return mySegment >= mySegmentCount;
+	}
+	
+	/** Advances this PolylineIterator to the next segment. */
+	@Override
+	public void next() {
+		mySegment++;
+	}
+	
+	/**
+	 * Provides the coordinates and type of the current segment.
+	 *
+	 * @param theCoords receives the segment's coordinates.
+	 * @return the segment type.
+	 */
+	@Override
+	public int currentSegment(final float[] theCoords) {
+		final int point = Math.min(mySegment, myPointCount - 1);
+		theCoords[0] = myCoords[point * 2];
+		theCoords[1] = myCoords[point * 2 + 1];
+		if (myTransform != null) {
+			myTransform.transform(theCoords, 0, theCoords, 0, 1);
+		}
+		return getSegmentType();
+	}
+	
+	/**
+	 * Provides the coordinates and type of the current segment.
+	 *
+	 * @param theCoords receives the segment's coordinates.
+	 * @return the segment type.
+	 */
+	@Override
+	public int currentSegment(final double[] theCoords) {
+		final int point = Math.min(mySegment, myPointCount - 1);
+		theCoords[0] = myCoords[point * 2];
+		theCoords[1] = myCoords[point * 2 + 1];
+		if (myTransform != null) {
+			myTransform.transform(theCoords, 0, theCoords, 0, 1);
+		}
+		return getSegmentType();
+	}
+	
+	/**
+	 * Provides the type of the current segment.
+	 *
+	 * @return SEG_MOVETO for the first segment, SEG_LINETO otherwise.
+	 */
+	private int getSegmentType() {
+		final int type;
+		if (mySegment == 0) {
+			type = SEG_MOVETO;
+		} else {
+			type = SEG_LINETO;
+		}
+		return type;
+	}
+}
+}
@@ -9,6 +9,7 @@ package tools;
 
 import java.awt.Shape;
 import java.awt.geom.Rectangle2D;
+import java.awt.geom.RectangularShape;
 
 /**
  * This program contains attributes and defines behaviors specific to RectangleTools.
@@ -30,6 +31,9 @@ public class RectangleTool extends AbstractPaintTool {
 	/** A RectangleTool's Icon file name. */
 	private static final String ICON_FILE = "images//rectangle_bw.gif";
 	
+	/** The rectangle drawn by this RectangleTool, reused as its Points change. */
+	private final Rectangle2D.Double myRectangle;
+	
 	/** Constructs a RectangleTool with the defined RectangleTool attributes. */
 	public RectangleTool() {
 		this(FOLLOWER, ERASEBLE, BASIC_NAME, ICON_FILE);
@@ -47,6 +51,7 @@ public class RectangleTool extends AbstractPaintTool {
 	protected RectangleTool(final boolean theFollower, final boolean theErasable,
 			                final String theBasicName, final String theIconFile) {
 		super(theFollower, theErasable, theBasicName, theIconFile);
+		myRectangle = new Rectangle2D.Double();
 	}
 
 	/**
@@ -56,7 +61,17 @@ public class RectangleTool extends AbstractPaintTool {
 	 */
 	@Override
 	public Shape getShape() {
-		final Rectangle2D.Double rect = new Rectangle2D.Double();
+		setFrame(myRectangle);
+		return myRectangle;
+	}
+	
+	/**
+	 * Sets the frame of the provided RectangularShape to the rectangle spanned by
+	 * this RectangleTool's start and end Points.
+	 * 
+	 * @param theShape is the RectangularShape whose frame is set.
+	 */
+	protected void setFrame(final RectangularShape theShape) {
 		double startX = getStartPoint().getX();
 		double startY = getStartPoint().getY();
 		final double endX = getEndPoint().getX();
@@ -71,8 +86,7 @@ public class RectangleTool extends AbstractPaintTool {
 		} else if (endX < startX) {
 			startX = endX;
 		}
-		rect.setRect(startX, startY, dX, dY);
-		return rect;
+		theShape.setFrame(startX, startY, dX, dY);
 	}
 
 }
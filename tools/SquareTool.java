@@ -7,8 +7,7 @@
 
 package tools;
 
-import java.awt.Shape;
-import java.awt.geom.Rectangle2D;
+import java.awt.geom.RectangularShape;
 
 /**
  * This program contains attributes and defines behaviors specific to SquareTools.
@@ -50,18 +49,20 @@ public class SquareTool extends RectangleTool {
 	}
 	
 	/**
-	 * Provides access to the Shape drawn by this SquareTool.
+	 * Sets the frame of the provided RectangularShape to the square spanned by
+	 * this SquareTool's start Point and the larger side of the rectangle spanned
+	 * by its start and end Points.
 	 * 
-	 * @return the Shape drawn by this SquareTool.
+	 * @param theShape is the RectangularShape whose frame is set.
 	 */
 	@Override
-	public Shape getShape() {
-		final Rectangle2D.Double rect = (Rectangle2D.Double) super.getShape();
+	protected void setFrame(final RectangularShape theShape) {
+		super.setFrame(theShape);
 		double startX = getStartPoint().getX();
 		double startY = getStartPoint().getY();
 		final double endX = getEndPoint().getX();
 		final double endY = getEndPoint().getY();
-		final double sideLength = Math.max(rect.getWidth(), rect.getHeight());
+		final double sideLength = Math.max(theShape.getWidth(), theShape.getHeight());
 		if (endX < startX && endY < startY) {
 			startX -= sideLength;
 			startY -= sideLength; 
@@ -70,8 +71,7 @@ public class SquareTool extends RectangleTool {
 		} else if (endX < startX) {
 			startX -= sideLength;
 		}
-		rect.setRect(startX, startY, sideLength, sideLength);
-		return rect;
+		theShape.setFrame(startX, startY, sideLength, sideLength);
 	}
 
 }
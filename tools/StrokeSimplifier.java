@@ -0,0 +1,169 @@
+/*
+ * TCSS 305 - Fall 2020
+ *
+ * A StrokeSimplifier class to drop redundant points from freehand strokes as
+ * they are drawn.
+ */
+
+package tools;
+
+import java.awt.geom.Line2D;
+import java.util.Objects;
+
+/**
+ * This program removes collinear and sub-pixel points from a freehand Polyline
+ * while it is drawn, in the manner of the Ramer-Douglas-Peucker algorithm applied
+ * incrementally. The last point of the Polyline is kept floating: when a new point
+ * arrives it replaces the floating point if every point dropped since the last
+ * fixed point still lies within the tolerance of the new segment. Otherwise the
+ * floating point becomes fixed and the new point is appended. No dropped point is
+ * ever farther than the tolerance from the simplified stroke, so the stroke's
+ * visible edge moves by at most the tolerance.
+ *
+ * The number of dropped points checked per new point is bounded, so each point
+ * costs a bounded amount of time however long the stroke grows.
+ *
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+public final class StrokeSimplifier {
+	
+	/** The largest number of dropped points a single segment may replace. */
+	private static final int MAX_PENDING = 32;
+	
+	/** The largest allowed distance between a dropped point and the stroke. */
+	private final double myTolerance;
+	
+	/** The coordinates of the points dropped since the last fixed point. */
+	private final float[] myPending;
+	
+	/** The number of points dropped since the last fixed point. */
+	private int myPendingCount;
+	
+	/** The Polyline being simplified. */
+	private Polyline myLine;
+	
+	/** Indicates if the last point of the Polyline may still be replaced. */
+	private boolean myFloating;
+	
+	/** The number of points provided for the current stroke. */
+	private int myPointCount;
+	
+	/** The number of points dropped from the current stroke. */
+	private int myDroppedCount;
+	
+	/**
+	 * Constructs a new StrokeSimplifier with the provided tolerance.
+	 *
+	 * @param theTolerance is the largest allowed distance, in pixels, between a
+	 * dropped point and the simplified stroke.
+	 * @throws IllegalArgumentException if theTolerance is negative or not a number.
+	 */
+	public StrokeSimplifier(final double theTolerance) {
+		if (!(theTolerance >= 0)) {
+			throw new IllegalArgumentException("Tolerances must be non-negative!");
+		}
+		myTolerance = theTolerance;
+		myPending = new float[MAX_PENDING * 2];
+	}
+	
+	/**
+	 * Provides the tolerance of this StrokeSimplifier.
+	 *
+	 * @return the largest allowed distance between a dropped point and the stroke.
+	 */
+	public double getTolerance() {
+		return myTolerance;
+	}
+	
+	/**
+	 * Begins simplifying a new stroke. The Polyline's existing points are kept.
+	 *
+	 * @param theLine is the Polyline of the new stroke.
+	 * @throws NullPointerException if theLine is null.
+	 */
+	public void begin(final Polyline theLine) {
+		myLine = Objects.requireNonNull(theLine, "Polylines must be non-null!");
+		myFloating = false;
+		myPendingCount = 0;
+		myPointCount = theLine.getPointCount();
+		myDroppedCount = 0;
+	}
+	
+	/**
+	 * Adds a point to the stroke being simplified, either appending it to the
+	 * Polyline or replacing the Polyline's last point with it.
+	 *
+	 * @param theX is the x coordinate of the point.
+	 * @param theY is the y coordinate of the point.
+	 * @throws IllegalStateException if no stroke has been begun.
+	 */
+	public void add(final float theX, final float theY) {
+		if (myLine == null) {
+			throw new IllegalStateException("No stroke has been begun!");
+		}
+		myPointCount++;
+		final int last = myLine.getPointCount() - 1;
+		final float lastX = myLine.getX(last);
+		final float lastY = myLine.getY(last);
+		if (myFloating && myPendingCount < MAX_PENDING &&
+			isReplaceable(last, lastX, lastY, theX, theY)) {
+			myPending[myPendingCount * 2] = lastX;
+			myPending[myPendingCount * 2 + 1] = lastY;
+			myPendingCount++;
+			myDroppedCount++;
+			myLine.setLastPoint(theX, theY);
+		} else {
+			myPendingCount = 0;
+			myLine.lineTo(theX, theY);
+			myFloating = true;
+		}
+	}
+	
+	/**
+	 * Indicates whether the floating point, and every point dropped before it,
+	 * lies within the tolerance of the segment from the last fixed point to a new
+	 * point.
+	 *
+	 * @param theLast is the index of the floating point.
+	 * @param theLastX is the x coordinate of the floating point.
+	 * @param theLastY is the y coordinate of the floating point.
+	 * @param theX is the x coordinate of the new point.
+	 * @param theY is the y coordinate of the new point.
+	 * @return true if the floating point may be replaced, false otherwise.
+	 */
+	private boolean isReplaceable(final int theLast, final float theLastX,
+			                      final float theLastY, final float theX,
+			                      final float theY) {
+		final float anchorX = myLine.getX(theLast - 1);
+		final float anchorY = myLine.getY(theLast - 1);
+		final double limit = myTolerance * myTolerance;
+		boolean replaceable = Line2D.ptSegDistSq(anchorX, anchorY, theX, theY,
+				                                 theLastX, theLastY) <= limit;
+		for (int i = 0; replaceable && i < myPendingCount; i++) {
+			replaceable = Line2D.ptSegDistSq(anchorX, anchorY, theX, theY,
+					                         myPending[i * 2],
+					                         myPending[i * 2 + 1]) <= limit;
+		}
+		return replaceable;
+	}
+	
+	/**
+	 * Provides the number of points provided for the current or most recent
+	 * stroke, including its first point.
+	 *
+	 * @return the number of points provided.
+	 */
+	public int getPointCount() {
+		return myPointCount;
+	}
+	
+	/**
+	 * Provides the number of points dropped from the current or most recent stroke.
+	 *
+	 * @return the number of points dropped.
+	 */
+	public int getDroppedCount() {
+		return myDroppedCount;
+	}
+}
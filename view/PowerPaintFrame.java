@@ -8,39 +8,54 @@ package view;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.FileDialog;
+import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeEvent;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
+import javax.swing.Box;
 import javax.swing.ButtonGroup;
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
+import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JColorChooser;
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
+import javax.swing.JProgressBar;
 import javax.swing.JRadioButtonMenuItem;
 import javax.swing.JSlider;
 import javax.swing.JToggleButton;
 import javax.swing.JToolBar;
 import javax.swing.KeyStroke;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 import javax.swing.event.MenuEvent;
 import javax.swing.event.MenuListener;
 
 import controller.DrawPanel;
+import controller.ShapeFile;
+import controller.ShapeRenderer;
+import controller.ShapeStore;
+import controller.StrokeJournal;
 import tools.CircleTool;
 import tools.EllipseTool;
 import tools.EraserTool;
@@ -48,7 +63,6 @@ import tools.LineTool;
 import tools.PaintTool;
 import tools.PencilTool;
 import tools.RectangleTool;
-import tools.ShapeAttributeContainer;
 import tools.SquareTool;
 
 /**
@@ -111,12 +125,28 @@ public final class PowerPaintFrame extends JFrame {
 	/** The title of file loading error pop-ups. */
 	private static final String LOAD_ERROR = "Error Loading File!";
 	
+	/** The status shown while a file is being saved. */
+	private static final String SAVE_PROGRESS = "Saving \"%s\"...";
+	
+	/** The status shown once a file has been saved. */
+	private static final String SAVE_STATUS = "Saved \"%s\": %.1f MiB at %.1f MiB/s";
+	
+	/** The number of bytes in a mebibyte. */
+	private static final double BYTES_PER_MIB = 1024.0 * 1024.0;
+	
+	/** The number of nanoseconds in a second. */
+	private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+	
 	/** The title of the FileDialog used for saving. */
 	private static final String FILE_SAVE_POPUP = "Save to File";
 	
 	/** The error message displayed on Save file i/o error pop-ups. */
 	private static final String FILE_SAVE_ERROR = "Could not save file: ";
 	
+	/** The error message displayed when saving over the file being loaded. */
+	private static final String FILE_SAVE_LOADING = "Could not save over the file "
+			                                        + "being loaded: ";
+	
 	/** The name of the load sub-menu. */
 	private static final String FILE_LOAD = "Load..."; 
 	
@@ -126,6 +156,32 @@ public final class PowerPaintFrame extends JFrame {
 	/** The error message displayed on Load file i/o error pop-ups. */
 	private static final String FILE_LOAD_ERROR = "Could not load file: ";
 	
+	/** The name of the button that cancels a load in progress. */
+	private static final String LOAD_CANCEL = "Cancel Load";
+	
+	/** The smallest number of Shapes added to the DrawPanel at once while loading. */
+	private static final int LOAD_BATCH_SHAPES = 4096;
+	
+	/** The progress reported by a SwingWorker that has finished its work. */
+	private static final int LOAD_PROGRESS_MAX = 100;
+	
+	/** The title of the pop-up shown when the journal can no longer be written. */
+	private static final String JOURNAL_ERROR = "Drawing No Longer Recorded!";
+	
+	/** The message shown when the journal can no longer be written. */
+	private static final String JOURNAL_WARNING = "Changes to this drawing can no "
+			                                      + "longer be recovered after a crash.\n"
+			                                      + "Save your drawing to keep it.\n";
+	
+	/** The title of the pop-up shown when no journal could be opened. */
+	private static final String NO_JOURNAL_ERROR = "Drawing Not Recorded!";
+	
+	/** The message shown when no journal could be opened. */
+	private static final String NO_JOURNAL_WARNING = "No journal could be opened, "
+			                                         + "so this drawing cannot be "
+			                                         + "recovered after a crash.\n"
+			                                         + "Save your drawing to keep it.";
+	
 	/** A String literal utilized in the display of save/load Exception types. */
 	private static final String SOURCE = "Source: ";
 	
@@ -168,6 +224,12 @@ public final class PowerPaintFrame extends JFrame {
 	/** The title of the background Color chooser dialog. */
 	private static final String BACKGROUND_POPUP = "Choose a Background Color";
 	
+	/** The name of the performance overlay menu item. */
+	private static final String OPTIONS_OVERLAY = "Performance Overlay";
+	
+	/** The name of the omit hidden Shapes menu item. */
+	private static final String OPTIONS_OMIT_HIDDEN = "Save Without Hidden Shapes";
+	
 	/** The name of the clear menu item. */
 	private static final String OPTIONS_CLEAR = "Clear";
 	
@@ -204,6 +266,30 @@ public final class PowerPaintFrame extends JFrame {
 	 *  mnemonic duplications. 
 	 */
 	private final List<Character> mySubMnemonics;
+	
+	/** The Save JMenuItem, disabled while a file is being saved. */
+	private final JMenuItem mySaveItem;
+	
+	/** Saves the file being saved, or null if no file is being saved. */
+	private SaveWorker mySaveWorker;
+	
+	/** Shows the progress and throughput of the file being saved. */
+	private final JLabel mySaveStatus;
+	
+	/** The Load JMenuItem, disabled while a file is being loaded. */
+	private final JMenuItem myLoadItem;
+	
+	/** Shows the progress of a file being loaded. */
+	private final JProgressBar myLoadProgress;
+	
+	/** Cancels the file being loaded. */
+	private final JButton myLoadCancel;
+	
+	/** Loads the file being loaded, or null if no file is being loaded. */
+	private LoadWorker myLoadWorker;
+	
+	/** Indicates if Shapes hidden by later Shapes are left out of saved files. */
+	private boolean myOmitHidden;
 
 	/**
 	 * Constructs a new PowerPaintFrame, adding all JToolBar and JMenu components.
@@ -220,11 +306,41 @@ public final class PowerPaintFrame extends JFrame {
 		myToolActions = new ArrayList<PaintToolAction>();
 		myTopMnemonics = new ArrayList<Character>();
 		mySubMnemonics = new ArrayList<Character>();
+		mySaveItem = new JMenuItem(FILE_SAVE);
+		mySaveStatus = new JLabel();
+		myLoadItem = new JMenuItem(FILE_LOAD);
+		myLoadProgress = new JProgressBar(0, LOAD_PROGRESS_MAX);
+		myLoadCancel = new JButton(LOAD_CANCEL);
 		addPaintActions();
 		add(createToolBar(), BorderLayout.SOUTH);
 		setJMenuBar(createMenuBar());
 	}
 	
+	/**
+	 * Restores the drawing recovered by the provided StrokeJournal on this
+	 * PowerPaintFrame's DrawPanel and records every later change to it. If the
+	 * StrokeJournal later fails, the user is warned once that the drawing is no
+	 * longer being recorded.
+	 * 
+	 * @param theJournal is the StrokeJournal.
+	 * @throws NullPointerException if theJournal is null.
+	 */
+	public void setJournal(final StrokeJournal theJournal) {
+		myDrawPanel.setJournal(theJournal);
+		theJournal.setFailureListener((theFailure) -> SwingUtilities.invokeLater(
+				() -> showJournalError(theFailure.getClass().getSimpleName())));
+	}
+	
+	/**
+	 * Warns the user that the drawing on this PowerPaintFrame is not recorded, as no
+	 * journal could be opened, such as when every journal is held by another running
+	 * PowerPaint.
+	 */
+	public void showJournalUnavailable() {
+		JOptionPane.showMessageDialog(this, NO_JOURNAL_WARNING, NO_JOURNAL_ERROR,
+				                      JOptionPane.WARNING_MESSAGE);
+	}
+	
 	/**
 	 * Constructs individual PaintTool Actions for each PaintTool offered on this
 	 * PowerPaintFrame.
@@ -272,6 +388,13 @@ public final class PowerPaintFrame extends JFrame {
 			bGroup.add(button);
 			bar.add(button);
 		}
+		bar.add(Box.createHorizontalGlue());
+		bar.add(mySaveStatus);
+		myLoadProgress.setVisible(false);
+		bar.add(myLoadProgress);
+		myLoadCancel.addActionListener((theEvent) -> myLoadWorker.cancel(true));
+		myLoadCancel.setVisible(false);
+		bar.add(myLoadCancel);
 		return bar;
 	}
 	
@@ -313,6 +436,9 @@ public final class PowerPaintFrame extends JFrame {
 		options.add(createFillColorMenuItem());
 		options.add(createBackgroundColorMenuItem());
 		options.addSeparator();
+		options.add(createOverlayMenuItem());
+		options.add(createOmitHiddenMenuItem());
+		options.addSeparator();
 		final JMenuItem clear = createClearMenuItem();
 		options.addMenuListener(new OptionsMenuListener(clear));
 		options.add(clear);
@@ -434,6 +560,38 @@ public final class PowerPaintFrame extends JFrame {
 		return bC;
 	}
 	
+	/**
+	 * Creates the Performance Overlay JCheckBoxMenuItem to be added to this 
+	 * PowerPaintFrame's Options Menu. Selecting it shows frame times, input 
+	 * latencies, and memory use over this PowerPaintFrame's DrawPanel.
+	 * 
+	 * @return the newly constructed JCheckBoxMenuItem with attached ActionListener.
+	 */
+	private JMenuItem createOverlayMenuItem() {
+		final JCheckBoxMenuItem overlay = new JCheckBoxMenuItem(OPTIONS_OVERLAY);
+		overlay.setMnemonic(OPTIONS_OVERLAY.
+				            charAt(getLowLevelMnemonicIndex(OPTIONS_OVERLAY)));
+		overlay.addActionListener((theEvent) -> 
+		                          myDrawPanel.setOverlayVisible(overlay.isSelected()));
+		return overlay;
+	}
+	
+	/**
+	 * Creates the Save Without Hidden Shapes JCheckBoxMenuItem to be added to this
+	 * PowerPaintFrame's Options Menu. Selecting it leaves the Shapes the DrawPanel
+	 * has found hidden by later Shapes out of saved files, which look the same but
+	 * can no longer bring the hidden Shapes back by undoing.
+	 * 
+	 * @return the newly constructed JCheckBoxMenuItem with attached ActionListener.
+	 */
+	private JMenuItem createOmitHiddenMenuItem() {
+		final JCheckBoxMenuItem omit = new JCheckBoxMenuItem(OPTIONS_OMIT_HIDDEN);
+		omit.setMnemonic(OPTIONS_OMIT_HIDDEN.
+				         charAt(getLowLevelMnemonicIndex(OPTIONS_OMIT_HIDDEN)));
+		omit.addActionListener((theEvent) -> myOmitHidden = omit.isSelected());
+		return omit;
+	}
+	
 	/**
 	 * Create the Clear JMenuItem to be added to this PowerPaintFrame's Options Menu.
 	 * The Clear JMenuItem is attached an ActionListener giving the user the ability
@@ -531,17 +689,15 @@ public final class PowerPaintFrame extends JFrame {
 	private JMenu createFileMenu() {
 		final JMenu file = new JMenu(FILE_MENU);
 		file.setMnemonic(FILE_MENU.charAt(getTopLevelMnemonicIndex(FILE_MENU)));
-		final JMenuItem save = new JMenuItem(FILE_SAVE);
-		save.addActionListener((theEvent) -> saveToFile());
-		save.setMnemonic(FILE_SAVE.charAt(getLowLevelMnemonicIndex(FILE_SAVE)));
-		save.setAccelerator(KeyStroke.
+		mySaveItem.addActionListener((theEvent) -> saveToFile());
+		mySaveItem.setMnemonic(FILE_SAVE.charAt(getLowLevelMnemonicIndex(FILE_SAVE)));
+		mySaveItem.setAccelerator(KeyStroke.
                                    getKeyStroke(KeyEvent.VK_S, KeyEvent.CTRL_DOWN_MASK));
-		final JMenuItem load = new JMenuItem(FILE_LOAD);
-		load.addActionListener((theEvent) -> loadFromFile());
-		load.setMnemonic(FILE_LOAD.charAt(getLowLevelMnemonicIndex(FILE_LOAD)));
-		file.add(save);
+		myLoadItem.addActionListener((theEvent) -> loadFromFile());
+		myLoadItem.setMnemonic(FILE_LOAD.charAt(getLowLevelMnemonicIndex(FILE_LOAD)));
+		file.add(mySaveItem);
 		file.addSeparator();
-		file.add(load);
+		file.add(myLoadItem);
 		return file;
 	}
 	
@@ -609,48 +765,102 @@ public final class PowerPaintFrame extends JFrame {
 	
 	/**
 	 * Saves the list of currently drawn on this PowerPaintFrame's DrawPanel to a
-	 * file and directory specified by the user.
+	 * file and directory specified by the user. A snapshot of the Shapes is taken
+	 * at once and written by a SaveWorker in the background while the user keeps
+	 * drawing, leaving out the Shapes hidden by later Shapes if the user chose to.
+	 * Only one file is saved at a time, and the file being loaded is never saved over.
 	 */
 	private void saveToFile() {
+		if (mySaveWorker != null) {
+			return;
+		}
 		final FileDialog fd = new FileDialog(this, FILE_SAVE_POPUP, FileDialog.SAVE);
 		fd.setVisible(true);
 		if (fd.getFile() != null) {
 			final String fileName = fd.getFile() + ".shp";
+			final File target = new File(fd.getDirectory(), fileName);
+			if (isLoading(target)) {
+				final String message = FILE_SAVE_LOADING + "\"" + fileName + "\"";
+				JOptionPane.showMessageDialog(this, message, SAVE_ERROR,
+						                      JOptionPane.ERROR_MESSAGE);
+				return;
+			}
+			mySaveItem.setEnabled(false);
+			mySaveStatus.setText(String.format(SAVE_PROGRESS, fileName));
+			final BitSet hidden;
+			if (myOmitHidden) {
+				hidden = myDrawPanel.getHiddenShapes();
+			} else {
+				hidden = new BitSet();
+			}
+			mySaveWorker = new SaveWorker(target, myDrawPanel.getDrawnShapeStore(),
+					                      hidden);
+			mySaveWorker.execute();
+		}
+	}
+	
+	/**
+	 * Indicates if the provided file is the file being loaded.
+	 * 
+	 * @param theFile is the file.
+	 * @return true if theFile is being loaded, false otherwise.
+	 */
+	private boolean isLoading(final File theFile) {
+		boolean loading = false;
+		if (myLoadWorker != null && theFile.exists()) {
+			final File loaded = myLoadWorker.myFile;
 			try {
-				final File f = new File(fd.getDirectory(), fileName);
-				final FileOutputStream file = new FileOutputStream(f);
-				final ObjectOutputStream out = new ObjectOutputStream(file);
-				out.writeObject(myDrawPanel.getDrawnShapes());
-				out.close();
-				file.close();
-			} catch (IOException ex) {
-				showSaveError(ex.getClass().getSimpleName(), fileName);
+				loading = Files.isSameFile(loaded.toPath(), theFile.toPath());
+			} catch (final IOException ex) {
+				loading = loaded.getAbsoluteFile().equals(theFile.getAbsoluteFile());
 			}
 		}
+		return loading;
 	}
 	
 	/**
 	 * Loads all Shapes currently drawn on a previously saved Shape list from a
-	 * file and directory specified by the user.
+	 * file and directory specified by the user. The file is read by a LoadWorker
+	 * in the background while the user keeps drawing, and its Shapes appear on this
+	 * PowerPaintFrame's DrawPanel in batches as they are added.
 	 */
 	private void loadFromFile() {
 		final FileDialog fd = new FileDialog(this, FILE_LOAD_POPUP, FileDialog.LOAD);
 		fd.setVisible(true);
 		if (fd.getFile() != null) {
-			try {
-				final File f = new File(fd.getDirectory(), fd.getFile());
-				final FileInputStream file = new FileInputStream(f);
-				final ObjectInputStream in = new ObjectInputStream(file);
-				final Object obj = in.readObject();
-				myDrawPanel.addSavedShapes((List<ShapeAttributeContainer>) obj);
-				in.close();
-				file.close();
-			} catch (Exception ex) {
-				showLoadError(ex.getClass().getSimpleName(), fd.getFile());
-			}
+			myLoadWorker = new LoadWorker(new File(fd.getDirectory(), fd.getFile()));
+			myLoadWorker.addPropertyChangeListener(this::updateLoadProgress);
+			myLoadItem.setEnabled(false);
+			myLoadProgress.setIndeterminate(true);
+			myLoadProgress.setVisible(true);
+			myLoadCancel.setVisible(true);
+			myLoadWorker.execute();
 		}
 	}
 	
+	/**
+	 * Shows the progress reported by this PowerPaintFrame's LoadWorker.
+	 * 
+	 * @param theEvent is the PropertyChangeEvent fired by the LoadWorker.
+	 */
+	private void updateLoadProgress(final PropertyChangeEvent theEvent) {
+		if ("progress".equals(theEvent.getPropertyName())) {
+			myLoadProgress.setIndeterminate(false);
+			myLoadProgress.setValue((Integer) theEvent.getNewValue());
+		}
+	}
+	
+	/**
+	 * Hides the progress of a finished load and allows another file to be loaded.
+	 */
+	private void finishLoad() {
+		myLoadWorker = null;
+		myLoadProgress.setVisible(false);
+		myLoadProgress.setValue(0);
+		myLoadCancel.setVisible(false);
+		myLoadItem.setEnabled(true);
+	}
+	
 	/**
 	 * Displays an error JOptionPane when an exception is thrown during the process of
 	 * saving the list of Shapes drawn on this PowerPaintFrame's DrawPanel.
@@ -665,6 +875,17 @@ public final class PowerPaintFrame extends JFrame {
 				                                     JOptionPane.ERROR_MESSAGE);
 	}
 	
+	/**
+	 * Displays a warning JOptionPane when the journal recording the drawing on this
+	 * PowerPaintFrame's DrawPanel can no longer be written.
+	 * 
+	 * @param theExceptionName is the name of the Exception that stopped the journal.
+	 */
+	private void showJournalError(final String theExceptionName) {
+		JOptionPane.showMessageDialog(this, JOURNAL_WARNING + SOURCE + theExceptionName,
+				                      JOURNAL_ERROR, JOptionPane.WARNING_MESSAGE);
+	}
+	
 	/**
 	 * Displays an error JOptionPane when an exception is thrown during the process of
 	 * loading a saved list of Shapes drawn on a previous DrawPanel.
@@ -711,6 +932,248 @@ public final class PowerPaintFrame extends JFrame {
 		return index;
 	}
 
+/**
+ * A SaveWorker class to write a snapshot of this PowerPaintFrame's drawn Shapes to
+ * a file off the event dispatch thread, reporting the rate at which it was written
+ * or the reason it could not be.
+ * 
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+private final class SaveWorker extends SwingWorker<Long, Void> {
+	
+	/** The file being saved. */
+	private final File myFile;
+	
+	/** The snapshot of the Shapes being saved. */
+	private final ShapeStore myShapes;
+	
+	/** The indices of the Shapes of the snapshot left out of the file. */
+	private final BitSet myOmitted;
+	
+	/** The time taken to write the file, in nanoseconds. */
+	private long myElapsed;
+	
+	/**
+	 * Constructs a new SaveWorker writing the provided Shapes to the provided file.
+	 * 
+	 * @param theFile is the file to be saved.
+	 * @param theShapes is the snapshot of the Shapes to be saved.
+	 * @param theOmitted are the indices of the Shapes left out of the file.
+	 */
+	private SaveWorker(final File theFile, final ShapeStore theShapes,
+			           final BitSet theOmitted) {
+		super();
+		myFile = theFile;
+		myShapes = theShapes;
+		myOmitted = theOmitted;
+	}
+	
+	/**
+	 * Writes the file, first copying the Shapes not left out of it if any are.
+	 * 
+	 * @return the size of the written file, in bytes.
+	 * @throws IOException if the file cannot be written.
+	 */
+	@Override
+	protected Long doInBackground() throws IOException {
+		final long start = System.nanoTime();
+		ShapeStore shapes = myShapes;
+		if (!myOmitted.isEmpty()) {
+			shapes = new ShapeStore();
+			for (int i = 0; i < myShapes.size(); i++) {
+				if (!myOmitted.get(i)) {
+					myShapes.copyTo(i, shapes, myShapes.getID(i));
+				}
+			}
+		}
+		ShapeFile.write(myFile.toPath(), shapes);
+		myElapsed = System.nanoTime() - start;
+		return Files.size(myFile.toPath());
+	}
+	
+	/**
+	 * Shows the rate at which the file was written, or reports why it could not be.
+	 */
+	@Override
+	protected void done() {
+		mySaveWorker = null;
+		mySaveItem.setEnabled(true);
+		try {
+			final double size = get() / BYTES_PER_MIB;
+			mySaveStatus.setText(String.format(SAVE_STATUS, myFile.getName(), size,
+					             size * NANOS_PER_SECOND / Math.max(1, myElapsed)));
+		} catch (ExecutionException ex) {
+			mySaveStatus.setText(null);
+			showSaveError(ex.getCause().getClass().getSimpleName(), myFile.getName());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
+
+/**
+ * A LoadWorker class to read a saved file off the event dispatch thread and add
+ * its Shapes to this PowerPaintFrame's DrawPanel a batch at a time. The Shapes of
+ * a version 2 or version 3 file are added as they are decoded, those of a version
+ * 3 file merged from its chunks in drawing order, and those of an original format
+ * file once it is read. The chunks of a version 3 file meeting the visible region
+ * of the DrawPanel are decoded first and shown as a preview of that region until
+ * every Shape has been added.
+ * 
+ * Every batch holds whole groups of Shapes sharing an ID, so the DrawPanel gives
+ * each group a unique ID exactly as it would if the file were added at once, and
+ * no group is split between two undos. Only one batch waits on the event dispatch
+ * thread at a time, so the user's own events are handled between batches. A
+ * cancelled LoadWorker adds no further batches; the Shapes already added remain
+ * and may be undone.
+ * 
+ * @author Parker Rosengreen
+ * @version 17 December 2020
+ */
+private final class LoadWorker extends SwingWorker<Void, ShapeStore> {
+	
+	/** The file being loaded. */
+	private final File myFile;
+	
+	/** Released each time a published batch has been added to the DrawPanel. */
+	private final Semaphore myAdded;
+	
+	/** The region of the DrawPanel previewed. */
+	private final Rectangle myRegion;
+	
+	/** The preview of the region, onto which the Shapes meeting it are drawn. */
+	private final BufferedImage myPreview;
+	
+	/** The background Color of the DrawPanel, in which erased Shapes are drawn. */
+	private final Color myBackground;
+	
+	/**
+	 * Constructs a new LoadWorker for the provided file, beginning a preview of the
+	 * region of the DrawPanel currently visible.
+	 * 
+	 * @param theFile is the file to be loaded.
+	 */
+	private LoadWorker(final File theFile) {
+		super();
+		myFile = theFile;
+		myAdded = new Semaphore(0);
+		myRegion = myDrawPanel.getVisibleRect();
+		myPreview = myDrawPanel.beginLoadPreview(myRegion);
+		myBackground = myDrawPanel.getBackground();
+	}
+	
+	/**
+	 * Reads every Shape of the file, including those outside the area the DrawPanel
+	 * shows, so that saving the drawing again keeps them all. The preview of a
+	 * version 3 file is drawn and shown first, from only the chunks meeting the
+	 * previewed region, and the whole file is then read. Batches are published
+	 * as they are decoded, each holding the whole groups read so far, and each is
+	 * added before the next is decoded. The progress reported is the average of the
+	 * fraction of the file decoded and the fraction of its Shapes added.
+	 * 
+	 * @return null once every batch has been added.
+	 * @throws IOException if the file cannot be read.
+	 * @throws InterruptedException if this LoadWorker is cancelled while waiting.
+	 */
+	@Override
+	protected Void doInBackground() throws IOException, InterruptedException {
+		try (ShapeFile.Reader reader = ShapeFile.open(myFile.toPath())) {
+			if (reader.isIndexed() && !myRegion.isEmpty()) {
+				drawPreview(reader.readArea(myRegion));
+				SwingUtilities.invokeLater(() -> myDrawPanel.showLoadPreview(myPreview));
+			}
+			ShapeStore pending = new ShapeStore();
+			long added = 0;
+			while (!reader.isFinished() && !isCancelled()) {
+				reader.read(pending, LOAD_BATCH_SHAPES);
+				int end = pending.size();
+				if (end > 0 && !reader.isFinished()) {
+					end = pending.getLastGroupStart();
+				}
+				if (end > 0) {
+					final ShapeStore batch;
+					if (end == pending.size()) {
+						batch = pending;
+						pending = new ShapeStore();
+					} else {
+						batch = new ShapeStore();
+						final ShapeStore rest = new ShapeStore();
+						for (int i = 0; i < pending.size(); i++) {
+							if (i < end) {
+								pending.copyTo(i, batch, pending.getID(i));
+							} else {
+								pending.copyTo(i, rest, pending.getID(i));
+							}
+						}
+						pending = rest;
+					}
+					publish(batch);
+					myAdded.acquire();
+					added += end;
+				}
+				final double decoded = (double) reader.getPosition()
+						               / Math.max(1, reader.getSize());
+				final double shown = (double) added / Math.max(1, reader.getShapeCount());
+				setProgress((int) ((decoded + shown) * LOAD_PROGRESS_MAX / 2));
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Draws the Shapes meeting the previewed region onto the preview, in order.
+	 * 
+	 * @param theShapes are the Shapes read from the chunks meeting the region.
+	 */
+	private void drawPreview(final ShapeStore theShapes) {
+		final Graphics2D g2d = myPreview.createGraphics();
+		g2d.translate(-myRegion.x, -myRegion.y);
+		ShapeRenderer.prepare(g2d);
+		final ShapeStore.Geometry geometry = new ShapeStore.Geometry();
+		for (int i = 0; i < theShapes.size() && !isCancelled(); i++) {
+			if (theShapes.getStrokeBounds(i).intersects(myRegion)) {
+				ShapeRenderer.draw(g2d, theShapes, i, myBackground, geometry);
+			}
+		}
+		g2d.dispose();
+	}
+	
+	/**
+	 * Adds published batches to the DrawPanel unless this LoadWorker is cancelled.
+	 * 
+	 * @param theBatches are the published batches.
+	 */
+	@Override
+	protected void process(final List<ShapeStore> theBatches) {
+		for (final ShapeStore batch : theBatches) {
+			if (!isCancelled()) {
+				myDrawPanel.addSavedShapes(batch);
+			}
+			myAdded.release();
+		}
+	}
+	
+	/**
+	 * Ends the preview and hides the progress of this LoadWorker, and reports a file
+	 * that could not be read.
+	 */
+	@Override
+	protected void done() {
+		myDrawPanel.endLoadPreview();
+		finishLoad();
+		if (!isCancelled()) {
+			try {
+				get();
+			} catch (ExecutionException ex) {
+				showLoadError(ex.getCause().getClass().getSimpleName(), myFile.getName());
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
+
 /**
  * A PaintToolAction class to handle all events associated with and configure
  * the PaintTools offered by this PowerPaintFrame. 